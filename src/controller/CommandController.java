@@ -5,8 +5,11 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.*;
 
@@ -17,8 +20,12 @@ import controller.commands.Shoot;
 import dungeon.Direction;
 import dungeon.Dungeon;
 import dungeon.DungeonImpl;
-import randomizer.ActualRandomizer;
+import dungeon.DungeonPool;
+import dungeon.DungeonSettings;
+import dungeon.GenerationMonitor;
+import dungeon.GenerationPhase;
 import randomizer.FixedRandomizer;
+import randomizer.SeededRandomizer;
 import view.IView;
 
 //Code reference for command pattern:
@@ -33,16 +40,24 @@ import view.IView;
  */
 public class CommandController implements IDungeonController, ActionListener {
 
+  //dungeons kept ready for each of the last few settings used
+  private static final int POOLED_PER_SETTINGS = 2;
+  private static final int POOLED_SETTINGS = 3;
+
   private Appendable out;
   private Scanner sc;
   private IView view;
   private Dungeon model;
   private int shootDist;
   private String shootArrowVariable;
+  private SwingWorker<Dungeon, GenerationPhase> generation;
+  private DungeonPool pool;
 
   public CommandController(IView v, Dungeon m) {
     this.view = v;
     this.model = m;
+    this.pool = new DungeonPool(POOLED_PER_SETTINGS, POOLED_SETTINGS,
+            Runtime.getRuntime().maxMemory() / 4);
     view.addActionListener(this);
     view.makeVisible();
     this.shootArrowVariable = "No";
@@ -407,16 +422,79 @@ public class CommandController implements IDungeonController, ActionListener {
     return a;
   }
 
+  //a dungeon ready in the pool is used at once, otherwise the dungeon is created on a worker
+  //thread and the view only gets it once it is complete
   private void createDungeonModel() {
-    try {
-      model = new DungeonImpl(view.getRows(), view.getColumns(), view.getInterconnectivity(),
-              view.getTreasurePercent(), view.getWrapping(), view.getMonsterCount(),
-              view.getThiefCount(), view.getPitCount(), view.getMovingMonsterCount(),
-              new ActualRandomizer());
-      this.view.setNewModel(model, this);
-    } catch (IllegalArgumentException e) {
-      this.view.showErrorMessage(e.getMessage());
+    if (generation != null) {
+      //the cancelled worker must not report back once a pooled dungeon has been shown
+      generation.cancel(false);
+      generation = null;
+      view.hideGenerationProgress();
+    }
+    DungeonSettings settings = new DungeonSettings(view.getRows(), view.getColumns(),
+            view.getInterconnectivity(), view.getTreasurePercent(), view.getWrapping(),
+            view.getMonsterCount(), view.getThiefCount(), view.getPitCount(),
+            view.getMovingMonsterCount());
+    Long seed = view.getSeed();
+    //a dungeon with an entered seed has to be created from that seed
+    Dungeon pooled = seed == null && pool != null ? pool.take(settings) : null;
+    if (pooled != null && pooled.getRandomizer() instanceof SeededRandomizer) {
+      showNewDungeon(pooled, ((SeededRandomizer) pooled.getRandomizer()).getSeed());
+      return;
     }
+    SeededRandomizer randomizer = seed == null ? new SeededRandomizer()
+            : new SeededRandomizer(seed);
+    generation = new SwingWorker<Dungeon, GenerationPhase>() {
+      @Override
+      protected Dungeon doInBackground() {
+        SwingWorker<Dungeon, GenerationPhase> worker = this;
+        return settings.createDungeon(randomizer, new GenerationMonitor() {
+          @Override
+          public void phaseStarted(GenerationPhase phase) {
+            publish(phase);
+          }
+
+          @Override
+          public boolean isCancelled() {
+            return worker.isCancelled();
+          }
+        });
+      }
+
+      @Override
+      protected void process(List<GenerationPhase> phases) {
+        if (!isCancelled()) {
+          view.showGenerationProgress(phases.get(phases.size() - 1));
+        }
+      }
+
+      @Override
+      protected void done() {
+        if (generation != this) {
+          //a newer dungeon is being created
+          return;
+        }
+        generation = null;
+        view.hideGenerationProgress();
+        try {
+          showNewDungeon(get(), randomizer.getSeed());
+        } catch (CancellationException e) {
+          view.showMessage("Dungeon creation cancelled");
+        } catch (ExecutionException e) {
+          view.showErrorMessage(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    generation.execute();
+  }
+
+  private void showNewDungeon(Dungeon dungeon, long seed) {
+    model = dungeon;
+    view.setNewModel(model, this);
+    view.showMessage("New Dungeon Created from seed " + seed
+            + ". Use arrow keys to move, 'S' - Shoot, 'A' - pick arrows, 'T' - pick treasure.");
   }
 
   @Override
@@ -462,6 +540,10 @@ public class CommandController implements IDungeonController, ActionListener {
         } else if (result == JOptionPane.CANCEL_OPTION) {
           //do nothing if parameter box is cancelled
         }
+      } else if (e.getActionCommand() == "Cancel Generation") {
+        if (generation != null) {
+          generation.cancel(false);
+        }
       } else if (e.getActionCommand() == "Quit Game") {
         System.exit(0);
       } else if (e.getActionCommand() == "Restart Game") {
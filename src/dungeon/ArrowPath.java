@@ -0,0 +1,71 @@
+package dungeon;
+
+import java.util.function.IntPredicate;
+
+/**
+ * This class represents the flight of an arrow through a dungeon. An arrow flies the given
+ * number of caves in a straight line and follows a tunnel out through the exit it did not come
+ * in from. The flight is the same for a dungeon played alone and a dungeon shared by many
+ * players, which only differ in how they keep their paths.
+ */
+final class ArrowPath {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  /**
+   * This interface represents the paths leaving the locations of a dungeon.
+   */
+  interface Paths {
+
+    /**
+     * This method gives the location one move away.
+     *
+     * @param id        the location id
+     * @param direction the direction of the move
+     * @return the id of the location, -1 when there is no path
+     */
+    int neighbor(int id, Direction direction);
+  }
+
+  private ArrowPath() {
+  }
+
+  /**
+   * This method gives the location where an arrow shot from a location lands.
+   *
+   * @param paths     the paths of the dungeon
+   * @param isCave    tells if a location is a cave
+   * @param size      the number of locations of the dungeon
+   * @param from      the location the arrow is shot from
+   * @param direction the direction of the shot
+   * @param dist      the number of caves the arrow flies, at least 1
+   * @return the id of the location, -1 when the arrow flies into a wall or round a loop of
+   *         tunnels without reaching a cave
+   */
+  static int land(Paths paths, IntPredicate isCave, int size, int from, Direction direction,
+                  int dist) {
+    int arrowId = from;
+    int tunnelSteps = 0;
+    while (dist > 0) {
+      int next = paths.neighbor(arrowId, direction);
+      if (next < 0 || tunnelSteps > size) {
+        return -1;
+      }
+      arrowId = next;
+      if (isCave.test(arrowId)) {
+        dist--;
+        tunnelSteps = 0;
+      } else {
+        tunnelSteps++;
+        Direction entry = GridTopology.opposite(direction);
+        for (Direction exit : DIRECTIONS) {
+          if (exit != entry && paths.neighbor(arrowId, exit) >= 0) {
+            direction = exit;
+            break;
+          }
+        }
+      }
+    }
+    return arrowId;
+  }
+}
@@ -0,0 +1,15 @@
+package dungeon;
+
+/**
+ * This interface represents a policy a bot follows to play a game without anyone watching. A new
+ * bot is created for every game, so a bot can keep the state of its game.
+ */
+public interface BotPolicy {
+
+  /**
+   * This method plays one turn of the game. A turn usually ends with a move of the player.
+   *
+   * @param turn the game seen by the bot and the actions it can take
+   */
+  public void playTurn(BotTurn turn);
+}
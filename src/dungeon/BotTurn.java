@@ -0,0 +1,142 @@
+package dungeon;
+
+import randomizer.Randomizer;
+
+/**
+ * This class represents the game as a bot sees it. The bot reads the player location, the smell
+ * and the arrows of the player and takes the actions of the player without any description
+ * being formatted, so a game played by a bot costs only the work of the game itself. The
+ * actions do nothing once the game is over.
+ */
+public final class BotTurn {
+
+  private final DungeonImpl dungeon;
+  private final Randomizer randomizer;
+  private int moves;
+  private int treasures;
+  private int hits;
+
+  /**
+   * Constructs the view of a game for a bot.
+   *
+   * @param dungeon    the dungeon of the game
+   * @param randomizer the randomizer the bot draws its choices from
+   */
+  BotTurn(DungeonImpl dungeon, Randomizer randomizer) {
+    this.dungeon = dungeon;
+    this.randomizer = randomizer;
+  }
+
+  /**
+   * This method gives the location of the player.
+   *
+   * @return the location of the player
+   */
+  public Location getLocation() {
+    return dungeon.getLivePlayer().getCurrentLocation();
+  }
+
+  /**
+   * This method gives the smell at the location of the player.
+   *
+   * @return the smell
+   */
+  public SmellType getSmell() {
+    return dungeon.checkSmell();
+  }
+
+  /**
+   * This method gives the number of arrows the player has.
+   *
+   * @return the number of arrows
+   */
+  public int getArrowCount() {
+    return dungeon.getLivePlayer().getArrowCount();
+  }
+
+  /**
+   * This method gives the randomizer of the bot, seeded from the seed of the game so that the
+   * choices of the bot are the same every time the game is played.
+   *
+   * @return the randomizer
+   */
+  public Randomizer getRandomizer() {
+    return randomizer;
+  }
+
+  /**
+   * This method tells if the player has died or reached the end cave.
+   *
+   * @return true if the game is over
+   */
+  public boolean isOver() {
+    return dungeon.getLivePlayer().getHealth() <= 0 || dungeon.hasReachedEnd();
+  }
+
+  /**
+   * This method moves the player.
+   *
+   * @param direction the direction of the move
+   * @return true if the player moved
+   */
+  public boolean move(Direction direction) {
+    if (isOver()) {
+      return false;
+    }
+    moves++;
+    return dungeon.move(direction, null);
+  }
+
+  /**
+   * This method shoots an arrow.
+   *
+   * @param direction the direction of the shot
+   * @param distance  the number of caves the arrow flies, at least 1
+   * @return true if the arrow hit a monster
+   * @throws IllegalArgumentException when the distance is less than 1
+   */
+  public boolean shoot(Direction direction, int distance) throws IllegalArgumentException {
+    if (distance < 1) {
+      throw new IllegalArgumentException("Distance should be at least 1");
+    }
+    if (isOver() || !dungeon.shoot(direction, distance, null)) {
+      return false;
+    }
+    hits++;
+    return true;
+  }
+
+  /**
+   * This method picks up the treasure at the player location.
+   *
+   * @return true if there was treasure to pick up
+   */
+  public boolean pickTreasure() {
+    if (isOver() || !dungeon.takeTreasure()) {
+      return false;
+    }
+    treasures++;
+    return true;
+  }
+
+  /**
+   * This method picks up the arrows at the player location.
+   *
+   * @return true if there were arrows to pick up
+   */
+  public boolean pickArrow() {
+    return !isOver() && dungeon.takeArrow();
+  }
+
+  int getMoves() {
+    return moves;
+  }
+
+  int getTreasures() {
+    return treasures;
+  }
+
+  int getHits() {
+    return hits;
+  }
+}
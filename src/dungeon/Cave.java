@@ -1,8 +1,7 @@
 package dungeon;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -11,22 +10,23 @@ import randomizer.Randomizer;
 /**
  * This class represents a location or node in the dungeon along with possible neighbors
  * of the current location, the treasures, arrows, and monster present at the current location
- * and a check if the node has been visited.
+ * and a check if the node has been visited. A location of a dungeon grid is a view over the
+ * state kept in the grid storage and the grid topology, a location created on its own keeps its
+ * state in a storage of a single location and its neighbors in a map. The dungeon does not keep
+ * the views of its locations, a view is created when a location is asked for and its neighbors
+ * are views created from the same grid.
  */
 public class Cave implements Location {
 
-  private int id;
+  private final int id;
+  private final int row;
+  private final int column;
+  private final DungeonGrid grid;
+  private final int index;
+  private final GridTopology topology;
+  //the grid of the dungeon the neighbors are read from, null for a location created on its own
+  private final DungeonGrid dungeonGrid;
   private Map<Direction, Location> directionCaveMap;
-  private List<Treasure> treasureList;
-  private LocationType locationType;
-  private boolean isVisited;
-  private int arrow;
-  private Creature monster;
-  private boolean containsThief;
-  private boolean containsPit;
-  private int row;
-  private int column;
-  private boolean playerVisited;
 
   /**
    * Constructs a location node with its id.
@@ -47,17 +47,38 @@ public class Cave implements Location {
     if (col < 0) {
       throw new IllegalArgumentException("Column cannot be negative");
     }
-    directionCaveMap = new HashMap<Direction, Location>();
-    treasureList = new ArrayList<Treasure>();
     this.id = id;
-    this.isVisited = false;
-    this.monster = null;
-    this.arrow = 0;
-    this.containsThief = false;
-    this.containsPit = false;
     this.row = row;
     this.column = col;
-    this.playerVisited = false;
+    this.grid = new DungeonGrid(1);
+    this.index = 0;
+    this.topology = null;
+    this.dungeonGrid = null;
+    this.directionCaveMap = new EnumMap<Direction, Location>(Direction.class);
+  }
+
+  /**
+   * Constructs the location node with the given id of a dungeon grid, whose state and neighbors
+   * are kept in the grid.
+   *
+   * @param grid this parameter takes the storage of the dungeon grid
+   * @param id this parameter takes the id of the location
+   * @throws IllegalArgumentException when the grid is null or the id is not part of the grid
+   */
+  Cave(DungeonGrid grid, int id) throws IllegalArgumentException {
+    if (grid == null || grid.getTopology() == null) {
+      throw new IllegalArgumentException("Grid of the location cannot be null");
+    }
+    if (id < 0 || id >= grid.size()) {
+      throw new IllegalArgumentException("Id is not part of the grid");
+    }
+    this.id = id;
+    this.topology = grid.getTopology();
+    this.row = id / topology.getColumns();
+    this.column = id % topology.getColumns();
+    this.grid = grid;
+    this.index = id;
+    this.dungeonGrid = grid;
   }
 
   /**
@@ -70,17 +91,35 @@ public class Cave implements Location {
     if (location == null) {
       throw new IllegalArgumentException("The location entered is null");
     }
-    directionCaveMap = location.getNeighbors();
-    treasureList = location.getTreasureList();
+    if (location instanceof Cave && ((Cave) location).topology != null) {
+      topology = ((Cave) location).topology;
+      dungeonGrid = ((Cave) location).dungeonGrid;
+    } else {
+      topology = null;
+      dungeonGrid = null;
+      directionCaveMap = new EnumMap<Direction, Location>(Direction.class);
+      directionCaveMap.putAll(location.getNeighbors());
+    }
     this.id = location.getId();
-    this.locationType = location.getLocationType();
-    this.arrow = location.getArrow();
-    this.monster = location.getMonster();
-    this.containsThief = location.isContainsThief();
-    this.containsPit = location.isContainsPit();
     this.row = location.getRow();
     this.column = location.getColumn();
-    this.playerVisited = location.hasPlayerVisited();
+    this.grid = new DungeonGrid(1);
+    this.index = 0;
+    int treasureMask = 0;
+    for (Treasure treasure : location.getTreasureList()) {
+      treasureMask |= 1 << treasure.ordinal();
+    }
+    grid.setTreasureMask(index, treasureMask);
+    if (location.getLocationType() != null) {
+      grid.setLocationType(index, location.getLocationType());
+    }
+    grid.setArrow(index, location.getArrow());
+    if (location.hasMonster()) {
+      grid.setMonster(index, location.getMonsterType(), location.getMonsterHealth());
+    }
+    grid.setThief(index, location.isContainsThief());
+    grid.setPit(index, location.isContainsPit());
+    grid.setVisited(index, location.hasPlayerVisited());
   }
 
   /**
@@ -99,7 +138,16 @@ public class Cave implements Location {
     if (map == null) {
       throw new IllegalArgumentException("List of neighbors cannot be null");
     }
-    this.directionCaveMap.putAll(map);
+    if (topology == null) {
+      this.directionCaveMap.putAll(map);
+      return;
+    }
+    for (Map.Entry<Direction, Location> m : map.entrySet()) {
+      if (m.getKey() == null || m.getValue() == null) {
+        throw new IllegalArgumentException("Neighbor and its direction cannot be null");
+      }
+      topology.addPath(id, m.getKey(), m.getValue().getId());
+    }
   }
 
   /**
@@ -107,17 +155,70 @@ public class Cave implements Location {
    */
   @Override
   public Map<Direction, Location> getNeighbors() {
+    if (topology == null) {
+      return new EnumMap<Direction, Location>(this.directionCaveMap);
+    }
     Map<Direction, Location> directionLocationMapCopy =
-            new HashMap<Direction, Location>(this.directionCaveMap);
+            new EnumMap<Direction, Location>(Direction.class);
+    for (Direction direction : Direction.values()) {
+      Location neighbor = getNeighbor(direction);
+      if (neighbor != null) {
+        directionLocationMapCopy.put(direction, neighbor);
+      }
+    }
     return directionLocationMapCopy;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasNeighbor(Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Direction cannot be null");
+    }
+    if (topology == null) {
+      return directionCaveMap.containsKey(direction);
+    }
+    return topology.neighbor(id, direction) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Location getNeighbor(Direction direction) {
+    if (direction == null) {
+      throw new IllegalArgumentException("Direction cannot be null");
+    }
+    if (topology == null) {
+      return directionCaveMap.get(direction);
+    }
+    int neighbor = topology.neighbor(id, direction);
+    return neighbor < 0 ? null : new Cave(dungeonGrid, neighbor);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNeighborMask() {
+    if (topology != null) {
+      return topology.getMask(id);
+    }
+    int mask = 0;
+    for (Direction direction : directionCaveMap.keySet()) {
+      mask |= GridTopology.bit(direction);
+    }
+    return mask;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public void addTreasureList() throws IllegalArgumentException {
-    this.treasureList = new ArrayList<>(Arrays.asList(Treasure.values()));
+    grid.addAllTreasures(index);
   }
 
   /**
@@ -125,7 +226,14 @@ public class Cave implements Location {
    */
   @Override
   public List<Treasure> getTreasureList() {
-    return new ArrayList<Treasure>(this.treasureList);
+    List<Treasure> treasureList = new ArrayList<Treasure>();
+    int treasureMask = grid.getTreasureMask(index);
+    for (Treasure treasure : DungeonGrid.treasures()) {
+      if ((treasureMask & (1 << treasure.ordinal())) != 0) {
+        treasureList.add(treasure);
+      }
+    }
+    return treasureList;
   }
 
   /**
@@ -133,8 +241,7 @@ public class Cave implements Location {
    */
   @Override
   public LocationType getLocationType() {
-    LocationType locationTypeCopy = this.locationType;
-    return locationTypeCopy;
+    return grid.getLocationType(index);
   }
 
   /**
@@ -145,7 +252,7 @@ public class Cave implements Location {
     if (locationType == null) {
       throw new IllegalArgumentException("Location Type argument is invalid");
     }
-    this.locationType = locationType;
+    grid.setLocationType(index, locationType);
   }
 
   /**
@@ -153,7 +260,7 @@ public class Cave implements Location {
    */
   @Override
   public void removeTreasure() {
-    this.treasureList.removeAll(this.treasureList);
+    grid.setTreasureMask(index, 0);
   }
 
   /**
@@ -161,7 +268,7 @@ public class Cave implements Location {
    */
   @Override
   public int getArrow() {
-    return arrow;
+    return grid.getArrow(index);
   }
 
   /**
@@ -169,7 +276,7 @@ public class Cave implements Location {
    */
   @Override
   public void addArrow(int arrowCount) {
-    this.arrow = arrowCount;
+    grid.setArrow(index, arrowCount);
   }
 
   /**
@@ -177,7 +284,7 @@ public class Cave implements Location {
    */
   @Override
   public void removeArrow() {
-    this.arrow = 0;
+    grid.setArrow(index, 0);
   }
 
   /**
@@ -185,7 +292,7 @@ public class Cave implements Location {
    */
   @Override
   public void addMonster(CreatureType monsterType) {
-    this.monster = MonsterFactory.createMonster(monsterType);
+    grid.setMonster(index, monsterType);
   }
 
   /**
@@ -194,20 +301,39 @@ public class Cave implements Location {
   @Override
   public Creature getMonster() {
     if (this.hasMonster()) {
-      Creature monsterCopy = monster;
-      return monsterCopy;
+      return MonsterFactory.createMonster(grid.getMonsterType(index), grid, index);
     }
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CreatureType getMonsterType() {
+    return grid.getMonsterType(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMonsterHealth() {
+    return grid.getMonsterHealth(index);
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public void hitMonster(int val) {
-    monster.hit(val);
-    if (monster.getMonsterType() == CreatureType.MOVING_MONSTER && monster.getHealth() <= 0) {
-      this.monster = null;
+    if (!this.hasMonster()) {
+      return;
+    }
+    grid.hitMonster(index, val);
+    if (grid.getMonsterType(index) == CreatureType.MOVING_MONSTER
+            && grid.getMonsterHealth(index) <= 0) {
+      grid.removeMonster(index);
     }
   }
 
@@ -216,7 +342,7 @@ public class Cave implements Location {
    */
   @Override
   public boolean hasMonster() {
-    return this.monster != null;
+    return grid.getMonsterType(index) != null;
   }
 
   /**
@@ -224,7 +350,7 @@ public class Cave implements Location {
    */
   @Override
   public void removeMonster() {
-    this.monster = null;
+    grid.removeMonster(index);
   }
 
   /**
@@ -232,7 +358,7 @@ public class Cave implements Location {
    */
   @Override
   public boolean isContainsThief() {
-    return containsThief;
+    return grid.hasThief(index);
   }
 
   /**
@@ -240,7 +366,7 @@ public class Cave implements Location {
    */
   @Override
   public void setContainsThief(boolean containsThief) {
-    this.containsThief = containsThief;
+    grid.setThief(index, containsThief);
   }
 
   /**
@@ -248,7 +374,7 @@ public class Cave implements Location {
    */
   @Override
   public boolean isContainsPit() {
-    return containsPit;
+    return grid.hasPit(index);
   }
 
   /**
@@ -272,7 +398,7 @@ public class Cave implements Location {
    */
   @Override
   public void updatePlayerVisited(boolean value) {
-    this.playerVisited = value;
+    grid.setVisited(index, value);
   }
 
   /**
@@ -280,7 +406,7 @@ public class Cave implements Location {
    */
   @Override
   public boolean hasPlayerVisited() {
-    return this.playerVisited;
+    return grid.isVisited(index);
   }
 
   /**
@@ -288,7 +414,7 @@ public class Cave implements Location {
    */
   @Override
   public void setPit() {
-    this.containsPit = true;
+    grid.setPit(index, true);
   }
 
   /**
@@ -298,6 +424,8 @@ public class Cave implements Location {
   public String toString() {
     StringBuilder sb = new StringBuilder();
     sb.append("\n - Location Description - ");
+    List<Treasure> treasureList = getTreasureList();
+    int arrow = getArrow();
     if (treasureList.size() > 0) {
       sb.append("\n\nTreasures:");
       for (int i = 0; i < treasureList.size(); i++) {
@@ -0,0 +1,84 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the record of the locations whose state has changed. Every change adds
+ * the id of the location and moves the version of the dungeon forward by one, so a reader that
+ * remembers the version it has seen can ask for the locations changed after it. Only the last
+ * changes are kept, a reader that falls further behind is told to read the whole dungeon again.
+ */
+class ChangeLog {
+
+  private final int[] ids;
+  private long version;
+
+  /**
+   * Constructs an empty record of changes.
+   *
+   * @param capacity the number of changes kept
+   * @throws IllegalArgumentException when the capacity is not positive
+   */
+  ChangeLog(int capacity) throws IllegalArgumentException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity of the change log must be positive");
+    }
+    ids = new int[capacity];
+  }
+
+  /**
+   * This method records a change of the location.
+   *
+   * @param id the id of the location
+   */
+  void mark(int id) {
+    ids[(int) (version % ids.length)] = id;
+    version++;
+  }
+
+  /**
+   * This method records a change of every location. A reader that has seen an earlier version
+   * is told to read the whole dungeon again.
+   */
+  void markAll() {
+    version += ids.length + 1;
+  }
+
+  /**
+   * This method gives the version of the last change.
+   *
+   * @return the version, 0 when nothing has changed
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * This method gives the distinct locations changed after the given version.
+   *
+   * @param since the version already seen
+   * @return the ids of the changed locations in increasing order, null when the changes after
+   *         the version are no longer kept
+   * @throws IllegalArgumentException when the version is not between 0 and the current version
+   */
+  int[] changedSince(long since) throws IllegalArgumentException {
+    if (since < 0 || since > version) {
+      throw new IllegalArgumentException("Version " + since + " is not between 0 and " + version);
+    }
+    if (version - since > ids.length) {
+      return null;
+    }
+    int[] changed = new int[(int) (version - since)];
+    for (long v = since; v < version; v++) {
+      changed[(int) (v - since)] = ids[(int) (v % ids.length)];
+    }
+    Arrays.sort(changed);
+    int distinct = 0;
+    for (int i = 0; i < changed.length; i++) {
+      if (i == 0 || changed[i] != changed[i - 1]) {
+        changed[distinct++] = changed[i];
+      }
+    }
+    return Arrays.copyOf(changed, distinct);
+  }
+}
@@ -2,17 +2,33 @@ package dungeon;
 
 /**
  * Abstract class which represents both the Otyugh and the moving monster along with their
- * health and type.
+ * health and type. A creature living in a dungeon grid reads and updates its health in the grid
+ * storage of its location.
  */
 public abstract class CreatureAbs implements Creature {
 
   private int health;
+  private final DungeonGrid grid;
+  private final int id;
 
   /**
    * Constructs a creature with health 100.
    */
   public CreatureAbs() {
     this.health = 100;
+    this.grid = null;
+    this.id = -1;
+  }
+
+  /**
+   * Constructs a creature whose health is kept in the grid storage of its location.
+   *
+   * @param grid the storage of the dungeon locations
+   * @param id   the location of the creature in the grid
+   */
+  CreatureAbs(DungeonGrid grid, int id) {
+    this.grid = grid;
+    this.id = id;
   }
 
   /**
@@ -20,7 +36,7 @@ public abstract class CreatureAbs implements Creature {
    */
   @Override
   public int getHealth() {
-    return this.health;
+    return grid == null ? this.health : grid.getMonsterHealth(id);
   }
 
   /**
@@ -28,6 +44,10 @@ public abstract class CreatureAbs implements Creature {
    */
   @Override
   public void hit(int hitValue) {
-    this.health -= hitValue;
+    if (grid == null) {
+      this.health -= hitValue;
+    } else {
+      grid.hitMonster(id, hitValue);
+    }
   }
 }
@@ -0,0 +1,69 @@
+package dungeon;
+
+/**
+ * This class represents a disjoint set (union-find) over the location ids 0 to n - 1. The parents
+ * and ranks are kept in primitive arrays, the find is iterative with path halving and the union
+ * is done by rank, so every operation runs in near constant time without boxing or recursion.
+ */
+class DisjointSet {
+
+  private final int[] parent;
+  private final byte[] rank;
+
+  /**
+   * Constructs a disjoint set where every id from 0 to n - 1 is in its own set.
+   *
+   * @param n this parameter takes the number of ids in the set
+   * @throws IllegalArgumentException when the number of ids is negative
+   */
+  DisjointSet(int n) throws IllegalArgumentException {
+    if (n < 0) {
+      throw new IllegalArgumentException("Size of the disjoint set cannot be negative");
+    }
+    parent = new int[n];
+    rank = new byte[n];
+    for (int i = 0; i < n; i++) {
+      parent[i] = i;
+    }
+  }
+
+  /**
+   * This method finds the root of the set that contains the given id. Every node on the way
+   * is pointed to its grandparent, which keeps the trees flat for the later lookups.
+   *
+   * @param k this parameter takes the id whose root is needed
+   * @return the root of the set
+   */
+  int find(int k) {
+    while (parent[k] != k) {
+      parent[k] = parent[parent[k]];
+      k = parent[k];
+    }
+    return k;
+  }
+
+  /**
+   * This method merges the sets of the two given ids, the lower ranked root is attached below
+   * the higher ranked one.
+   *
+   * @param a this parameter takes the first id
+   * @param b this parameter takes the second id
+   * @return true if the two ids were in different sets and got merged, false otherwise
+   */
+  boolean union(int a, int b) {
+    int x = find(a);
+    int y = find(b);
+    if (x == y) {
+      return false;
+    }
+    if (rank[x] < rank[y]) {
+      parent[x] = y;
+    } else if (rank[x] > rank[y]) {
+      parent[y] = x;
+    } else {
+      parent[y] = x;
+      rank[x]++;
+    }
+    return true;
+  }
+}
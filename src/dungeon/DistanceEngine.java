@@ -0,0 +1,76 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents the breadth first search used to find the distance of every location
+ * from a source location. The neighbors of every location are copied once into a flat int array
+ * indexed by location id, so a search walks primitive arrays only and uses an explicit queue
+ * instead of recursion.
+ */
+class DistanceEngine {
+
+  static final int UNREACHABLE = Integer.MAX_VALUE;
+  private static final int DIRECTIONS = Direction.values().length;
+
+  private final int size;
+  private final int[] neighbors;
+  private final int[] queue;
+
+  /**
+   * Constructs the distance engine from the neighbors of the given locations.
+   *
+   * @param locationList the locations of the dungeon, the index of a location is its id
+   * @throws IllegalArgumentException when the list of locations is null
+   */
+  DistanceEngine(List<Location> locationList) throws IllegalArgumentException {
+    if (locationList == null) {
+      throw new IllegalArgumentException("List of locations cannot be null");
+    }
+    size = locationList.size();
+    neighbors = new int[size * DIRECTIONS];
+    Arrays.fill(neighbors, -1);
+    for (int i = 0; i < size; i++) {
+      for (Direction direction : Direction.values()) {
+        Location neighbor = locationList.get(i).getNeighbor(direction);
+        if (neighbor != null) {
+          neighbors[i * DIRECTIONS + direction.ordinal()] = neighbor.getId();
+        }
+      }
+    }
+    queue = new int[size];
+  }
+
+  /**
+   * This method gives the level of every location in the breadth first search tree rooted at
+   * the source, which is the length of the shortest path from the source to the location.
+   *
+   * @param src the id of the source location
+   * @return the level of every location indexed by id, UNREACHABLE when there is no path
+   * @throws IllegalArgumentException when the source is not a location of the dungeon
+   */
+  int[] distancesFrom(int src) throws IllegalArgumentException {
+    if (src < 0 || src >= size) {
+      throw new IllegalArgumentException("Location " + src + " is not part of the dungeon");
+    }
+    int[] level = new int[size];
+    Arrays.fill(level, UNREACHABLE);
+    level[src] = 0;
+    queue[0] = src;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int current = queue[head++];
+      int base = current * DIRECTIONS;
+      for (int d = 0; d < DIRECTIONS; d++) {
+        int next = neighbors[base + d];
+        if (next >= 0 && level[next] == UNREACHABLE) {
+          level[next] = level[current] + 1;
+          queue[tail++] = next;
+        }
+      }
+    }
+    return level;
+  }
+}
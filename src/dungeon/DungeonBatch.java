@@ -0,0 +1,182 @@
+package dungeon;
+
+import randomizer.SeededRandomizer;
+
+/**
+ * <P>
+ *   This class represents a batch of independent games stepped together, for agents learning to
+ *   play. Every step takes one action per game and writes what the player of every game senses
+ *   into arrays given by the caller, so stepping the batch creates no objects for the caller to
+ *   read. A game that is over is restarted in the same step, from the dungeon it was created
+ *   with, and the observation written for it is the first one of the new game.
+ * </P>
+ * <P>
+ *   The observation of a game takes {@link #OBSERVATION_SIZE} ints starting at
+ *   {@code index * OBSERVATION_SIZE}: the ordinal of the smell, the ordinal of the soil quality,
+ *   the mask of the directions with a path, the arrows and the health of the player. An action
+ *   is the ordinal of a direction to move in, {@link #SHOOT} plus the ordinal of a direction to
+ *   shoot one cave away in, or {@link #PICK_UP} to pick up the treasure and the arrows.
+ * </P>
+ */
+public final class DungeonBatch {
+
+  public static final int SMELL = 0;
+  public static final int SOIL = 1;
+  public static final int NEIGHBORS = 2;
+  public static final int ARROWS = 3;
+  public static final int HEALTH = 4;
+  public static final int OBSERVATION_SIZE = 5;
+
+  public static final int SHOOT = 4;
+  public static final int PICK_UP = 8;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final DungeonSettings settings;
+  private final long seed;
+  private final int maxSteps;
+  private final DungeonImpl[] dungeons;
+  private final int[] steps;
+  private long episodes;
+
+  /**
+   * Constructs a batch of games of dungeons created from the settings. The dungeons are created
+   * by {@link #reset}.
+   *
+   * @param settings the settings of the dungeons
+   * @param size     the number of games
+   * @param seed     the seed the dungeons are created from
+   * @param maxSteps the most steps of a game, a game still going is restarted after them
+   * @throws IllegalArgumentException when the settings are null or the size or the number of
+   *                                  steps is not positive
+   */
+  public DungeonBatch(DungeonSettings settings, int size, long seed, int maxSteps)
+          throws IllegalArgumentException {
+    if (settings == null) {
+      throw new IllegalArgumentException("Settings cannot be null");
+    }
+    if (size < 1 || maxSteps < 1) {
+      throw new IllegalArgumentException("Size and steps of the batch must be positive");
+    }
+    this.settings = settings;
+    this.seed = seed;
+    this.maxSteps = maxSteps;
+    this.dungeons = new DungeonImpl[size];
+    this.steps = new int[size];
+  }
+
+  /**
+   * This method gives the number of games of the batch.
+   *
+   * @return the number of games
+   */
+  public int size() {
+    return dungeons.length;
+  }
+
+  /**
+   * This method gives the dungeon of a game, to look at the game more closely.
+   *
+   * @param index the index of the game
+   * @return the dungeon, null before the first reset
+   */
+  public Dungeon getDungeon(int index) {
+    return dungeons[index];
+  }
+
+  /**
+   * This method creates a new dungeon for every game. Every reset creates other dungeons, the
+   * same ones for the same seed.
+   *
+   * @param observations receives the first observation of every game
+   * @throws IllegalArgumentException when the array is too small for the batch
+   */
+  public void reset(int[] observations) throws IllegalArgumentException {
+    checkLength(observations.length, OBSERVATION_SIZE, "Observations");
+    for (int i = 0; i < dungeons.length; i++) {
+      long dungeonSeed = GameSimulator.gameSeed(seed, episodes * dungeons.length + i);
+      dungeons[i] = (DungeonImpl) settings.createDungeon(new SeededRandomizer(dungeonSeed),
+              null);
+      steps[i] = 0;
+      observe(i, observations);
+    }
+    episodes++;
+  }
+
+  /**
+   * This method takes one action in every game.
+   *
+   * @param actions      the action of every game
+   * @param observations receives the observation of every game after the action
+   * @param rewards      receives 1 for a game won, -1 for a game lost and 0 otherwise
+   * @param done         receives true for a game that was over and has been restarted
+   * @throws IllegalArgumentException when an array is too small for the batch or an action is
+   *                                  not known
+   * @throws IllegalStateException    when the batch has not been reset
+   */
+  public void step(int[] actions, int[] observations, float[] rewards, boolean[] done)
+          throws IllegalArgumentException, IllegalStateException {
+    if (dungeons[0] == null) {
+      throw new IllegalStateException("Batch has to be reset before the first step");
+    }
+    checkLength(actions.length, 1, "Actions");
+    checkLength(observations.length, OBSERVATION_SIZE, "Observations");
+    checkLength(rewards.length, 1, "Rewards");
+    checkLength(done.length, 1, "Done");
+    //every action is checked before any game is stepped, so a rejected step changes no game
+    for (int i = 0; i < dungeons.length; i++) {
+      if (actions[i] < 0 || actions[i] > PICK_UP) {
+        throw new IllegalArgumentException("Action " + actions[i] + " of game " + i
+                + " is not known");
+      }
+    }
+    for (int i = 0; i < dungeons.length; i++) {
+      DungeonImpl dungeon = dungeons[i];
+      int action = actions[i];
+      if (action < SHOOT) {
+        dungeon.move(DIRECTIONS[action], null);
+      } else if (action < PICK_UP) {
+        dungeon.shoot(DIRECTIONS[action - SHOOT], 1, null);
+      } else {
+        dungeon.takeTreasure();
+        dungeon.takeArrow();
+      }
+      steps[i]++;
+      if (dungeon.getLivePlayer().getHealth() <= 0) {
+        rewards[i] = -1;
+        done[i] = true;
+      } else if (dungeon.hasReachedEnd()) {
+        rewards[i] = 1;
+        done[i] = true;
+      } else {
+        rewards[i] = 0;
+        done[i] = steps[i] >= maxSteps;
+      }
+      if (done[i]) {
+        //the created state of the dungeon is shared, so restarting copies nothing
+        dungeons[i] = new DungeonImpl(dungeon);
+        steps[i] = 0;
+      }
+      observe(i, observations);
+    }
+  }
+
+  private void checkLength(int length, int perGame, String name)
+          throws IllegalArgumentException {
+    if (length < dungeons.length * perGame) {
+      throw new IllegalArgumentException(name + " must hold " + dungeons.length * perGame
+              + " values");
+    }
+  }
+
+  private void observe(int index, int[] observations) {
+    DungeonImpl dungeon = dungeons[index];
+    Player player = dungeon.getLivePlayer();
+    int offset = index * OBSERVATION_SIZE;
+    observations[offset + SMELL] = dungeon.checkSmell().ordinal();
+    observations[offset + SOIL] = dungeon.checkSoilType().ordinal();
+    observations[offset + NEIGHBORS] = player.getCurrentLocation().getNeighborMask();
+    observations[offset + ARROWS] = player.getArrowCount();
+    observations[offset + HEALTH] = player.getHealth();
+  }
+}
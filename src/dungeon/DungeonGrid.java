@@ -0,0 +1,454 @@
+package dungeon;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * This class represents the state of every location of a dungeon, kept in primitive arrays
+ * indexed by the location id instead of in one object per location. The treasures of a location
+ * are a bit mask over the treasure types, and a monster is its type and health. The locations of
+ * the dungeon are views over this storage, see {@link Cave}.
+ *
+ * <p>The arrays are split into pages of a fixed number of locations. A copy of a grid shares the
+ * pages with the original, and a page is only copied when one of the two grids first changes a
+ * location on it. Keeping a copy of the starting state of a dungeon therefore costs nothing until
+ * the game changes the dungeon, and going back to the starting state just shares its pages again.
+ */
+class DungeonGrid {
+
+  private static final CreatureType[] CREATURE_TYPES = CreatureType.values();
+  private static final LocationType[] LOCATION_TYPES = LocationType.values();
+  private static final Treasure[] TREASURES = Treasure.values();
+  private static final int ALL_TREASURES = (1 << TREASURES.length) - 1;
+  private static final short FULL_HEALTH = 100;
+  private static final int PAGE_SHIFT = 10;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private final GridTopology topology;
+  private final int size;
+  private Page[] pages;
+  //pages that are also used by another grid and have to be copied before they are changed
+  private boolean[] shared;
+  private ChangeLog changeLog;
+
+  /**
+   * This class represents the state of the locations of one page.
+   */
+  private static final class Page {
+    private final int[] arrows;
+    private final byte[] treasures;
+    private final byte[] locationTypes;
+    private final byte[] monsterTypes;
+    private final short[] monsterHealth;
+    private final long[] pits;
+    private final long[] thieves;
+    private final long[] visited;
+
+    private Page(int size) {
+      arrows = new int[size];
+      treasures = new byte[size];
+      locationTypes = new byte[size];
+      monsterTypes = new byte[size];
+      monsterHealth = new short[size];
+      pits = new long[(size + 63) >>> 6];
+      thieves = new long[pits.length];
+      visited = new long[pits.length];
+    }
+
+    private Page(Page other) {
+      arrows = other.arrows.clone();
+      treasures = other.treasures.clone();
+      locationTypes = other.locationTypes.clone();
+      monsterTypes = other.monsterTypes.clone();
+      monsterHealth = other.monsterHealth.clone();
+      pits = other.pits.clone();
+      thieves = other.thieves.clone();
+      visited = other.visited.clone();
+    }
+  }
+
+  /**
+   * Constructs the storage for all the locations of a dungeon grid.
+   *
+   * @param topology the paths between the locations of the grid
+   * @throws IllegalArgumentException when the topology is null
+   */
+  DungeonGrid(GridTopology topology) throws IllegalArgumentException {
+    this(topology, checkTopology(topology).size());
+  }
+
+  /**
+   * Constructs the storage for locations which are not part of a grid, such as the copy of a
+   * single location.
+   *
+   * @param size the number of locations
+   * @throws IllegalArgumentException when the size is negative
+   */
+  DungeonGrid(int size) throws IllegalArgumentException {
+    this(null, size);
+  }
+
+  /**
+   * Constructs a copy of the state of every location in the given grid, sharing its topology.
+   * The copy shares the pages of the given grid until either of them changes a page.
+   *
+   * @param other the grid to copy
+   * @throws IllegalArgumentException when the grid to copy is null
+   */
+  DungeonGrid(DungeonGrid other) throws IllegalArgumentException {
+    if (other == null) {
+      throw new IllegalArgumentException("Grid to copy cannot be null");
+    }
+    this.topology = other.topology;
+    this.size = other.size;
+    sharePages(other);
+  }
+
+  private DungeonGrid(GridTopology topology, int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Size of the grid cannot be negative");
+    }
+    this.topology = topology;
+    this.size = size;
+    int pageCount = (size + PAGE_MASK) >>> PAGE_SHIFT;
+    this.pages = new Page[pageCount];
+    this.shared = new boolean[pageCount];
+    for (int i = 0; i < pageCount; i++) {
+      pages[i] = new Page(Math.min(PAGE_SIZE, size - (i << PAGE_SHIFT)));
+    }
+  }
+
+  //takes over the pages of the other grid, both grids copy a page before changing it
+  private void sharePages(DungeonGrid other) {
+    this.pages = other.pages.clone();
+    this.shared = new boolean[pages.length];
+    Arrays.fill(shared, true);
+    Arrays.fill(other.shared, true);
+  }
+
+  /**
+   * This method puts every location back to the state of the given grid, which is usually a
+   * copy made earlier. Only the pages are shared again, nothing is copied until a location
+   * changes.
+   *
+   * @param other the grid whose state is restored
+   * @throws IllegalArgumentException when the grid is null or of a different size
+   */
+  void restore(DungeonGrid other) throws IllegalArgumentException {
+    if (other == null || other.size != size) {
+      throw new IllegalArgumentException("Grid to restore must have the same size");
+    }
+    sharePages(other);
+    if (changeLog != null) {
+      changeLog.markAll();
+    }
+  }
+
+  /**
+   * This method gives the number of bytes {@link #write} puts into a buffer.
+   *
+   * @return the number of bytes of the state of every location
+   */
+  long byteSize() {
+    long bitWords = 0;
+    for (Page page : pages) {
+      bitWords += page.pits.length;
+    }
+    //location type, treasures and monster type bytes, health shorts, arrow ints and bit words
+    return 3L * size + 2L * size + 4L * size + 3 * 8 * bitWords;
+  }
+
+  /**
+   * This method writes the state of every location into the buffer, one column after the other
+   * so that each column can be read back with a single bulk copy per page.
+   *
+   * @param out the buffer to write to, positioned where the state starts
+   */
+  void write(ByteBuffer out) {
+    for (Page page : pages) {
+      out.put(page.locationTypes);
+    }
+    for (Page page : pages) {
+      out.put(page.treasures);
+    }
+    for (Page page : pages) {
+      out.put(page.monsterTypes);
+    }
+    for (Page page : pages) {
+      out.asShortBuffer().put(page.monsterHealth);
+      out.position(out.position() + 2 * page.monsterHealth.length);
+    }
+    for (Page page : pages) {
+      out.asIntBuffer().put(page.arrows);
+      out.position(out.position() + 4 * page.arrows.length);
+    }
+    for (Page page : pages) {
+      out.asLongBuffer().put(page.pits).put(page.thieves).put(page.visited);
+      out.position(out.position() + 3 * 8 * page.pits.length);
+    }
+  }
+
+  /**
+   * This method reads the state of every location written by {@link #write}, replacing the
+   * state of this grid.
+   *
+   * @param in the buffer to read from, positioned where the state starts
+   * @throws IllegalArgumentException when a location type or monster type is not known
+   */
+  void read(ByteBuffer in) throws IllegalArgumentException {
+    Arrays.fill(shared, false);
+    for (int i = 0; i < pages.length; i++) {
+      //pages shared with another grid are replaced rather than written over
+      pages[i] = new Page(pages[i].arrows.length);
+    }
+    for (Page page : pages) {
+      in.get(page.locationTypes);
+      checkOrdinals(page.locationTypes, LOCATION_TYPES.length, "location type");
+    }
+    for (Page page : pages) {
+      in.get(page.treasures);
+    }
+    for (Page page : pages) {
+      in.get(page.monsterTypes);
+      checkOrdinals(page.monsterTypes, CREATURE_TYPES.length, "monster type");
+    }
+    for (Page page : pages) {
+      in.asShortBuffer().get(page.monsterHealth);
+      in.position(in.position() + 2 * page.monsterHealth.length);
+    }
+    for (Page page : pages) {
+      in.asIntBuffer().get(page.arrows);
+      in.position(in.position() + 4 * page.arrows.length);
+    }
+    for (Page page : pages) {
+      in.asLongBuffer().get(page.pits).get(page.thieves).get(page.visited);
+      in.position(in.position() + 3 * 8 * page.pits.length);
+    }
+    if (changeLog != null) {
+      changeLog.markAll();
+    }
+  }
+
+  //types are stored as ordinal plus one, 0 for none
+  private static void checkOrdinals(byte[] values, int count, String name) {
+    for (byte value : values) {
+      if (value < 0 || value > count) {
+        throw new IllegalArgumentException("Unknown " + name + " " + value);
+      }
+    }
+  }
+
+  private static GridTopology checkTopology(GridTopology topology) {
+    if (topology == null) {
+      throw new IllegalArgumentException("Topology of the grid cannot be null");
+    }
+    return topology;
+  }
+
+  /**
+   * This method gives the paths between the locations.
+   *
+   * @return the topology, null when the locations are not part of a grid
+   */
+  GridTopology getTopology() {
+    return topology;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * This method gives the locations of the grid. The list keeps no location objects, every
+   * location read from it is a new view over this grid, so a large dungeon costs only its
+   * arrays.
+   *
+   * @return the locations indexed by id
+   */
+  List<Location> locations() {
+    return new Locations(this);
+  }
+
+  //the views of the locations, created when they are read
+  private static final class Locations extends AbstractList<Location> implements RandomAccess {
+    private final DungeonGrid grid;
+
+    private Locations(DungeonGrid grid) {
+      this.grid = grid;
+    }
+
+    @Override
+    public Location get(int id) {
+      if (id < 0 || id >= grid.size) {
+        throw new IndexOutOfBoundsException("Location " + id + " is not part of the grid");
+      }
+      return new Cave(grid, id);
+    }
+
+    @Override
+    public int size() {
+      return grid.size;
+    }
+  }
+
+  /**
+   * This method sets the record to which every change of a location is reported.
+   *
+   * @param changeLog the record of changes, null to stop reporting changes
+   */
+  void setChangeLog(ChangeLog changeLog) {
+    this.changeLog = changeLog;
+  }
+
+  private void changed(int id) {
+    if (changeLog != null) {
+      changeLog.mark(id);
+    }
+  }
+
+  private Page read(int id) {
+    return pages[id >>> PAGE_SHIFT];
+  }
+
+  //gives the page of the location for a change, copying the page first when it is shared
+  private Page write(int id) {
+    int page = id >>> PAGE_SHIFT;
+    if (shared[page]) {
+      pages[page] = new Page(pages[page]);
+      shared[page] = false;
+    }
+    changed(id);
+    return pages[page];
+  }
+
+  private static boolean getBit(long[] bits, int id) {
+    int offset = id & PAGE_MASK;
+    return (bits[offset >>> 6] & (1L << offset)) != 0;
+  }
+
+  private static void setBit(long[] bits, int id, boolean value) {
+    int offset = id & PAGE_MASK;
+    if (value) {
+      bits[offset >>> 6] |= 1L << offset;
+    } else {
+      bits[offset >>> 6] &= ~(1L << offset);
+    }
+  }
+
+  int getArrow(int id) {
+    return read(id).arrows[id & PAGE_MASK];
+  }
+
+  void setArrow(int id, int count) {
+    write(id).arrows[id & PAGE_MASK] = count;
+  }
+
+  /**
+   * This method gives the treasures at the location as a bit mask where the bit
+   * {@code 1 << treasure.ordinal()} is set for every treasure present.
+   *
+   * @param id the id of the location
+   * @return the bit mask of the treasures
+   */
+  int getTreasureMask(int id) {
+    return read(id).treasures[id & PAGE_MASK];
+  }
+
+  void setTreasureMask(int id, int mask) {
+    write(id).treasures[id & PAGE_MASK] = (byte) (mask & ALL_TREASURES);
+  }
+
+  void addAllTreasures(int id) {
+    write(id).treasures[id & PAGE_MASK] = (byte) ALL_TREASURES;
+  }
+
+  /**
+   * This method gives the treasure types present in a treasure bit mask.
+   *
+   * @return the treasure types in the order of their declaration
+   */
+  static Treasure[] treasures() {
+    return TREASURES;
+  }
+
+  LocationType getLocationType(int id) {
+    byte type = read(id).locationTypes[id & PAGE_MASK];
+    return type == 0 ? null : LOCATION_TYPES[type - 1];
+  }
+
+  void setLocationType(int id, LocationType locationType) {
+    write(id).locationTypes[id & PAGE_MASK] = (byte) (locationType.ordinal() + 1);
+  }
+
+  /**
+   * This method gives the type of the monster at the location.
+   *
+   * @param id the id of the location
+   * @return the monster type, null when there is no monster
+   */
+  CreatureType getMonsterType(int id) {
+    byte type = read(id).monsterTypes[id & PAGE_MASK];
+    return type == 0 ? null : CREATURE_TYPES[type - 1];
+  }
+
+  int getMonsterHealth(int id) {
+    return read(id).monsterHealth[id & PAGE_MASK];
+  }
+
+  /**
+   * This method places a monster with full health at the location, replacing any monster that
+   * was there.
+   *
+   * @param id          the id of the location
+   * @param monsterType the type of the monster
+   */
+  void setMonster(int id, CreatureType monsterType) {
+    setMonster(id, monsterType, FULL_HEALTH);
+  }
+
+  void setMonster(int id, CreatureType monsterType, int health) {
+    Page page = write(id);
+    page.monsterTypes[id & PAGE_MASK] = (byte) (monsterType.ordinal() + 1);
+    page.monsterHealth[id & PAGE_MASK] = (short) health;
+  }
+
+  void hitMonster(int id, int hitValue) {
+    Page page = write(id);
+    page.monsterHealth[id & PAGE_MASK] = (short) Math.max(Short.MIN_VALUE,
+            page.monsterHealth[id & PAGE_MASK] - hitValue);
+  }
+
+  void removeMonster(int id) {
+    Page page = write(id);
+    page.monsterTypes[id & PAGE_MASK] = 0;
+    page.monsterHealth[id & PAGE_MASK] = 0;
+  }
+
+  boolean hasPit(int id) {
+    return getBit(read(id).pits, id);
+  }
+
+  void setPit(int id, boolean value) {
+    setBit(write(id).pits, id, value);
+  }
+
+  boolean hasThief(int id) {
+    return getBit(read(id).thieves, id);
+  }
+
+  void setThief(int id, boolean value) {
+    setBit(write(id).thieves, id, value);
+  }
+
+  boolean isVisited(int id) {
+    return getBit(read(id).visited, id);
+  }
+
+  void setVisited(int id, boolean value) {
+    setBit(write(id).visited, id, value);
+  }
+}
@@ -1,19 +1,15 @@
 package dungeon;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 
 import randomizer.Randomizer;
-
-import static java.util.stream.Collectors.toMap;
+import randomizer.SeededRandomizer;
 
 /**
  * The class represents a dungeon in which the player will be moving from one direction
@@ -23,15 +19,24 @@ import static java.util.stream.Collectors.toMap;
  */
 public class DungeonImpl implements Dungeon {
 
+  private static final int MIN_START_END_DISTANCE = 5;
+  //changes kept for the view, a view further behind draws the whole dungeon again
+  private static final int CHANGE_LOG_CAPACITY = 4096;
+
   private int rows;
   private int columns;
   private Randomizer randomizer;
-  private List<Edge> edges;
-  private List<Edge> mazeList;
+  private EdgeBuffer edges;
+  private EdgeBuffer mazeList;
+  private int[] spanningTree;
   private int interconnectivity;
+  private GridTopology topology;
+  private DungeonGrid grid;
+  private ChangeLog changeLog;
   private List<Location> locationList;
   private List<Location> finalLocationList;
-  private List<Location> caveList;
+  //ids of the caves in ascending order
+  private int[] caveIds;
   private Location startCave;
   private Location endCave;
   private Player player;
@@ -42,8 +47,18 @@ public class DungeonImpl implements Dungeon {
   private int pitCount;
   private int movingMonsterCount;
   private int countOfMV;
-  private List<Location> monsterList;
   private FactoryPattern factoryPattern;
+  private OccupancyIndex freeLocations;
+  private InfluenceMap influenceMap;
+  private int[] thiefLocations;
+  private int[] movingMonsterLocations;
+  //state right after the creation, shared by every restart of the dungeon and never changed
+  private DungeonGrid initialGrid;
+  private InfluenceMap initialInfluence;
+  private OccupancyIndex initialFree;
+  private int[] initialThieves;
+  private int[] initialMovingMonsters;
+  private GameJournal journal;
 
   /**
    * Constructs a new dungeon where the player can move.
@@ -62,6 +77,30 @@ public class DungeonImpl implements Dungeon {
                      int thiefCount, int pitCount, int movingMonsterCount,
                      Randomizer randomizer)
           throws IllegalArgumentException {
+    this(rows, columns, interconnectivity, treasurePercent, wrapping, monsterCount, thiefCount,
+            pitCount, movingMonsterCount, randomizer, null);
+  }
+
+  /**
+   * Constructs a new dungeon where the player can move, telling the monitor when each phase of
+   * the creation starts and stopping between the phases when the monitor cancels the creation.
+   *
+   * @param rows              this parameter takes the no of rows the dungeon can have
+   * @param columns           this parameter takes the no of columns the dungeon can have
+   * @param interconnectivity this parameter takes the interconnectivity value of the dungeon
+   * @param treasurePercent   this parameter takes the treasure percent of the dungeon
+   * @param wrapping          this parameter takes the wrapping status of the dungeon
+   * @param monsterCount      this parameter takes the number of monsters in the dungeon
+   * @param randomizer        this parameter takes the randomizer
+   * @param monitor           this parameter takes the monitor of the creation, may be null
+   * @throws IllegalArgumentException when the values entered are invalid or null
+   * @throws CancellationException    when the monitor cancels the creation
+   */
+  public DungeonImpl(int rows, int columns, int interconnectivity, int treasurePercent,
+                     boolean wrapping, int monsterCount,
+                     int thiefCount, int pitCount, int movingMonsterCount,
+                     Randomizer randomizer, GenerationMonitor monitor)
+          throws IllegalArgumentException, CancellationException {
 
     validatorHelper(rows, 1, "Rows");
     validatorHelper(columns, 1, "Columns");
@@ -87,16 +126,22 @@ public class DungeonImpl implements Dungeon {
     this.pitCount = pitCount;
     this.movingMonsterCount = movingMonsterCount;
     this.countOfMV = movingMonsterCount;
-    this.monsterList = new ArrayList<>();
-    this.caveList = new ArrayList<>();
-    this.edges = new ArrayList<>();
+    this.changeLog = new ChangeLog(CHANGE_LOG_CAPACITY);
     KruskalAlgo maze = new KruskalAlgo();
+    startPhase(monitor, GenerationPhase.EDGES);
     createMaze();
-    mazeList = maze.kruskalAlgo(edges, rows * columns);
+    startPhase(monitor, GenerationPhase.SPANNING_TREE);
+    spanningTree = maze.kruskalAlgo(edges, rows * columns);
+    startPhase(monitor, GenerationPhase.INTERCONNECTIVITY);
     setBFSAndLocations();
+    //the edges are only needed to build the paths
+    edges = null;
+    mazeList = null;
+    spanningTree = null;
+    startPhase(monitor, GenerationPhase.PLACEMENT);
     player = new PlayerImpl("Shadow", startCave);
     addDungeonCreatures();
-    caveListCopy();
+    snapshotInitialState();
     locationList.get(startCave.getId()).updatePlayerVisited(true);
   }
 
@@ -113,21 +158,114 @@ public class DungeonImpl implements Dungeon {
     this.percent = dungeon.getTreasurePercent();
     this.wrapping = dungeon.getWrapping();
     this.monsterCount = dungeon.getMonsterCount();
-    this.finalLocationList = dungeon.getFinalLocationList();
-    this.locationList = dungeon.getLocationList();
     this.randomizer = dungeon.getRandomizer();
-    this.monsterList = new ArrayList<>();
+    this.factoryPattern = new FactoryPattern(randomizer);
     this.thiefCount = dungeon.getThiefCount();
     this.movingMonsterCount = dungeon.getMovingMonsterCount();
     this.pitCount = dungeon.getPitCount();
-    reuseDungeonWithOldProperties(dungeon);
-    for (Location location : getLocationList()) {
-      location.updatePlayerVisited(false);
+    this.changeLog = new ChangeLog(CHANGE_LOG_CAPACITY);
+    if (dungeon instanceof DungeonImpl && ((DungeonImpl) dungeon).initialGrid != null) {
+      restoreInitialState((DungeonImpl) dungeon);
+    } else {
+      this.locationList = dungeon.getLocationList();
+      this.finalLocationList = dungeon.getFinalLocationList();
+      reuseDungeonWithOldProperties(dungeon);
+      for (Location location : getLocationList()) {
+        location.updatePlayerVisited(false);
+      }
+      influenceMap = new InfluenceMap(locationList);
+      createOccupancyIndex();
     }
     this.player = new PlayerImpl("Shadow", startCave);
     locationList.get(startCave.getId()).updatePlayerVisited(true);
   }
 
+  /**
+   * Constructs a dungeon from a snapshot read from a file. The state of the locations when the
+   * dungeon was created is kept for restarting, and the game goes on from the saved state.
+   *
+   * @param snapshot the snapshot of the dungeon
+   */
+  DungeonImpl(DungeonSnapshot snapshot) {
+    this.rows = snapshot.getRows();
+    this.columns = snapshot.getColumns();
+    this.interconnectivity = snapshot.getInterconnectivity();
+    this.percent = snapshot.getTreasurePercent();
+    this.wrapping = snapshot.isWrapping();
+    this.monsterCount = snapshot.getMonsterCount();
+    this.thiefCount = snapshot.getThiefCount();
+    this.pitCount = snapshot.getPitCount();
+    this.movingMonsterCount = snapshot.getMovingMonsterCount();
+    this.countOfMV = snapshot.getMovingMonstersLeft();
+    this.randomizer = snapshot.isSeeded() ? new SeededRandomizer(snapshot.getSeed())
+            : new SeededRandomizer();
+    this.factoryPattern = new FactoryPattern(randomizer);
+    this.changeLog = new ChangeLog(CHANGE_LOG_CAPACITY);
+    this.topology = snapshot.getTopology();
+    //the indexes are built for the created state first, then again for the saved state
+    this.grid = snapshot.getInitialGrid();
+    locationList = grid.locations();
+    startCave = locationList.get(snapshot.getStartId());
+    endCave = locationList.get(snapshot.getEndId());
+    influenceMap = new InfluenceMap(locationList);
+    createOccupancyIndex();
+    snapshotInitialState();
+    grid.restore(snapshot.getGrid());
+    influenceMap = new InfluenceMap(locationList);
+    createOccupancyIndex();
+    grid.setChangeLog(changeLog);
+    player = new PlayerImpl(locationList.get(snapshot.getPlayerLocation()),
+            snapshot.getPlayerTreasures(), snapshot.getPlayerArrows(), snapshot.getPlayerHealth());
+  }
+
+  /**
+   * This method starts or stops recording the actions of the player and the numbers drawn for
+   * them in a journal.
+   *
+   * @param journal the journal, null to stop recording
+   */
+  void setJournal(GameJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * This method gives the snapshot of the dungeon to save it to a file.
+   *
+   * @return the snapshot, sharing the state of the locations with the dungeon
+   * @throws IllegalArgumentException when the created state of the dungeon is not known
+   */
+  DungeonSnapshot snapshot() throws IllegalArgumentException {
+    if (initialGrid == null) {
+      throw new IllegalArgumentException("Dungeon restarted from another model cannot be saved");
+    }
+    boolean seeded = randomizer instanceof SeededRandomizer;
+    long seed = seeded ? ((SeededRandomizer) randomizer).getSeed() : 0;
+    return new DungeonSnapshot(rows, columns, interconnectivity, percent, wrapping, monsterCount,
+            thiefCount, pitCount, movingMonsterCount, countOfMV, seeded, seed, startCave.getId(),
+            endCave.getId(), player, initialGrid, grid);
+  }
+
+  //the state of the locations is a copy of the one taken when the old dungeon was created, its
+  //pages are shared and only copied when a location changes, and the old dungeon is left as it is
+  private void restoreInitialState(DungeonImpl dungeon) {
+    this.grid = new DungeonGrid(dungeon.initialGrid);
+    this.topology = grid.getTopology();
+    this.locationList = grid.locations();
+    this.initialGrid = dungeon.initialGrid;
+    this.initialInfluence = dungeon.initialInfluence;
+    this.initialFree = dungeon.initialFree;
+    this.initialThieves = dungeon.initialThieves;
+    this.initialMovingMonsters = dungeon.initialMovingMonsters;
+    grid.setChangeLog(changeLog);
+    influenceMap = new InfluenceMap(initialInfluence);
+    freeLocations = new OccupancyIndex(initialFree);
+    thiefLocations = initialThieves.clone();
+    movingMonsterLocations = initialMovingMonsters.clone();
+    startCave = locationList.get(dungeon.startCave.getId());
+    endCave = locationList.get(dungeon.endCave.getId());
+    countOfMV = movingMonsterCount;
+  }
+
   private void validatorHelper(int variable, int minVal, String text)
           throws IllegalArgumentException {
     if (variable < minVal) {
@@ -135,6 +273,17 @@ public class DungeonImpl implements Dungeon {
     }
   }
 
+  private void startPhase(GenerationMonitor monitor, GenerationPhase phase)
+          throws CancellationException {
+    if (monitor == null) {
+      return;
+    }
+    if (monitor.isCancelled()) {
+      throw new CancellationException("Dungeon creation cancelled before " + phase);
+    }
+    monitor.phaseStarted(phase);
+  }
+
   private int calculateTreasurePercent(int treasurePercent) {
     return (treasurePercent + randomizer.getNextInt(0, (100 - treasurePercent)));
   }
@@ -153,6 +302,8 @@ public class DungeonImpl implements Dungeon {
     addArrowsToCave();
     addMonster();
     addPit();
+    influenceMap = new InfluenceMap(locationList);
+    createOccupancyIndex();
     addMovingMonster();
     addThiefToDungeon();
   }
@@ -174,13 +325,12 @@ public class DungeonImpl implements Dungeon {
       }
 
       //if monster present
-      if (location.hasMonster() && location.getMonster().getMonsterType() == CreatureType.OTUYGH) {
+      if (location.getMonsterType() == CreatureType.OTUYGH) {
         this.locationList.get(i).addMonster(CreatureType.OTUYGH);
       }
 
       //if moving monster present
-      if (location.hasMonster() && location.getMonster().getMonsterType()
-              == CreatureType.MOVING_MONSTER) {
+      if (location.getMonsterType() == CreatureType.MOVING_MONSTER) {
         this.locationList.get(i).addMonster(CreatureType.MOVING_MONSTER);
       }
 
@@ -201,118 +351,68 @@ public class DungeonImpl implements Dungeon {
   }
 
   private void createMaze() {
+    int n = rows * columns;
+    edges = new EdgeBuffer(2 * n + (wrapping ? rows + columns : 0));
 
-    Map<Integer, Integer> map = new HashMap<>();
-    for (int i = 0; i < rows * columns; i++) {
-      map.put(i, i);
-    }
-
-    //first row map
-    Map<Integer, Integer> firstRowMap = new HashMap<>();
-    for (int i = 0; i < columns; i++) {
-      firstRowMap.put(i, i);
-    }
-
-    //first column map
-    Map<Integer, Integer> firstColumnMap = new HashMap<>();
-    for (int i = 0; i < rows; i++) {
-      firstColumnMap.put(i, i);
-    }
-
-    //create edges without wrapping
-    for (Map.Entry<Integer, Integer> m : map.entrySet()) {
-      if (((m.getKey() + 1) % columns) != 0) {
-        edges.add(factoryPattern.createEdge(map.get(m.getKey()), map.get(m.getKey() + 1)));
+    for (int i = 0; i < n; i++) {
+      //create edges without wrapping
+      if (((i + 1) % columns) != 0) {
+        factoryPattern.createEdge(edges, i, i + 1);
       }
-      if (m.getKey() < map.size() - columns) {
-        edges.add(factoryPattern.createEdge(map.get(m.getKey()), map.get(m.getKey() + columns)));
+      if (i < n - columns) {
+        factoryPattern.createEdge(edges, i, i + columns);
       }
 
-      //if wrapping
+      //if wrapping, join the first and the last row and the first and the last column
       if (wrapping) {
-        if (firstRowMap.containsKey(m.getKey())) {
-          edges.add(factoryPattern.createEdge(map.get(m.getKey()),
-                  map.get(m.getKey() + map.size() - columns)));
+        if (i < columns && rows > 2) {
+          factoryPattern.createEdge(edges, i, i + n - columns);
         }
-
-        if (firstColumnMap.containsKey(m.getKey())) {
-          edges.add(factoryPattern.createEdge(map.get(m.getKey()),
-                  map.get(m.getKey() + columns - 1)));
+        if (i % columns == 0 && columns > 2) {
+          factoryPattern.createEdge(edges, i, i + columns - 1);
         }
       }
     }
   }
 
   private void createMazeList() {
-    List<Edge> extraList = new ArrayList<>(edges);
-    extraList.removeAll(mazeList);
-    extraList = randomizer.randomizedValueList(extraList);
+    mazeList = new EdgeBuffer(spanningTree.length + interconnectivity);
+    int[] extraList = new int[edges.size() - spanningTree.length];
+    int next = 0;
+    int extra = 0;
+    for (int i = 0; i < edges.size(); i++) {
+      if (next < spanningTree.length && spanningTree[next] == i) {
+        mazeList.add(edges, i);
+        next++;
+      } else {
+        extraList[extra++] = i;
+      }
+    }
 
-    validatorHelper(extraList.size(), interconnectivity, "Interconnectivity");
+    validatorHelper(extraList.length, interconnectivity, "Interconnectivity");
 
-    for (int i = 0; i < interconnectivity; i++) {
-      mazeList.add(extraList.get(i));
+    for (int i : randomizer.sampleK(extraList.length, interconnectivity)) {
+      mazeList.add(edges, extraList[i]);
     }
   }
 
   private void createCaves() {
-    locationList = new ArrayList<>();
-    for (int i = 0; i < rows * columns; i++) {
-      locationList.add(factoryPattern.createLocation(i, i / columns, i % columns));
-    }
+    topology = new GridTopology(rows, columns, wrapping);
+    grid = new DungeonGrid(topology);
+    grid.setChangeLog(changeLog);
+    locationList = grid.locations();
   }
 
   private void addNeighbors() {
-
-    //creating map of all edges with their differences
-    Map<Integer, Map<Integer, Integer>> sdMap = new HashMap<>();
-    for (Edge edge : mazeList) {
-      if (sdMap.containsKey(edge.getSrc())) {
-        sdMap.get(edge.getSrc()).put(edge.getDest(), edge.getDest() - edge.getSrc());
-      } else {
-        Map<Integer, Integer> innerMap = new HashMap<>();
-        innerMap.put(edge.getDest(), edge.getDest() - edge.getSrc());
-        sdMap.put(edge.getSrc(), innerMap);
-      }
-    }
-    //creating map of location id, location
-    Map<Integer, Location> locationMap = new HashMap<>();
-    for (Location l : locationList) {
-      locationMap.put(l.getId(), l);
-    }
-
-    for (Map.Entry<Integer, Location> l : locationMap.entrySet()) {
-      if (sdMap.containsKey(l.getKey())) {
-        for (Map.Entry<Integer, Integer> m : sdMap.get(l.getKey()).entrySet()) {
-          if (m.getValue() == 1) {
-            addToMap(l.getKey(), Direction.EAST, locationMap.get(m.getKey()));
-            addToMap(m.getKey(), Direction.WEST, locationMap.get(l.getKey()));
-          } else if (m.getValue() == (columns - 1) ||
-                  (m.getValue() == 1 - columns)) {
-            addToMap(l.getKey(), Direction.WEST, locationMap.get(m.getKey()));
-            addToMap(m.getKey(), Direction.EAST, locationMap.get(l.getKey()));
-          } else if (m.getValue() == columns) {
-            addToMap(l.getKey(), Direction.SOUTH, locationMap.get(m.getKey()));
-            addToMap(m.getKey(), Direction.NORTH, locationMap.get(l.getKey()));
-          } else if (m.getValue() > columns) {
-            addToMap(l.getKey(), Direction.NORTH, locationMap.get(m.getKey()));
-            addToMap(m.getKey(), Direction.SOUTH, locationMap.get(l.getKey()));
-          }
-        }
-      }
+    for (int i = 0; i < mazeList.size(); i++) {
+      topology.connect(mazeList.getSrc(i), mazeList.getDest(i));
     }
   }
 
-  private void addToMap(int index, Direction key, Location val) {
-    Map<Direction, Location> newMap = new HashMap<>(locationList.get(index).getNeighbors());
-    newMap.put(key, val);
-    locationList.get(index).addNeighbors(newMap);
-  }
-
   //setLocationType
   private void setLocationType() {
     for (int i = 0; i < locationList.size(); i++) {
-      if (locationList.get(i).getNeighbors().size() == 2) {
+      if (topology.degree(i) == 2) {
         locationList.get(i).setLocationType(LocationType.TUNNEL);
       } else {
         locationList.get(i).setLocationType(LocationType.CAVE);
@@ -321,24 +421,28 @@ public class DungeonImpl implements Dungeon {
   }
 
   private void createOnlyCaveList() {
-    for (int i = 0; i < locationList.size(); i++) {
-      if (locationList.get(i).getLocationType().equals(LocationType.CAVE)) {
-        caveList.add(locationList.get(i));
+    int count = 0;
+    for (int i = 0; i < grid.size(); i++) {
+      if (grid.getLocationType(i) == LocationType.CAVE) {
+        count++;
+      }
+    }
+    caveIds = new int[count];
+    count = 0;
+    for (int i = 0; i < grid.size(); i++) {
+      if (grid.getLocationType(i) == LocationType.CAVE) {
+        caveIds[count++] = i;
       }
     }
   }
 
   //give treasure to cave
   private void addTreasureToCave() {
-    List<Location> exclusiveCaveList = new ArrayList<>(caveList);
-
-    exclusiveCaveList = randomizer.randomizedValueList(exclusiveCaveList);
-
     int noOfCavesWithTreasure = Math.toIntExact(
-            Math.round((percent * exclusiveCaveList.size()) / 100));
+            Math.round((percent * caveIds.length) / 100));
 
-    for (int i = 0; i < noOfCavesWithTreasure; i++) {
-      exclusiveCaveList.get(i).addTreasureList();
+    for (int i : randomizer.sampleK(caveIds.length, noOfCavesWithTreasure)) {
+      grid.addAllTreasures(caveIds[i]);
     }
   }
 
@@ -346,11 +450,8 @@ public class DungeonImpl implements Dungeon {
   private void addArrowsToCave() {
     int noOfCavesWithArrows = Math.toIntExact(Math.round((percent * locationList.size()) / 100));
 
-    List<Location> locationListCopy = new ArrayList<>(locationList);
-    locationListCopy = randomizer.randomizedValueList(locationListCopy);
-
-    for (int i = 0; i < noOfCavesWithArrows; i++) {
-      locationListCopy.get(i).addArrow(randomizer
+    for (int i : randomizer.sampleK(locationList.size(), noOfCavesWithArrows)) {
+      locationList.get(i).addArrow(randomizer
               .getNextInt(1, 4));
     }
   }
@@ -369,9 +470,14 @@ public class DungeonImpl implements Dungeon {
     return direction;
   }
 
-  //check if neighbor exist
-  private boolean checkNeighborExist(Location l, Direction d) {
-    return l.getNeighbors().containsKey(d);
+  //the paths are read through the locations, so a dungeon made from another model works too
+  private int neighborId(int id, Direction direction) {
+    Location neighbor = locationList.get(id).getNeighbor(direction);
+    return neighbor == null ? -1 : neighbor.getId();
+  }
+
+  private boolean isCave(int id) {
+    return locationList.get(id).getLocationType() == LocationType.CAVE;
   }
 
   //shoot arrow
@@ -387,155 +493,225 @@ public class DungeonImpl implements Dungeon {
     if (dist < 1) {
       throw new IllegalArgumentException("Distance should be at least 1");
     }
-
     StringBuilder sb = new StringBuilder();
+    shoot(convert(dir), dist, sb);
+    return sb.toString();
+  }
 
-    if (player.getArrowCount() <= 0) {
-      sb.append("\nYou are out of arrows, explore to find more");
-      return sb.toString();
+  /**
+   * This method shoots an arrow from the player location. The description of where the arrow
+   * lands is only written when a builder is given.
+   *
+   * @param direction the direction of the shot
+   * @param dist      the number of caves the arrow flies, at least 1
+   * @param sb        receives the description of the shot, may be null
+   * @return true if the arrow hit a live monster, false if it missed or no arrow was left
+   */
+  boolean shoot(Direction direction, int dist, StringBuilder sb) {
+    if (journal != null) {
+      journal.recordShot(direction, dist);
     }
-    Location currArrowLoc = player.getCurrentLocation();
-    Direction direction = convert(dir);
 
-
-    while (dist > 0) {
-      if (!(checkNeighborExist(currArrowLoc, direction))) {
-        sb.append("\nYou shot an arrow into the darkness");
-        return sb.toString();
-      } else {
-        currArrowLoc = currArrowLoc.getNeighbors().get(direction);
-        if (currArrowLoc.getLocationType() == LocationType.CAVE) {
-          dist--;
-        } else {
-          for (Map.Entry<Direction, Location> map : currArrowLoc.getNeighbors().entrySet()) {
-            if (map.getKey() != direction) {
-              direction = map.getKey();
-              break;
-            }
-          }
-        }
-      }
+    if (player.getArrowCount() <= 0) {
+      describe(sb, "\nYou are out of arrows, explore to find more");
+      return false;
     }
-
-    if (dist == 0) {
-      player.decreaseArrow();
-      if (currArrowLoc.hasMonster() && currArrowLoc.getMonster().getHealth() > 0) {
-        currArrowLoc.hitMonster(50);
-        if (currArrowLoc.getMonster().getHealth() == 50) {
-          sb.append("\nPlayer shot the monster, monster is injured");
-        } else if (currArrowLoc.getMonster().getHealth() == 0) {
-          sb.append("\nPlayer shot the monster, monster has been killed");
-        }
-      } else {
-        sb.append("\nPlayer shot an arrow into the darkness");
+    //an arrow flying into a wall or round a loop of tunnels is kept
+    int target = ArrowPath.land(this::neighborId, this::isCave, locationList.size(),
+            player.getCurrentLocation().getId(), direction, dist);
+    if (target < 0) {
+      describe(sb, "\nYou shot an arrow into the darkness");
+      return false;
+    }
+    Location currArrowLoc = locationList.get(target);
+
+    player.decreaseArrow();
+    //the smell at the player location changes when a monster nearby is hit
+    changeLog.mark(player.getCurrentLocation().getId());
+    if (currArrowLoc.hasMonster() && currArrowLoc.getMonsterHealth() > 0) {
+      boolean otyugh = hasLiveMonster(currArrowLoc, CreatureType.OTUYGH);
+      currArrowLoc.hitMonster(50);
+      if (otyugh && !hasLiveMonster(currArrowLoc, CreatureType.OTUYGH)) {
+        influenceMap.removeOtyugh(currArrowLoc.getId());
+      }
+      if (isFreeForEntity(currArrowLoc)) {
+        freeLocations.add(currArrowLoc.getId());
       }
-      return sb.toString();
+      //a killed moving monster is removed from its location
+      if (!currArrowLoc.hasMonster()) {
+        describe(sb, "\nPlayer shot the monster, monster has been killed");
+      } else if (currArrowLoc.getMonsterHealth() == 50) {
+        describe(sb, "\nPlayer shot the monster, monster is injured");
+      } else if (currArrowLoc.getMonsterHealth() == 0) {
+        describe(sb, "\nPlayer shot the monster, monster has been killed");
+      }
+      return true;
     }
-    sb.append("\nYou shot an arrow into the darkness");
-    return sb.toString();
+    describe(sb, "\nPlayer shot an arrow into the darkness");
+    return false;
   }
 
   //add monster to the cave
   private void addMonster() throws IllegalArgumentException {
-    List<Location> caveListCopy = new ArrayList<>(caveList);
-
-    if (monsterCount > caveListCopy.size()) {
+    if (monsterCount > caveIds.length) {
       throw new IllegalArgumentException("Monster count is greater than no of caves");
     }
 
-    caveListCopy.remove(startCave);
     endCave.addMonster(CreatureType.OTUYGH);
-    caveListCopy.remove(endCave);
-
-    //shuffle
-    caveListCopy = randomizer.randomizedValueList(caveListCopy);
 
-    for (int i = 0; i < monsterCount - 1; i++) {
-      caveListCopy.get(i).addMonster(CreatureType.OTUYGH);
+    //pick among the caves other than the start and the end cave
+    int first = Arrays.binarySearch(caveIds, startCave.getId());
+    int second = Arrays.binarySearch(caveIds, endCave.getId());
+    int skipLow = Math.min(first, second);
+    int skipHigh = Math.max(first, second);
+    for (int i : randomizer.sampleK(caveIds.length - 2, monsterCount - 1)) {
+      if (i >= skipLow) {
+        i++;
+      }
+      if (i >= skipHigh) {
+        i++;
+      }
+      grid.setMonster(caveIds[i], CreatureType.OTUYGH);
     }
   }
 
   //add pit to a cave randomly
   private void addPit() {
-    List<Location> pitList = new ArrayList<>();
-    for (int i = 0; i < caveList.size(); i++) {
-      if (!locationList.get(i).hasMonster() || locationList.get(i).getMonster().getHealth() <= 0) {
-        pitList.add(locationList.get(i));
+    //pit not in the start or end cave
+    int[] pitList = new int[caveIds.length];
+    int count = 0;
+    for (int i = 0; i < caveIds.length; i++) {
+      if ((grid.getMonsterType(i) == null || grid.getMonsterHealth(i) <= 0)
+              && i != startCave.getId() && i != endCave.getId()) {
+        pitList[count++] = i;
       }
     }
 
-    //pit not in the start or end cave
-    pitList.remove(startCave);
-    pitList.remove(endCave);
-
-    pitList = randomizer.randomizedValueList(pitList);
-    for (int i = 0; i < pitCount; i++) {
-      pitList.get(i).setPit();
+    for (int i : randomizer.sampleK(count, pitCount)) {
+      grid.setPit(pitList[i], true);
     }
   }
 
-  private void addMovingMonster() {
-    List<Location> noMonsterList = new ArrayList<>();
-    //first remove monster from everywhere
-    for (int i = 0; i < locationList.size(); i++) {
-      if (locationList.get(i).hasMonster() && locationList.get(i).getMonster().getMonsterType()
-              .equals(CreatureType.MOVING_MONSTER)) {
-        locationList.get(i).removeMonster();
+  //index of the locations without a live Otyugh or a pit, apart from the start cave
+  private void createOccupancyIndex() {
+    boolean[] free = new boolean[locationList.size()];
+    int thieves = 0;
+    int movingMonsters = 0;
+    for (Location location : locationList) {
+      free[location.getId()] = isFreeForEntity(location);
+      if (location.isContainsThief()) {
+        thieves++;
       }
-    }
-    for (int i = 0; i < locationList.size(); i++) {
-      if ((!locationList.get(i).hasMonster() || locationList.get(i).getMonster().getHealth() <= 0)
-              && !locationList.get(i).isContainsPit()
-              && locationList.get(i).getId() != startCave.getId()
-              && locationList.get(i).getId() != this.player.getCurrentLocation().getId()) {
-        noMonsterList.add(locationList.get(i));
+      if (hasLiveMonster(location, CreatureType.MOVING_MONSTER)) {
+        movingMonsters++;
       }
     }
-    noMonsterList = randomizer.randomizedValueList(noMonsterList);
-    for (int i = 0; i < movingMonsterCount; i++) {
-      noMonsterList.get(i).addMonster(CreatureType.MOVING_MONSTER);
+    freeLocations = new OccupancyIndex(free);
+
+    //locations of the thieves and moving monsters already present, for a restarted dungeon
+    thiefLocations = new int[Math.max(thiefCount, thieves)];
+    movingMonsterLocations = new int[Math.max(movingMonsterCount, movingMonsters)];
+    thieves = 0;
+    movingMonsters = 0;
+    for (Location location : locationList) {
+      if (location.isContainsThief()) {
+        thiefLocations[thieves++] = location.getId();
+      }
+      if (hasLiveMonster(location, CreatureType.MOVING_MONSTER)) {
+        movingMonsterLocations[movingMonsters++] = location.getId();
+      }
     }
+    Arrays.fill(thiefLocations, thieves, thiefLocations.length, -1);
+    Arrays.fill(movingMonsterLocations, movingMonsters, movingMonsterLocations.length, -1);
   }
 
-  private void addThiefToDungeon() {
+  private boolean isFreeForEntity(Location location) {
+    return (!location.hasMonster() || location.getMonsterHealth() <= 0
+            || location.getMonsterType() == CreatureType.MOVING_MONSTER)
+            && !location.isContainsPit()
+            && location.getId() != startCave.getId();
+  }
 
-    //thief and monster cannot be together
-    List<Location> dungeonWithoutMonsterPitList = new ArrayList<>();
-    for (int i = 0; i < locationList.size(); i++) {
-      if (locationList.get(i).isContainsThief()) {
-        locationList.get(i).setContainsThief(false);
+  private boolean hasLiveMonster(Location location, CreatureType monsterType) {
+    return location.getMonsterType() == monsterType && location.getMonsterHealth() > 0;
+  }
+
+  //picks distinct free locations, the picked locations are removed from the index
+  private int pickFreeLocations(int[] picked) {
+    int[] ranks = randomizer.sampleK(freeLocations.size(),
+            Math.min(picked.length, freeLocations.size()));
+    if (journal != null) {
+      journal.recordDraws(ranks);
+    }
+    for (int i = 0; i < ranks.length; i++) {
+      picked[i] = freeLocations.select(ranks[i]);
+    }
+    for (int i = 0; i < ranks.length; i++) {
+      freeLocations.remove(picked[i]);
+    }
+    Arrays.fill(picked, ranks.length, picked.length, -1);
+    return ranks.length;
+  }
+
+  private void restoreFreeLocations(int[] ids) {
+    for (int id : ids) {
+      if (id >= 0) {
+        freeLocations.add(id);
       }
-      if ((!locationList.get(i).hasMonster() || locationList.get(i).getMonster().getHealth() <= 0)
-              && !locationList.get(i).isContainsPit()) {
-        dungeonWithoutMonsterPitList.add(locationList.get(i));
+    }
+  }
+
+  private void addMovingMonster() {
+    //first remove moving monsters from their previous locations
+    for (int id : movingMonsterLocations) {
+      if (id >= 0 && grid.getMonsterType(id) == CreatureType.MOVING_MONSTER) {
+        grid.removeMonster(id);
       }
     }
-    dungeonWithoutMonsterPitList.remove(startCave);
-    dungeonWithoutMonsterPitList = randomizer.randomizedValueList(dungeonWithoutMonsterPitList);
-    for (int i = 0; i < thiefCount; i++) {
-      dungeonWithoutMonsterPitList.get(i).setContainsThief(true);
+
+    //moving monster cannot be placed on the player
+    int playerLocation = this.player.getCurrentLocation().getId();
+    boolean playerRemoved = freeLocations.remove(playerLocation);
+    int[] picked = new int[movingMonsterCount];
+    pickFreeLocations(picked);
+    restoreFreeLocations(picked);
+    if (playerRemoved) {
+      freeLocations.add(playerLocation);
+    }
+
+    for (int id : picked) {
+      if (id >= 0) {
+        locationList.get(id).addMonster(CreatureType.MOVING_MONSTER);
+      }
     }
+    movingMonsterLocations = picked;
   }
 
-  private int checkTheDistance(Location currentLoc, String str) {
-    int count = 0;
-    if (str == "SMELL") {
-      for (Map.Entry<Direction, Location> m : currentLoc.getNeighbors().entrySet()) {
-        if ((!monsterList.contains(m.getValue())) && m.getValue().hasMonster() &&
-                m.getValue().getMonster().getMonsterType() == CreatureType.OTUYGH
-                && m.getValue().getMonster().getHealth() > 0) {
-          monsterList.add(m.getValue());
-          count++;
-        }
+  private void addThiefToDungeon() {
+    for (int id : thiefLocations) {
+      if (id >= 0) {
+        locationList.get(id).setContainsThief(false);
       }
-    } else if (str == "PIT") {
-      for (Map.Entry<Direction, Location> m : currentLoc.getNeighbors().entrySet()) {
-        if (m.getValue().isContainsPit()) {
-          return 1;
-        }
+    }
+
+    //thief and monster cannot be together
+    int[] excluded = new int[movingMonsterLocations.length];
+    for (int i = 0; i < movingMonsterLocations.length; i++) {
+      int id = movingMonsterLocations[i];
+      excluded[i] = id >= 0 && hasLiveMonster(locationList.get(id), CreatureType.MOVING_MONSTER)
+              && freeLocations.remove(id) ? id : -1;
+    }
+    int[] picked = new int[thiefCount];
+    pickFreeLocations(picked);
+    restoreFreeLocations(picked);
+    restoreFreeLocations(excluded);
+
+    for (int id : picked) {
+      if (id >= 0) {
+        locationList.get(id).setContainsThief(true);
       }
     }
-    return count;
+    thiefLocations = picked;
   }
 
   /**
@@ -543,16 +719,7 @@ public class DungeonImpl implements Dungeon {
    */
   @Override
   public SoilQuality checkSoilType() {
-    if (checkTheDistance(this.player.getCurrentLocation(), "PIT") > 0) {
-      return SoilQuality.DENSE;
-    }
-    for (Map.Entry<Direction, Location> neigh :
-            this.player.getCurrentLocation().getNeighbors().entrySet()) {
-      if (checkTheDistance(neigh.getValue(), "PIT") == 1) {
-        return SoilQuality.POROUS;
-      }
-    }
-    return SoilQuality.NONE;
+    return influenceMap.soilAt(this.player.getCurrentLocation().getId());
   }
 
   /**
@@ -560,24 +727,7 @@ public class DungeonImpl implements Dungeon {
    */
   @Override
   public SmellType checkSmell() {
-    monsterList.clear();
-    int monsterCount = 0;
-    monsterCount = checkTheDistance(this.player.getCurrentLocation(), "SMELL");
-    if (monsterCount > 0) {
-      return SmellType.HIGH_PUNGENT;
-    }
-    monsterCount = 0;
-    for (Map.Entry<Direction, Location> neigh :
-            this.player.getCurrentLocation().getNeighbors().entrySet()) {
-      monsterCount += checkTheDistance(neigh.getValue(), "SMELL");
-    }
-    if (monsterCount == 1) {
-      return SmellType.LESS_PUNGENT;
-    } else if (monsterCount > 1) {
-      return SmellType.HIGH_PUNGENT;
-    } else {
-      return SmellType.ODOURLESS;
-    }
+    return influenceMap.smellAt(this.player.getCurrentLocation().getId());
   }
 
   /**
@@ -630,38 +780,67 @@ public class DungeonImpl implements Dungeon {
 
   //start and end cave
   private void findMinPath() {
-    List<Location> possibleStart = new ArrayList<Location>(caveList);
-    boolean foundEnd = false;
-
-    while (!foundEnd) {
-      possibleStart = randomizer.randomizedValueList(possibleStart);
-      this.startCave = possibleStart.get(0);
-      Map<Location, Integer> m = new HashMap<>();
-      Map<Location, Integer> sortedMap = new HashMap<>();
-
-      for (Map.Entry<Location, Integer> map : dfs(this.startCave).entrySet()) {
-        if (map.getKey().getLocationType() == LocationType.CAVE
-                && map.getValue() >= 5) {
-          m.put(map.getKey(), map.getValue());
+    //a dungeon of tunnels or a single cave has no start and end caves to sweep for
+    if (caveIds.length < 2) {
+      throw tooSmall();
+    }
+    DistanceEngine engine = new DistanceEngine(locationList);
+
+    //double sweep: the farthest cave from any cave, then the farthest cave from that one
+    int[] levels = engine.distancesFrom(caveIds[0]);
+    int sweepStart = farthestCave(levels);
+    int[] fromSweepStart = engine.distancesFrom(sweepStart);
+    int sweepEnd = farthestCave(fromSweepStart);
+
+    int[] possibleStart = new int[caveIds.length];
+    int count = 0;
+    if (sweepStart != sweepEnd && fromSweepStart[sweepEnd] >= MIN_START_END_DISTANCE) {
+      //a cave far enough from either end of the sweep always has an end cave
+      int[] fromSweepEnd = engine.distancesFrom(sweepEnd);
+      for (int id : caveIds) {
+        if (isFarEnough(fromSweepStart, id, MIN_START_END_DISTANCE)
+                || isFarEnough(fromSweepEnd, id, MIN_START_END_DISTANCE)) {
+          possibleStart[count++] = id;
+        }
+      }
+    } else {
+      //the sweep only finds the longest distance when there is one path between two caves, with
+      //more paths it can fall short, so every cave is tried before the dungeon is too small
+      for (int id : caveIds) {
+        int[] fromCave = engine.distancesFrom(id);
+        if (isFarEnough(fromCave, farthestCave(fromCave), MIN_START_END_DISTANCE)) {
+          possibleStart[count++] = id;
         }
       }
+    }
 
-      //Citation for below code:
-      //https://www.javacodegeeks.com/2017/09/j
-      // ava-8-sorting-hashmap-values-ascending-descending-order.html
-      if (!m.isEmpty()) {
-        sortedMap = m.entrySet().stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .collect(
-                        toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2,
-                                LinkedHashMap::new));
-        Map.Entry<Location, Integer> et = sortedMap.entrySet().iterator().next();
-        this.endCave = et.getKey();
-        foundEnd = true;
-      } else {
-        possibleStart.remove(this.startCave);
+    if (count == 0) {
+      throw tooSmall();
+    }
+
+    this.startCave = locationList.get(possibleStart[randomizer.nextIndex(count)]);
+    this.endCave = locationList.get(farthestCave(engine.distancesFrom(startCave.getId())));
+  }
+
+  private IllegalArgumentException tooSmall() {
+    return new IllegalArgumentException("Dungeon is too small, there are no start and end caves "
+            + MIN_START_END_DISTANCE + " moves apart");
+  }
+
+  private boolean isFarEnough(int[] levels, int id, int minDistance) {
+    return levels[id] != DistanceEngine.UNREACHABLE && levels[id] >= minDistance;
+  }
+
+  private int farthestCave(int[] levels) {
+    int farthest = caveIds[0];
+    for (int id : caveIds) {
+      if (levels[id] != DistanceEngine.UNREACHABLE
+              && (levels[farthest] == DistanceEngine.UNREACHABLE
+              || levels[id] > levels[farthest])) {
+        farthest = id;
       }
     }
+    return farthest;
   }
 
   /**
@@ -674,44 +853,21 @@ public class DungeonImpl implements Dungeon {
       throw new IllegalArgumentException("Location for start cave cannot be null");
     }
 
+    int[] levels = new DistanceEngine(locationList).distancesFrom(src.getId());
     Map<Location, Integer> locationLevelMap = new HashMap<>();
-    Set<Location> visited = new HashSet<Location>();
-
     for (Location loc : locationList) {
-      locationLevelMap.put(loc, Integer.MAX_VALUE);
+      locationLevelMap.put(loc, levels[loc.getId()]);
     }
-    DFS(src, locationLevelMap, 0, visited);
-    return new HashMap<>(locationLevelMap);
+    return locationLevelMap;
   }
 
-  private void DFS(Location src, Map<Location, Integer> locationLevelMap,
-                   int level, Set<Location> visited) {
-    try {
-      if (src == null) {
-        return;
-      }
-      locationLevelMap.put(src, Math.min(locationLevelMap.get(src), level));
-      visited.add(src);
-
-      for (Map.Entry<Direction, Location> neigh : src.getNeighbors().entrySet()) {
-        if (visited.contains(neigh.getValue())) {
-          continue;
-        }
-        visited.add(neigh.getValue());
-        DFS(neigh.getValue(), locationLevelMap, level + 1, visited);
-      }
-      visited.remove(src);
-    } catch (Exception e) {
-      //do nothing if this occurs
-    }
-  }
-
-  private void caveListCopy() {
-    finalLocationList = new ArrayList<>();
-    for (Iterator<Location> iterator = locationList.iterator(); iterator.hasNext(); ) {
-      Location location = iterator.next();
-      finalLocationList.add(factoryPattern.createCopyLocation(location));
-    }
+  //the grid copy shares its pages with the dungeon until the game changes them
+  private void snapshotInitialState() {
+    initialGrid = new DungeonGrid(grid);
+    initialInfluence = new InfluenceMap(influenceMap);
+    initialFree = new OccupancyIndex(freeLocations);
+    initialThieves = thiefLocations.clone();
+    initialMovingMonsters = movingMonsterLocations.clone();
   }
 
   /**
@@ -724,108 +880,147 @@ public class DungeonImpl implements Dungeon {
             || val == null) {
       throw new IllegalArgumentException("Invalid Direction");
     }
-
-    String result = player.move(convert(val));
     StringBuilder sb = new StringBuilder();
+    if (!move(convert(val), sb)) {
+      sb.append("\nMove " + val + " not possible ");
+    }
+    return sb.toString();
+  }
 
-    if (result.equals("Moved")) {
-      player.getCurrentLocation().updatePlayerVisited(true);
-      //thief
-      if (player.getCurrentLocation().isContainsThief()) {
-        sb.append("\nThief in the cave.");
-        if (player.getTreasureList().size() > 0) {
-          player.emptyTreasureList();
-          sb.append("\nThief stole all treasures of the player, player has no treasure");
-        } else {
-          sb.append("\nPlayer has no treasure to steal");
-        }
+  /**
+   * This method moves the player, and then the thieves and the moving monsters. The description
+   * of what happens is only written when a builder is given, so games played without anyone
+   * reading them do not format any text.
+   *
+   * @param direction the direction of the move
+   * @param sb        receives the description of the move, may be null
+   * @return true if the player moved, false if there is no path in the direction
+   */
+  boolean move(Direction direction, StringBuilder sb) {
+    if (journal != null) {
+      journal.recordMove(direction);
+    }
+
+    int previousId = player.getCurrentLocation().getId();
+    String result = player.move(direction);
+    if (!result.equals("Moved")) {
+      return false;
+    }
+    changeLog.mark(previousId);
+    changeLog.mark(player.getCurrentLocation().getId());
+    player.getCurrentLocation().updatePlayerVisited(true);
+    //thief
+    if (player.getCurrentLocation().isContainsThief()) {
+      describe(sb, "\nThief in the cave.");
+      if (player.getTreasureList().size() > 0) {
+        player.emptyTreasureList();
+        describe(sb, "\nThief stole all treasures of the player, player has no treasure");
+      } else {
+        describe(sb, "\nPlayer has no treasure to steal");
       }
+    }
 
-      //pit and monster
-      if (player.getCurrentLocation().isContainsPit()) {
+    //pit and monster
+    if (player.getCurrentLocation().isContainsPit()) {
+      player.hitPlayer(100);
+      describe(sb, "\nPit in the cave! Ohhh nooo, player died by falling into the pit");
+    } else if (player.getCurrentLocation().getMonsterType() == CreatureType.MOVING_MONSTER) {
+      handToHandCombat(sb);
+    } else if (player.getCurrentLocation().getMonsterType() == CreatureType.OTUYGH) {
+      int escape = nextInt(0, 2);
+      if ((player.getCurrentLocation().getMonsterHealth() == 100)
+              || (player.getCurrentLocation().getMonsterHealth() == 50
+              && escape % 2 == 1)) {
         player.hitPlayer(100);
-        sb.append("\nPit in the cave! Ohhh nooo, player died by falling into the pit");
-      } else if (player.getCurrentLocation().hasMonster()
-              && player.getCurrentLocation().getMonster().getMonsterType()
-              == CreatureType.MOVING_MONSTER) {
-        sb.append(handToHandCombat());
-      } else if (player.getCurrentLocation().hasMonster()
-              && player.getCurrentLocation().getMonster().getMonsterType() == CreatureType.OTUYGH) {
-        int escape = randomizer.getNextInt(0, 2);
-        if ((player.getCurrentLocation().getMonster().getHealth() == 100)
-                || (player.getCurrentLocation().getMonster().getHealth() == 50
-                && escape % 2 == 1)) {
-          player.hitPlayer(100);
-          sb.append("\nOtyugh in cave! Chomp, chomp, chomp, player got eaten by an Otyugh!");
-          sb.append("\nBetter luck next time");
-        } else if ((player.getCurrentLocation().getMonster().getHealth() == 50
-                && escape % 2 == 0)) {
+        describe(sb, "\nOtyugh in cave! Chomp, chomp, chomp, player got eaten by an Otyugh!");
+        describe(sb, "\nBetter luck next time");
+      } else if ((player.getCurrentLocation().getMonsterHealth() == 50
+              && escape % 2 == 0)) {
+        if (sb != null) {
           sb.append("\nPlayer escaped successfully from an injured Otyugh, and moved to location "
                   + player.getCurrentLocation().getId());
-        } else if (player.getCurrentLocation().getMonster().getHealth() == 0) {
-          sb.append("\nPlayer moved successfully to location "
-                  + player.getCurrentLocation().getRow() + ", "
-                  + player.getCurrentLocation().getColumn());
         }
-      } else {
-        sb.append("\nPlayer moved successfully to location "
-                + player.getCurrentLocation().getRow() + ", "
-                + player.getCurrentLocation().getColumn());
-      }
-      addThiefToDungeon();
-      if (countOfMV > 0) {
-        addMovingMonster();
+      } else if (player.getCurrentLocation().getMonsterHealth() == 0) {
+        describeLocation(sb);
       }
     } else {
-      sb.append("\nMove " + val + " not possible ");
+      describeLocation(sb);
     }
-    return sb.toString();
+    addThiefToDungeon();
+    if (countOfMV > 0) {
+      addMovingMonster();
+    }
+    return true;
   }
 
-  private String monsterTurn() {
-    StringBuilder sb = new StringBuilder();
+  private static void describe(StringBuilder sb, String text) {
+    if (sb != null) {
+      sb.append(text);
+    }
+  }
+
+  private void describeLocation(StringBuilder sb) {
+    if (sb != null) {
+      sb.append("\nPlayer moved successfully to location "
+              + player.getCurrentLocation().getRow() + ", "
+              + player.getCurrentLocation().getColumn());
+    }
+  }
+
+  //the numbers drawn during the game go through here so that a journal can record them
+  private int nextInt(int min, int max) {
+    int value = randomizer.getNextInt(min, max);
+    if (journal != null) {
+      journal.recordDraw(value);
+    }
+    return value;
+  }
+
+  private void monsterTurn(StringBuilder sb) {
     if (player.getCurrentLocation().hasMonster() &&
-            player.getCurrentLocation().getMonster().getHealth() > 0) {
-      sb.append("\nMonster gets the turn");
-      int playerDamage = randomizer.getNextInt(30, 100);
+            player.getCurrentLocation().getMonsterHealth() > 0) {
+      describe(sb, "\nMonster gets the turn");
+      int playerDamage = nextInt(30, 100);
       player.hitPlayer(playerDamage);
-      sb.append("\nMonster hits player, damage by: " + playerDamage);
+      if (sb != null) {
+        sb.append("\nMonster hits player, damage by: " + playerDamage);
+      }
     }
-    return sb.toString();
   }
 
-  private String playerTurn() {
-    StringBuilder sb = new StringBuilder();
-    sb.append("\nPlayer gets the turn");
-    int monsterDamage = randomizer.getNextInt(30, 100);
+  private void playerTurn(StringBuilder sb) {
+    describe(sb, "\nPlayer gets the turn");
+    int monsterDamage = nextInt(30, 100);
     player.getCurrentLocation().hitMonster(monsterDamage);
-    sb.append("\nPlayer hits monster, damage by: " + monsterDamage);
-    return sb.toString();
+    if (sb != null) {
+      sb.append("\nPlayer hits monster, damage by: " + monsterDamage);
+    }
   }
 
-  private String handToHandCombat() {
-    StringBuilder sb = new StringBuilder();
-    sb.append("\nMoving CreatureAbs encountered in the cave, player has to fight.");
-    int turnVal = randomizer.getNextInt(20, 30);
+  private void handToHandCombat(StringBuilder sb) {
+    describe(sb, "\nMoving CreatureAbs encountered in the cave, player has to fight.");
+    int turnVal = nextInt(20, 30);
     while (player.getHealth() > 0 && player.getCurrentLocation().hasMonster()) {
       //if positive, monster hits first
       if (turnVal % 2 == 0) {
-        sb.append(monsterTurn());
-        sb.append(playerTurn());
+        monsterTurn(sb);
+        playerTurn(sb);
       } else {
-        sb.append(playerTurn());
-        sb.append(monsterTurn());
+        playerTurn(sb);
+        monsterTurn(sb);
       }
     }
 
     if (player.getHealth() <= 0) {
-      sb.append("\nGame Over!! Player got Killed");
+      describe(sb, "\nGame Over!! Player got Killed");
     } else {
       countOfMV--;
-      sb.append("\nPlayer killed the moving monster");
-      sb.append("\nPlayer moved successfully to location " + player.getCurrentLocation().getId());
+      describe(sb, "\nPlayer killed the moving monster");
+      if (sb != null) {
+        sb.append("\nPlayer moved successfully to location "
+                + player.getCurrentLocation().getId());
+      }
     }
-    return sb.toString();
   }
 
   /**
@@ -836,11 +1031,12 @@ public class DungeonImpl implements Dungeon {
     StringBuilder sb = new StringBuilder();
     for (int i = 0; i < locationList.size(); i++) {
       sb.append("\n" + locationList.get(i).getLocationType() + ": " + locationList.get(i).getId());
-      Map<Direction, Location> treeMap = new TreeMap<Direction, Location>(
-              locationList.get(i).getNeighbors());
-      for (Map.Entry<Direction, Location> map : treeMap.entrySet()) {
-        sb.append("\n-->" + map.getKey() + " Neighbor: " + map.getValue().getLocationType()
-                + ": " + map.getValue().getId());
+      for (Direction direction : Direction.values()) {
+        Location neighbor = locationList.get(i).getNeighbor(direction);
+        if (neighbor != null) {
+          sb.append("\n-->" + direction + " Neighbor: " + neighbor.getLocationType()
+                  + ": " + neighbor.getId());
+        }
       }
       if (locationList.get(i).hasMonster()) {
         sb.append("\n###" + locationList.get(i).getMonster().getClass().getSimpleName() + "###");
@@ -865,14 +1061,23 @@ public class DungeonImpl implements Dungeon {
    */
   @Override
   public String pickTreasure() {
-    StringBuilder sb = new StringBuilder();
+    return takeTreasure() ? "Treasure picked up" : "No treasure present at the location";
+  }
+
+  /**
+   * This method picks up the treasure at the player location.
+   *
+   * @return true if there was treasure to pick up
+   */
+  boolean takeTreasure() {
+    if (journal != null) {
+      journal.recordPickTreasure();
+    }
     if (player.getCurrentLocation().getTreasureList().size() > 0) {
       player.updateTreasureList();
-      sb.append("Treasure picked up");
-    } else {
-      sb.append("No treasure present at the location");
+      return true;
     }
-    return sb.toString();
+    return false;
   }
 
   /**
@@ -880,14 +1085,23 @@ public class DungeonImpl implements Dungeon {
    */
   @Override
   public String pickArrow() {
-    StringBuilder sb = new StringBuilder();
+    return takeArrow() ? "Arrow picked up" : "No arrow present at the location";
+  }
+
+  /**
+   * This method picks up the arrows at the player location.
+   *
+   * @return true if there were arrows to pick up
+   */
+  boolean takeArrow() {
+    if (journal != null) {
+      journal.recordPickArrow();
+    }
     if (player.getCurrentLocation().getArrow() > 0) {
       player.pickUpArrow();
-      sb.append("Arrow picked up");
-    } else {
-      sb.append("No arrow present at the location");
+      return true;
     }
-    return sb.toString();
+    return false;
   }
 
   /**
@@ -906,9 +1120,10 @@ public class DungeonImpl implements Dungeon {
     StringBuilder stringBuilder = new StringBuilder();
 
     stringBuilder.append("\nNext possible moves: ");
-    Map<Direction, Location> treeMap = new TreeMap<>(player.getCurrentLocation().getNeighbors());
-    for (Map.Entry<Direction, Location> set : treeMap.entrySet()) {
-      stringBuilder.append("\n" + set.getKey().getDirection());
+    for (Direction direction : Direction.values()) {
+      if (player.getCurrentLocation().hasNeighbor(direction)) {
+        stringBuilder.append("\n" + direction.getDirection());
+      }
     }
     return stringBuilder.toString();
   }
@@ -937,6 +1152,16 @@ public class DungeonImpl implements Dungeon {
     return new ArrayList<>(this.locationList);
   }
 
+  /**
+   * This method gives the player itself instead of a copy, for the callers in this package that
+   * read the player on every turn and must not change it.
+   *
+   * @return the player
+   */
+  Player getLivePlayer() {
+    return player;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -969,7 +1194,11 @@ public class DungeonImpl implements Dungeon {
    */
   @Override
   public List<Location> getFinalLocationList() {
-    return new ArrayList<>(finalLocationList);
+    if (initialGrid == null) {
+      return new ArrayList<>(finalLocationList);
+    }
+    //views over a copy, so that changing them does not change the snapshot
+    return new ArrayList<>(new DungeonGrid(initialGrid).locations());
   }
 
   /**
@@ -1003,4 +1232,33 @@ public class DungeonImpl implements Dungeon {
   public int getMovingMonsterCount() {
     return movingMonsterCount;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Location getLocation(int id) throws IllegalArgumentException {
+    if (id < 0 || id >= locationList.size()) {
+      throw new IllegalArgumentException("Location " + id + " does not exist");
+    }
+    return locationList.get(id);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getChangeVersion() {
+    return changeLog.getVersion();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] getChangedLocations(long version) throws IllegalArgumentException {
+    int[] changed = changeLog.changedSince(version);
+    //without the grid only the player moves are known
+    return grid == null ? null : changed;
+  }
 }
\ No newline at end of file
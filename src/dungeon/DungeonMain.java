@@ -1,12 +1,14 @@
 package dungeon;
 
 import java.io.InputStreamReader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 import controller.CommandController;
 import controller.IDungeonController;
 import controller.KeyBoardListener;
-import randomizer.ActualRandomizer;
 import randomizer.FixedRandomizer;
+import randomizer.SeededRandomizer;
 import view.DungeonView;
 import view.IView;
 
@@ -18,7 +20,11 @@ public class DungeonMain {
   /**
    * This is a main class which will be used to start the DungeonMain class.
    *
-   * @param args Args can be provided as any
+   * @param args Args can be provided as any, the rows, columns, interconnectivity, treasure
+   *             percent, wrapping, monster count, thief count, pit count and moving monster count
+   *             followed by an optional seed to create the same dungeon again. With
+   *             {@code --simulate games bot} in front, where the bot is random or hunter, the
+   *             games are played by bots on all the processors and only the outcome is printed
    */
   public static void main(String[] args) {
 
@@ -27,14 +33,20 @@ public class DungeonMain {
     if(args.length == 0) {
 
       dungeon = new DungeonImpl(5, 7, 2, 25, false,
-              5, 1, 1, 1, new ActualRandomizer());
+              5, 1, 1, 1, new SeededRandomizer());
 
       IView view = new DungeonView(dungeon);
       IDungeonController controller = new CommandController(view, dungeon);
       controller.go();
+    } else if (args[0].equals("--simulate")) {
+      try {
+        simulate(args);
+      } catch (IllegalArgumentException e) {
+        System.out.println(e.getMessage());
+      }
     } else {
       try {
-        if (args.length < 5) {
+        if (args.length < 9) {
           throw new IllegalArgumentException("Invalid command line arguments given. "
                   + "Please provide correct arguments");
         }
@@ -47,11 +59,14 @@ public class DungeonMain {
         int thiefCount = Integer.parseInt(args[6]);
         int pitCount = Integer.parseInt(args[7]);
         int movingMonsterCount = Integer.parseInt(args[8]);
+        SeededRandomizer randomizer = args.length > 9
+                ? new SeededRandomizer(Long.parseLong(args[9])) : new SeededRandomizer();
 
         dungeon = new DungeonImpl(rows, cols, interConnectivity, treasurePercent, wrapping,
-                monsterCount, thiefCount, pitCount, movingMonsterCount, new ActualRandomizer());
+                monsterCount, thiefCount, pitCount, movingMonsterCount, randomizer);
 
         System.out.println("*********** Dungeon Created ***************");
+        System.out.println("Seed: " + randomizer.getSeed());
         System.out.println(dungeon);
         System.out.println("*************** Game Begins ***************");
         System.out.println("Start Cave: " + dungeon.getStartCave().getId());
@@ -66,4 +81,30 @@ public class DungeonMain {
       }
     }
   }
+
+  private static void simulate(String[] args) throws IllegalArgumentException {
+    if (args.length < 12) {
+      throw new IllegalArgumentException("Usage: --simulate games random|hunter rows columns "
+              + "interconnectivity treasure wrapping monsters thieves pits moving [seed]");
+    }
+    long games = Long.parseLong(args[1]);
+    Supplier<BotPolicy> bots;
+    if (args[2].equals("random")) {
+      bots = RandomWalkBot::new;
+    } else if (args[2].equals("hunter")) {
+      bots = HunterBot::new;
+    } else {
+      throw new IllegalArgumentException("Unknown bot " + args[2]);
+    }
+    int rows = Integer.parseInt(args[3]);
+    int cols = Integer.parseInt(args[4]);
+    DungeonSettings settings = new DungeonSettings(rows, cols, Integer.parseInt(args[5]),
+            Integer.parseInt(args[6]), Boolean.parseBoolean(args[7]), Integer.parseInt(args[8]),
+            Integer.parseInt(args[9]), Integer.parseInt(args[10]), Integer.parseInt(args[11]));
+    long seed = args.length > 12 ? Long.parseLong(args[12]) : System.nanoTime();
+    //every game gets its own bot, so a bot keeping state between turns plays one game only
+    GameSimulator simulator = new GameSimulator(settings, bots, 10 * rows * cols);
+    System.out.println("Seed: " + seed);
+    System.out.println(simulator.run(seed, games, ForkJoinPool.commonPool()));
+  }
 }
@@ -0,0 +1,196 @@
+package dungeon;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import randomizer.SeededRandomizer;
+
+/**
+ * This class represents a pool of dungeons created ahead of time on a low priority background
+ * thread. The pool keeps a few dungeons for each of the most recently requested settings, so a
+ * request for settings used before is answered at once. Every dungeon taken from the pool is
+ * replaced in the background. The estimated memory of all the dungeons kept stays within the
+ * budget of the pool, and the dungeons of settings that have not been requested for a while are
+ * dropped.
+ */
+public class DungeonPool {
+
+  //a 700 x 700 dungeon that has not been played, whose copy kept for restarting shares the pages
+  //of its locations, retains about 20 MB of heap, and a 1000 x 1000 one about 40 MB
+  static final long BYTES_PER_LOCATION = 40;
+
+  private final int perSettings;
+  private final int maxSettings;
+  private final long memoryBudget;
+  private final Map<DungeonSettings, Deque<Dungeon>> pool;
+  private final Set<DungeonSettings> refilling;
+  private final ExecutorService refiller;
+  private long memoryUsed;
+
+  /**
+   * Constructs an empty pool of dungeons.
+   *
+   * @param perSettings  the number of dungeons kept for each settings
+   * @param maxSettings  the number of most recently requested settings dungeons are kept for
+   * @param memoryBudget the estimated memory in bytes all the kept dungeons can use
+   * @throws IllegalArgumentException when a count is not positive or the budget is negative
+   */
+  public DungeonPool(int perSettings, int maxSettings, long memoryBudget)
+          throws IllegalArgumentException {
+    if (perSettings < 1 || maxSettings < 1) {
+      throw new IllegalArgumentException("Pool sizes must be positive");
+    }
+    if (memoryBudget < 0) {
+      throw new IllegalArgumentException("Memory budget cannot be negative");
+    }
+    this.perSettings = perSettings;
+    this.maxSettings = maxSettings;
+    this.memoryBudget = memoryBudget;
+    //in the order the settings were last requested, looking them up does not change the order
+    this.pool = new LinkedHashMap<>();
+    this.refilling = new HashSet<>();
+    this.refiller = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dungeon-pool");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * This method takes a ready dungeon created from the settings out of the pool, and starts
+   * creating a replacement in the background. The settings become the most recently requested
+   * ones, so dungeons are kept for them from now on.
+   *
+   * @param settings the settings of the dungeon
+   * @return a new dungeon, null when the pool has no dungeon for the settings yet
+   * @throws IllegalArgumentException when the settings are null
+   */
+  public synchronized Dungeon take(DungeonSettings settings) throws IllegalArgumentException {
+    if (settings == null) {
+      throw new IllegalArgumentException("Settings cannot be null");
+    }
+    Deque<Dungeon> dungeons = pool.remove(settings);
+    if (dungeons == null) {
+      dungeons = new ArrayDeque<>();
+    }
+    pool.put(settings, dungeons);
+    evictSettings();
+    Dungeon dungeon = dungeons.poll();
+    if (dungeon != null) {
+      memoryUsed -= estimate(settings);
+    }
+    refill(settings);
+    return dungeon;
+  }
+
+  /**
+   * This method gives the number of ready dungeons kept for the settings.
+   *
+   * @param settings the settings of the dungeons
+   * @return the number of ready dungeons
+   */
+  public synchronized int available(DungeonSettings settings) {
+    Deque<Dungeon> dungeons = pool.get(settings);
+    return dungeons == null ? 0 : dungeons.size();
+  }
+
+  /**
+   * This method gives the estimated memory in bytes used by the ready dungeons.
+   *
+   * @return the estimated memory
+   */
+  public synchronized long getMemoryUsed() {
+    return memoryUsed;
+  }
+
+  /**
+   * This method waits until no dungeon is being created in the background.
+   *
+   * @param timeout the longest time to wait
+   * @param unit    the unit of the timeout
+   * @return true if no dungeon is being created, false if the time ran out first
+   * @throws InterruptedException when the waiting thread is interrupted
+   */
+  public synchronized boolean awaitIdle(long timeout, TimeUnit unit)
+          throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!refilling.isEmpty()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return true;
+  }
+
+  /**
+   * This method stops creating dungeons and drops the ready ones.
+   */
+  public synchronized void shutdown() {
+    refiller.shutdownNow();
+    pool.clear();
+    memoryUsed = 0;
+  }
+
+  private static long estimate(DungeonSettings settings) {
+    return settings.getLocationCount() * BYTES_PER_LOCATION;
+  }
+
+  //drops the dungeons of the least recently requested settings beyond the limit
+  private void evictSettings() {
+    Iterator<Map.Entry<DungeonSettings, Deque<Dungeon>>> iterator = pool.entrySet().iterator();
+    while (pool.size() > maxSettings && iterator.hasNext()) {
+      Map.Entry<DungeonSettings, Deque<Dungeon>> eldest = iterator.next();
+      memoryUsed -= eldest.getValue().size() * estimate(eldest.getKey());
+      iterator.remove();
+    }
+  }
+
+  private boolean needsDungeon(DungeonSettings settings) {
+    Deque<Dungeon> dungeons = pool.get(settings);
+    return dungeons != null && dungeons.size() < perSettings
+            && memoryUsed + estimate(settings) <= memoryBudget;
+  }
+
+  private void refill(DungeonSettings settings) {
+    if (refiller.isShutdown() || !needsDungeon(settings) || !refilling.add(settings)) {
+      return;
+    }
+    refiller.execute(() -> {
+      try {
+        while (true) {
+          synchronized (this) {
+            if (!needsDungeon(settings)) {
+              return;
+            }
+          }
+          Dungeon dungeon = settings.createDungeon(new SeededRandomizer(), null);
+          synchronized (this) {
+            if (!needsDungeon(settings)) {
+              return;
+            }
+            pool.get(settings).add(dungeon);
+            memoryUsed += estimate(settings);
+          }
+        }
+      } catch (IllegalArgumentException e) {
+        //invalid settings never give a dungeon, the request itself reports the error
+      } finally {
+        synchronized (this) {
+          refilling.remove(settings);
+          notifyAll();
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,528 @@
+package dungeon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.ICommandController;
+import controller.commands.Move;
+import controller.commands.PickArrow;
+import controller.commands.PickTreasure;
+import controller.commands.Shoot;
+import randomizer.SeededRandomizer;
+
+/**
+ * <P>
+ *   This class represents a server playing the game with many players over TCP on the local
+ *   machine without a thread per player. A few selector threads, one per core by default, wait
+ *   for every connection at once and only do work for the connections with bytes to read or to
+ *   write, so idle players cost no thread at all.
+ * </P>
+ * <P>
+ *   A player sends one command per line: {@code M N} moves north, {@code P A} and {@code P T}
+ *   pick up the arrows and the treasure, {@code S 3 E} shoots three caves east, {@code L} looks
+ *   around and {@code Q} quits. Lines are taken apart as their bytes arrive, each command is run
+ *   with the command classes of the controller, and the answer is written in one gathering write
+ *   of the text of the command, the description of the location and the prompt.
+ * </P>
+ * <P>
+ *   The memory of a connection is bounded: its dungeon is only created by its first command, a
+ *   line longer than {@link #MAX_LINE} bytes ends the connection, and the next line is not read
+ *   before the answer to the last one has been written.
+ * </P>
+ */
+public class DungeonSelectorServer implements Closeable {
+
+  public static final int MAX_LINE = 128;
+  public static final int MAX_SHOT = 5;
+
+  private static final String PROMPT = "> ";
+  private static final String GREETING = "Commands: M N|S|E|W, P A|T, S 1-5 N|S|E|W, "
+          + "L to look around, Q to quit\n" + PROMPT;
+  private static final ByteBuffer FULL = StandardCharsets.UTF_8.encode(
+          "Server is full, try again later\n");
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final ServerSocketChannel serverChannel;
+  private final DungeonSettings settings;
+  private final int maxSessions;
+  private final long idleTimeoutNanos;
+  private final Loop[] loops;
+  private final AtomicInteger sessionCount;
+  private int nextLoop;
+  private boolean started;
+  private volatile boolean closed;
+
+  /**
+   * Constructs a server listening on the loopback address with one selector thread per core.
+   * The server accepts players once it is started.
+   *
+   * @param port              the port to listen on, 0 for any free port
+   * @param settings          the settings of the dungeon of every session
+   * @param maxSessions       the most sessions played at the same time
+   * @param idleTimeoutMillis the time in milliseconds a session can wait for its player
+   * @throws IllegalArgumentException when the settings are null or invalid or a limit is not
+   *                                  positive
+   * @throws IOException              when the port cannot be listened on
+   */
+  public DungeonSelectorServer(int port, DungeonSettings settings, int maxSessions,
+                               int idleTimeoutMillis)
+          throws IllegalArgumentException, IOException {
+    this(port, settings, maxSessions, idleTimeoutMillis,
+            Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a server listening on the loopback address. The server accepts players once it
+   * is started.
+   *
+   * @param port              the port to listen on, 0 for any free port
+   * @param settings          the settings of the dungeon of every session
+   * @param maxSessions       the most sessions played at the same time
+   * @param idleTimeoutMillis the time in milliseconds a session can wait for its player
+   * @param selectors         the number of selector threads
+   * @throws IllegalArgumentException when the settings are null or invalid or a limit is not
+   *                                  positive
+   * @throws IOException              when the port cannot be listened on
+   */
+  public DungeonSelectorServer(int port, DungeonSettings settings, int maxSessions,
+                               int idleTimeoutMillis, int selectors)
+          throws IllegalArgumentException, IOException {
+    if (settings == null) {
+      throw new IllegalArgumentException("Settings cannot be null");
+    }
+    if (maxSessions < 1 || idleTimeoutMillis < 1 || selectors < 1) {
+      throw new IllegalArgumentException(
+              "Session limit, idle timeout and selectors must be positive");
+    }
+    //the values of the settings are only checked when a dungeon is created
+    settings.createDungeon(new SeededRandomizer(), null);
+    this.settings = settings;
+    this.maxSessions = maxSessions;
+    this.idleTimeoutNanos = idleTimeoutMillis * 1_000_000L;
+    this.sessionCount = new AtomicInteger();
+    this.loops = new Loop[selectors];
+    this.serverChannel = ServerSocketChannel.open();
+    try {
+      for (int i = 0; i < selectors; i++) {
+        loops[i] = new Loop(i);
+      }
+      serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+      serverChannel.configureBlocking(false);
+      serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * This method starts the selector threads.
+   *
+   * @throws IllegalStateException when the server has been started already
+   */
+  public synchronized void start() throws IllegalStateException {
+    if (started) {
+      throw new IllegalStateException("Server has been started already");
+    }
+    started = true;
+    for (Loop loop : loops) {
+      loop.thread.start();
+    }
+  }
+
+  /**
+   * This method gives the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  /**
+   * This method gives the number of sessions being played.
+   *
+   * @return the number of sessions
+   */
+  public int getSessionCount() {
+    return sessionCount.get();
+  }
+
+  /**
+   * This method stops accepting players, ends every session and waits for the selector threads
+   * to stop.
+   *
+   * @throws IOException when the server channel cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    serverChannel.close();
+    for (Loop loop : loops) {
+      if (loop == null) {
+        continue;
+      }
+      if (loop.thread.isAlive()) {
+        loop.selector.wakeup();
+        try {
+          loop.thread.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      } else {
+        loop.closeAll();
+      }
+    }
+  }
+
+  //called on the thread of the first selector only
+  private void accept() throws IOException {
+    for (SocketChannel channel = serverChannel.accept(); channel != null;
+         channel = serverChannel.accept()) {
+      channel.configureBlocking(false);
+      if (sessionCount.incrementAndGet() > maxSessions) {
+        sessionCount.decrementAndGet();
+        //a best effort, the player is not waited for
+        channel.write(FULL.duplicate());
+        channel.close();
+        continue;
+      }
+      Loop loop = loops[nextLoop];
+      nextLoop = (nextLoop + 1) % loops.length;
+      loop.add(channel);
+    }
+  }
+
+  /**
+   * This class represents a selector thread and the connections it serves.
+   */
+  private final class Loop implements Runnable {
+    private final Selector selector;
+    private final Queue<SocketChannel> added;
+    private final Thread thread;
+
+    private Loop(int index) throws IOException {
+      this.selector = Selector.open();
+      this.added = new ConcurrentLinkedQueue<>();
+      this.thread = new Thread(this, "dungeon-selector-" + index);
+      this.thread.setDaemon(true);
+    }
+
+    private void add(SocketChannel channel) {
+      if (Thread.currentThread() == thread) {
+        register(channel);
+      } else {
+        added.add(channel);
+        selector.wakeup();
+      }
+    }
+
+    @Override
+    public void run() {
+      long sweepInterval = Math.max(idleTimeoutNanos / 4, 1_000_000L);
+      long nextSweep = System.nanoTime() + sweepInterval;
+      try {
+        while (!closed) {
+          selector.select(Math.max(sweepInterval / 1_000_000L, 1L));
+          for (SocketChannel channel = added.poll(); channel != null; channel = added.poll()) {
+            register(channel);
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            handle(key);
+          }
+          long now = System.nanoTime();
+          if (now - nextSweep >= 0) {
+            sweep(now);
+            nextSweep = now + sweepInterval;
+          }
+        }
+      } catch (IOException | ClosedSelectorException e) {
+        //the selector is broken, its connections are ended below
+      } finally {
+        closeAll();
+      }
+    }
+
+    private void register(SocketChannel channel) {
+      try {
+        Connection connection = new Connection(channel);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connection.respond(key, EMPTY, EMPTY, StandardCharsets.UTF_8.encode(GREETING));
+      } catch (IOException | RuntimeException e) {
+        end(channel);
+      }
+    }
+
+    private void handle(SelectionKey key) {
+      Connection connection = (Connection) key.attachment();
+      if (connection == null) {
+        try {
+          accept();
+        } catch (IOException e) {
+          //the server channel has been closed
+        }
+        return;
+      }
+      try {
+        if (key.isValid() && key.isWritable()) {
+          connection.write(key);
+          //lines received while the last answer was written
+          if (key.isValid() && !connection.writing() && connection.in.position() > 0) {
+            connection.processLines(key);
+          }
+        }
+        if (key.isValid() && key.isReadable()) {
+          connection.read(key);
+        }
+      } catch (IOException e) {
+        end(key);
+      } catch (RuntimeException e) {
+        //a game failing ends only its own connection, never the selector thread
+        connection.fail(key, e);
+      }
+    }
+
+    private void sweep(long now) {
+      for (SelectionKey key : selector.keys()) {
+        Connection connection = (Connection) key.attachment();
+        if (connection != null && now - connection.lastActive > idleTimeoutNanos) {
+          connection.timeOut(key);
+        }
+      }
+    }
+
+    private void closeAll() {
+      for (SocketChannel channel = added.poll(); channel != null; channel = added.poll()) {
+        end(channel);
+      }
+      try {
+        for (SelectionKey key : selector.keys()) {
+          if (key.attachment() != null) {
+            end(key);
+          }
+        }
+        selector.close();
+      } catch (IOException | ClosedSelectorException e) {
+        //nothing left to do with the selector
+      }
+    }
+  }
+
+  private void end(SelectionKey key) {
+    key.cancel();
+    end((SocketChannel) key.channel());
+  }
+
+  private void end(SocketChannel channel) {
+    if (!channel.isOpen()) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      //nothing left to do with the channel
+    }
+    sessionCount.decrementAndGet();
+  }
+
+  /**
+   * This class represents the session of one player: the bytes of the line being received, the
+   * answer being sent and the dungeon.
+   */
+  private final class Connection {
+    private final SocketChannel channel;
+    private final ByteBuffer in;
+    private final ByteBuffer[] out;
+    private Dungeon dungeon;
+    private boolean ending;
+    private long lastActive;
+
+    private Connection(SocketChannel channel) {
+      this.channel = channel;
+      this.in = ByteBuffer.allocate(MAX_LINE);
+      this.out = new ByteBuffer[3];
+      this.lastActive = System.nanoTime();
+    }
+
+    private boolean writing() {
+      for (ByteBuffer buffer : out) {
+        if (buffer != null && buffer.hasRemaining()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void read(SelectionKey key) throws IOException {
+      int read = channel.read(in);
+      if (read < 0) {
+        end(key);
+        return;
+      }
+      lastActive = System.nanoTime();
+      processLines(key);
+    }
+
+    //answers the complete lines received until an answer cannot be written at once
+    private void processLines(SelectionKey key) throws IOException {
+      in.flip();
+      int start = 0;
+      for (int i = 0; i < in.limit() && !writing() && !ending; i++) {
+        if (in.get(i) == '\n') {
+          String line = new String(in.array(), start, i - start, StandardCharsets.UTF_8);
+          start = i + 1;
+          answer(key, line.trim());
+        }
+      }
+      in.position(start);
+      in.compact();
+      if (!in.hasRemaining() && !writing() && !ending) {
+        ending = true;
+        respond(key, EMPTY, EMPTY, StandardCharsets.UTF_8.encode("Line is too long\n"));
+      }
+    }
+
+    private void answer(SelectionKey key, String line) throws IOException {
+      if (line.isEmpty()) {
+        respond(key, EMPTY, EMPTY, StandardCharsets.UTF_8.encode(PROMPT));
+        return;
+      }
+      String[] words = line.split("\\s+");
+      if (words[0].equalsIgnoreCase("Q")) {
+        ending = true;
+        respond(key, EMPTY, EMPTY, StandardCharsets.UTF_8.encode("Game Quit!\n"));
+        return;
+      }
+      String text;
+      ICommandController command = null;
+      try {
+        command = parse(words);
+        text = "";
+      } catch (IllegalArgumentException e) {
+        text = e.getMessage();
+      }
+      if (dungeon == null) {
+        dungeon = settings.createDungeon(new SeededRandomizer(), null);
+      }
+      if (command != null) {
+        text = command.goCommand(dungeon);
+      }
+      String state;
+      if (dungeon.getPlayer().getHealth() <= 0) {
+        ending = true;
+        state = "\nPlayer is dead. Game Over!!\n";
+      } else if (dungeon.hasReachedEnd()) {
+        ending = true;
+        state = "\nPlayer has reached the destination location "
+                + dungeon.getPlayer().getCurrentLocation().getId() + ". Game Over!!\n";
+      } else {
+        state = "\n" + dungeon.getPlayerDescription() + dungeon.getLocationDescription()
+                + dungeon.getNextPossibleDescription() + "\nSmell: " + dungeon.checkSmell()
+                + "\nSoil Quality: " + dungeon.checkSoilType() + "\n";
+      }
+      respond(key, StandardCharsets.UTF_8.encode(text),
+              StandardCharsets.UTF_8.encode(state),
+              StandardCharsets.UTF_8.encode(ending ? "" : PROMPT));
+    }
+
+    //null for looking around
+    private ICommandController parse(String[] words) throws IllegalArgumentException {
+      String command = words[0].toUpperCase();
+      if (command.equals("L") && words.length == 1) {
+        return null;
+      } else if (command.equals("M") && words.length == 2) {
+        return new Move(words[1]);
+      } else if (command.equals("P") && words.length == 2) {
+        if (words[1].equalsIgnoreCase("A")) {
+          return new PickArrow();
+        } else if (words[1].equalsIgnoreCase("T")) {
+          return new PickTreasure();
+        }
+      } else if (command.equals("S") && words.length == 3) {
+        int dist;
+        try {
+          dist = Integer.parseInt(words[1]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid input for dist");
+        }
+        //a long shot round the loops of a wrapping dungeon would hold up the selector thread
+        if (dist > MAX_SHOT) {
+          throw new IllegalArgumentException("Distance should be at most " + MAX_SHOT);
+        }
+        return new Shoot(dist, words[2]);
+      }
+      throw new IllegalArgumentException("Invalid entry.");
+    }
+
+    //the answer goes out in one gathering write, the rest of it once the channel has room
+    private void respond(SelectionKey key, ByteBuffer text, ByteBuffer state, ByteBuffer prompt)
+            throws IOException {
+      out[0] = text;
+      out[1] = state;
+      out[2] = prompt;
+      write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+      if (channel.write(out) > 0) {
+        lastActive = System.nanoTime();
+      }
+      if (writing()) {
+        key.interestOps(SelectionKey.OP_WRITE);
+        return;
+      }
+      out[0] = null;
+      out[1] = null;
+      out[2] = null;
+      if (ending) {
+        end(key);
+        return;
+      }
+      key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void timeOut(SelectionKey key) {
+      try {
+        if (!writing()) {
+          ending = true;
+          respond(key, EMPTY, EMPTY, StandardCharsets.UTF_8.encode("\nSession timed out\n"));
+          return;
+        }
+      } catch (IOException | RuntimeException e) {
+        //the player is gone
+      }
+      end(key);
+    }
+
+    private void fail(SelectionKey key, RuntimeException failure) {
+      try {
+        if (key.isValid() && !writing()) {
+          ending = true;
+          respond(key, EMPTY, EMPTY, StandardCharsets.UTF_8.encode("\nGame failed: "
+                  + failure.getMessage() + "\n"));
+          return;
+        }
+      } catch (IOException | RuntimeException e) {
+        //the player is gone
+      }
+      end(key);
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package dungeon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import controller.CommandController;
+import randomizer.SeededRandomizer;
+
+/**
+ * <P>
+ *   This class represents a server playing the text game with many players over TCP on the
+ *   local machine. Every connection gets its own dungeon and its own game, played by the same
+ *   {@link CommandController} that plays the game on the console, with the socket as its input
+ *   and output.
+ * </P>
+ * <P>
+ *   Every session runs on its own virtual thread when the runtime has virtual threads, so
+ *   thousands of waiting players do not need thousands of platform threads. On an older runtime
+ *   every session runs on a platform thread of a cached pool, and the session limit keeps the
+ *   number of busy threads at most the number of sessions. A session that does not send
+ *   anything for the idle timeout is ended, and a connection over the session limit is told the
+ *   server is full and closed.
+ * </P>
+ */
+public class DungeonServer implements Closeable {
+
+  private final ServerSocket serverSocket;
+  private final DungeonSettings settings;
+  private final int idleTimeoutMillis;
+  private final Semaphore slots;
+  private final Map<Long, Session> sessions;
+  private final AtomicLong nextId;
+  private final ExecutorService executor;
+  private Thread acceptor;
+
+  /**
+   * This class represents the connection of one player.
+   */
+  private static final class Session {
+    private final long id;
+    private final Socket socket;
+
+    private Session(long id, Socket socket) {
+      this.id = id;
+      this.socket = socket;
+    }
+  }
+
+  /**
+   * Constructs a server listening on the loopback address. The server accepts players once it
+   * is started.
+   *
+   * @param port              the port to listen on, 0 for any free port
+   * @param settings          the settings of the dungeon of every session
+   * @param maxSessions       the most sessions played at the same time
+   * @param idleTimeoutMillis the time in milliseconds a session can wait for its player
+   * @throws IllegalArgumentException when the settings are null or a limit is not positive
+   * @throws IOException              when the port cannot be listened on
+   */
+  public DungeonServer(int port, DungeonSettings settings, int maxSessions,
+                       int idleTimeoutMillis) throws IllegalArgumentException, IOException {
+    if (settings == null) {
+      throw new IllegalArgumentException("Settings cannot be null");
+    }
+    if (maxSessions < 1 || idleTimeoutMillis < 1) {
+      throw new IllegalArgumentException("Session limit and idle timeout must be positive");
+    }
+    this.settings = settings;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.slots = new Semaphore(maxSessions);
+    this.sessions = new ConcurrentHashMap<>();
+    this.nextId = new AtomicLong();
+    this.executor = sessionExecutor();
+    this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+  }
+
+  /**
+   * This is the entry point of the server.
+   *
+   * @param args the port, the most sessions and the idle timeout in seconds, followed by the
+   *             rows, columns, interconnectivity, treasure percent, wrapping, monster count,
+   *             thief count, pit count and moving monster count of the dungeons
+   */
+  public static void main(String[] args) {
+    try {
+      if (args.length < 12) {
+        throw new IllegalArgumentException("Usage: port sessions idle-seconds rows columns "
+                + "interconnectivity treasure wrapping monsters thieves pits moving");
+      }
+      DungeonSettings settings = new DungeonSettings(Integer.parseInt(args[3]),
+              Integer.parseInt(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6]),
+              Boolean.parseBoolean(args[7]), Integer.parseInt(args[8]),
+              Integer.parseInt(args[9]), Integer.parseInt(args[10]),
+              Integer.parseInt(args[11]));
+      DungeonServer server = new DungeonServer(Integer.parseInt(args[0]), settings,
+              Integer.parseInt(args[1]), Integer.parseInt(args[2]) * 1000);
+      server.start();
+      System.out.println("Listening on port " + server.getPort());
+      server.awaitClose();
+    } catch (IllegalArgumentException | IOException e) {
+      System.out.println(e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  //virtual threads when the runtime has them, one platform thread per session otherwise
+  private static ExecutorService sessionExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      //the session limit bounds the sessions, a slot is free again before its thread is, so
+      //a pool bounded as well could turn away a session admitted in that moment
+      return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+              new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "dungeon-session");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+  }
+
+  /**
+   * This method starts accepting players on a background thread.
+   *
+   * @throws IllegalStateException when the server has been started already
+   */
+  public synchronized void start() throws IllegalStateException {
+    if (acceptor != null) {
+      throw new IllegalStateException("Server has been started already");
+    }
+    acceptor = new Thread(this::acceptPlayers, "dungeon-server");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * This method waits until the server has been closed and stops accepting players. The threads
+   * of the server do not keep the program running, so a program serving players waits here.
+   *
+   * @throws IllegalStateException when the server has not been started
+   * @throws InterruptedException  when the waiting thread is interrupted
+   */
+  public void awaitClose() throws IllegalStateException, InterruptedException {
+    Thread thread;
+    synchronized (this) {
+      thread = acceptor;
+    }
+    if (thread == null) {
+      throw new IllegalStateException("Server has not been started");
+    }
+    thread.join();
+  }
+
+  /**
+   * This method gives the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * This method gives the number of sessions being played.
+   *
+   * @return the number of sessions
+   */
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * This method stops accepting players and ends every session.
+   *
+   * @throws IOException when the server socket cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    List<Session> open = new ArrayList<>(sessions.values());
+    for (Session session : open) {
+      closeQuietly(session.socket);
+    }
+    executor.shutdown();
+  }
+
+  private void acceptPlayers() {
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        //the server socket has been closed
+        return;
+      }
+      if (!slots.tryAcquire()) {
+        reject(socket);
+        continue;
+      }
+      Session session = new Session(nextId.incrementAndGet(), socket);
+      sessions.put(session.id, session);
+      //a close that came after the accept may not have seen the session, so it is ended here
+      if (serverSocket.isClosed()) {
+        endSession(session);
+        return;
+      }
+      try {
+        executor.execute(() -> play(session));
+      } catch (RuntimeException e) {
+        //the executor is shut down
+        endSession(session);
+      }
+    }
+  }
+
+  private void reject(Socket socket) {
+    try (Writer writer = new OutputStreamWriter(socket.getOutputStream(),
+            StandardCharsets.UTF_8)) {
+      writer.write("Server is full, try again later\n");
+    } catch (IOException e) {
+      //the player is gone already
+    } finally {
+      closeQuietly(socket);
+    }
+  }
+
+  private void play(Session session) {
+    try {
+      session.socket.setSoTimeout(idleTimeoutMillis);
+      SessionStream stream = new SessionStream(session.socket);
+      Dungeon dungeon = settings.createDungeon(new SeededRandomizer(), null);
+      try {
+        new CommandController(stream, stream).play(dungeon);
+      } catch (RuntimeException e) {
+        //the input ended in the middle of a command
+      }
+      if (stream.timedOut) {
+        stream.append("\nSession timed out");
+      }
+      stream.append("\n");
+      stream.flush();
+    } catch (IOException | RuntimeException e) {
+      //the player is gone, or the settings of the server are invalid
+    } finally {
+      endSession(session);
+    }
+  }
+
+  private void endSession(Session session) {
+    closeQuietly(session.socket);
+    sessions.remove(session.id);
+    slots.release();
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      //nothing left to do with the socket
+    }
+  }
+
+  //the input and the output of a session, the output is sent before waiting for input
+  private static final class SessionStream implements Readable, Appendable {
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+    private boolean timedOut;
+
+    private SessionStream(Socket socket) throws IOException {
+      reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+              StandardCharsets.UTF_8));
+      writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+              StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int read(CharBuffer cb) throws IOException {
+      writer.flush();
+      try {
+        return reader.read(cb);
+      } catch (SocketTimeoutException e) {
+        timedOut = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      writer.append(csq);
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      writer.append(csq, start, end);
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      writer.append(c);
+      return this;
+    }
+
+    private void flush() throws IOException {
+      writer.flush();
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package dungeon;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+
+import randomizer.Randomizer;
+
+/**
+ * This class represents the parameters a dungeon is created from. Two settings with the same
+ * parameters are equal, so the settings can be used as a key for dungeons created ahead of time.
+ */
+public final class DungeonSettings {
+
+  private final int rows;
+  private final int columns;
+  private final int interconnectivity;
+  private final int treasurePercent;
+  private final boolean wrapping;
+  private final int monsterCount;
+  private final int thiefCount;
+  private final int pitCount;
+  private final int movingMonsterCount;
+
+  /**
+   * Constructs the settings of a dungeon. The values are checked when a dungeon is created.
+   *
+   * @param rows               the no of rows of the dungeon
+   * @param columns            the no of columns of the dungeon
+   * @param interconnectivity  the interconnectivity of the dungeon
+   * @param treasurePercent    the treasure percent of the dungeon
+   * @param wrapping           the wrapping status of the dungeon
+   * @param monsterCount       the number of monsters in the dungeon
+   * @param thiefCount         the number of thieves in the dungeon
+   * @param pitCount           the number of pits in the dungeon
+   * @param movingMonsterCount the number of moving monsters in the dungeon
+   */
+  public DungeonSettings(int rows, int columns, int interconnectivity, int treasurePercent,
+                         boolean wrapping, int monsterCount, int thiefCount, int pitCount,
+                         int movingMonsterCount) {
+    this.rows = rows;
+    this.columns = columns;
+    this.interconnectivity = interconnectivity;
+    this.treasurePercent = treasurePercent;
+    this.wrapping = wrapping;
+    this.monsterCount = monsterCount;
+    this.thiefCount = thiefCount;
+    this.pitCount = pitCount;
+    this.movingMonsterCount = movingMonsterCount;
+  }
+
+  /**
+   * This method gives the number of locations of a dungeon created from the settings.
+   *
+   * @return the number of locations
+   */
+  public long getLocationCount() {
+    return (long) rows * columns;
+  }
+
+  /**
+   * This method creates a dungeon from the settings.
+   *
+   * @param randomizer the randomizer of the dungeon
+   * @param monitor    the monitor of the creation, may be null
+   * @return the new dungeon
+   * @throws IllegalArgumentException when the settings or the randomizer are invalid
+   * @throws CancellationException    when the monitor cancels the creation
+   */
+  public Dungeon createDungeon(Randomizer randomizer, GenerationMonitor monitor)
+          throws IllegalArgumentException, CancellationException {
+    return new DungeonImpl(rows, columns, interconnectivity, treasurePercent, wrapping,
+            monsterCount, thiefCount, pitCount, movingMonsterCount, randomizer, monitor);
+  }
+
+  /**
+   * This method writes the settings into the buffer, the wrapping status as a byte and the
+   * other parameters as ints.
+   *
+   * @param out the buffer to write to
+   */
+  void write(ByteBuffer out) {
+    out.putInt(rows);
+    out.putInt(columns);
+    out.putInt(interconnectivity);
+    out.putInt(treasurePercent);
+    out.put((byte) (wrapping ? 1 : 0));
+    out.putInt(monsterCount);
+    out.putInt(thiefCount);
+    out.putInt(pitCount);
+    out.putInt(movingMonsterCount);
+  }
+
+  /**
+   * This method reads settings written by {@link #write}.
+   *
+   * @param in the buffer to read from
+   * @return the settings
+   */
+  static DungeonSettings read(ByteBuffer in) {
+    int rows = in.getInt();
+    int columns = in.getInt();
+    int interconnectivity = in.getInt();
+    int treasurePercent = in.getInt();
+    boolean wrapping = in.get() != 0;
+    return new DungeonSettings(rows, columns, interconnectivity, treasurePercent, wrapping,
+            in.getInt(), in.getInt(), in.getInt(), in.getInt());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof DungeonSettings)) {
+      return false;
+    }
+    DungeonSettings that = (DungeonSettings) o;
+    return rows == that.rows && columns == that.columns
+            && interconnectivity == that.interconnectivity
+            && treasurePercent == that.treasurePercent && wrapping == that.wrapping
+            && monsterCount == that.monsterCount && thiefCount == that.thiefCount
+            && pitCount == that.pitCount && movingMonsterCount == that.movingMonsterCount;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(rows, columns, interconnectivity, treasurePercent, wrapping,
+            monsterCount, thiefCount, pitCount, movingMonsterCount);
+  }
+
+  @Override
+  public String toString() {
+    return rows + "x" + columns + (wrapping ? " wrapping" : " non-wrapping")
+            + ", interconnectivity " + interconnectivity + ", treasure " + treasurePercent
+            + "%, monsters " + monsterCount + ", thieves " + thiefCount + ", pits " + pitCount
+            + ", moving monsters " + movingMonsterCount;
+  }
+}
@@ -0,0 +1,358 @@
+package dungeon;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <P>
+ *   This class represents a dungeon saved to a file in a compact binary format. The file starts
+ *   with a header holding the parameters of the dungeon, the seed of its randomizer, the start
+ *   and end caves and the state of the player. The paths of every location follow as one byte
+ *   per location, then the state of the locations when the dungeon was created, used for
+ *   restarting the game, and the state of the locations now. The state of the locations is kept
+ *   one column after the other, so every column is read with a bulk copy from a file mapped into
+ *   memory instead of location by location.
+ * </P>
+ * <P>
+ *   All the numbers are little endian. The header is:
+ *   magic (int), version (short), flags (short, bit 0 wrapping, bit 1 seed present), rows,
+ *   columns, interconnectivity, treasure percent, monster count, thief count, pit count, moving
+ *   monster count, moving monsters left (ints), seed (long), start cave, end cave, player
+ *   location, player health, player arrows and the number of player treasures (ints), followed
+ *   by one byte per player treasure.
+ * </P>
+ */
+public final class DungeonSnapshot {
+
+  //"DNGN" read as a little endian int
+  private static final int MAGIC = 0x4E474E44;
+  private static final short VERSION = 1;
+  private static final int WRAPPING = 1;
+  private static final int SEEDED = 1 << 1;
+  private static final int HEADER_SIZE = 76;
+  private static final Treasure[] TREASURES = Treasure.values();
+
+  private final int rows;
+  private final int columns;
+  private final int interconnectivity;
+  private final int treasurePercent;
+  private final boolean wrapping;
+  private final int monsterCount;
+  private final int thiefCount;
+  private final int pitCount;
+  private final int movingMonsterCount;
+  private final int movingMonstersLeft;
+  private final boolean seeded;
+  private final long seed;
+  private final int startId;
+  private final int endId;
+  private final int playerLocation;
+  private final int playerHealth;
+  private final int playerArrows;
+  private final List<Treasure> playerTreasures;
+  private final GridTopology topology;
+  private final DungeonGrid initialGrid;
+  private final DungeonGrid grid;
+
+  /**
+   * Constructs the snapshot of the state of a dungeon. The grids are not copied, so the dungeon
+   * must not change until the snapshot is written.
+   *
+   * @param rows               the no of rows of the dungeon
+   * @param columns            the no of columns of the dungeon
+   * @param interconnectivity  the interconnectivity of the dungeon
+   * @param treasurePercent    the treasure percent of the dungeon
+   * @param wrapping           the wrapping status of the dungeon
+   * @param monsterCount       the number of monsters in the dungeon
+   * @param thiefCount         the number of thieves in the dungeon
+   * @param pitCount           the number of pits in the dungeon
+   * @param movingMonsterCount the number of moving monsters in the dungeon
+   * @param movingMonstersLeft the number of moving monsters not killed yet
+   * @param seeded             if the randomizer of the dungeon has a known seed
+   * @param seed               the seed of the randomizer of the dungeon
+   * @param startId            the id of the start cave
+   * @param endId              the id of the end cave
+   * @param player             the player of the dungeon
+   * @param initialGrid        the state of the locations when the dungeon was created
+   * @param grid               the state of the locations now
+   */
+  DungeonSnapshot(int rows, int columns, int interconnectivity, int treasurePercent,
+                  boolean wrapping, int monsterCount, int thiefCount, int pitCount,
+                  int movingMonsterCount, int movingMonstersLeft, boolean seeded, long seed,
+                  int startId, int endId, Player player, DungeonGrid initialGrid,
+                  DungeonGrid grid) {
+    this.rows = rows;
+    this.columns = columns;
+    this.interconnectivity = interconnectivity;
+    this.treasurePercent = treasurePercent;
+    this.wrapping = wrapping;
+    this.monsterCount = monsterCount;
+    this.thiefCount = thiefCount;
+    this.pitCount = pitCount;
+    this.movingMonsterCount = movingMonsterCount;
+    this.movingMonstersLeft = movingMonstersLeft;
+    this.seeded = seeded;
+    this.seed = seed;
+    this.startId = startId;
+    this.endId = endId;
+    this.playerLocation = player.getCurrentLocation().getId();
+    this.playerHealth = player.getHealth();
+    this.playerArrows = player.getArrowCount();
+    this.playerTreasures = player.getTreasureList();
+    this.topology = grid.getTopology();
+    this.initialGrid = initialGrid;
+    this.grid = grid;
+  }
+
+  //reads everything after the magic and the version, which are checked already
+  private DungeonSnapshot(ByteBuffer in) throws IllegalArgumentException {
+    int flags = in.getShort();
+    rows = in.getInt();
+    columns = in.getInt();
+    interconnectivity = in.getInt();
+    treasurePercent = in.getInt();
+    monsterCount = in.getInt();
+    thiefCount = in.getInt();
+    pitCount = in.getInt();
+    movingMonsterCount = in.getInt();
+    movingMonstersLeft = in.getInt();
+    seed = in.getLong();
+    startId = in.getInt();
+    endId = in.getInt();
+    playerLocation = in.getInt();
+    playerHealth = in.getInt();
+    playerArrows = in.getInt();
+    int treasureCount = in.getInt();
+    wrapping = (flags & WRAPPING) != 0;
+    seeded = (flags & SEEDED) != 0;
+    if (treasureCount < 0 || treasureCount > in.remaining()) {
+      throw new IllegalArgumentException("Player treasure count " + treasureCount
+              + " is invalid");
+    }
+    playerTreasures = new ArrayList<>(treasureCount);
+    for (int i = 0; i < treasureCount; i++) {
+      int treasure = in.get();
+      if (treasure < 0 || treasure >= TREASURES.length) {
+        throw new IllegalArgumentException("Unknown treasure " + treasure);
+      }
+      playerTreasures.add(TREASURES[treasure]);
+    }
+    if (rows < 1 || columns < 1 || (long) rows * columns > in.remaining()) {
+      //checked before the arrays of the locations are allocated
+      throw new IllegalArgumentException("Grid of " + rows + " x " + columns + " is invalid");
+    }
+    topology = new GridTopology(rows, columns, wrapping);
+    int size = topology.size();
+    checkId(startId, size, "Start cave");
+    checkId(endId, size, "End cave");
+    checkId(playerLocation, size, "Player location");
+    topology.readMasks(in);
+    initialGrid = new DungeonGrid(topology);
+    initialGrid.read(in);
+    grid = new DungeonGrid(topology);
+    grid.read(in);
+  }
+
+  /**
+   * This method saves the dungeon to a file, replacing the file when it exists.
+   *
+   * @param dungeon the dungeon to save
+   * @param file    the file to save the dungeon to
+   * @throws IllegalArgumentException when the dungeon or the file is null, or the dungeon was
+   *                                  not created by this program
+   * @throws IOException              when the file cannot be written
+   */
+  public static void save(Dungeon dungeon, Path file)
+          throws IllegalArgumentException, IOException {
+    if (!(dungeon instanceof DungeonImpl)) {
+      throw new IllegalArgumentException("Only a created dungeon can be saved");
+    }
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    ((DungeonImpl) dungeon).snapshot().write(file);
+  }
+
+  /**
+   * This method loads a dungeon saved by {@link #save}. The dungeon continues with a randomizer
+   * seeded from the seed of the saved dungeon, so the moves of the monsters and the thieves after
+   * loading are repeatable but do not continue the ones of the saved game.
+   *
+   * @param file the file to load the dungeon from
+   * @return the loaded dungeon
+   * @throws IllegalArgumentException when the file is null
+   * @throws IOException              when the file cannot be read or is not a valid snapshot
+   */
+  public static Dungeon load(Path file) throws IllegalArgumentException, IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE) {
+        throw new IOException(file + " is not a dungeon snapshot");
+      }
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(file + " is too large for a dungeon snapshot");
+      }
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      in.order(ByteOrder.LITTLE_ENDIAN);
+      if (in.getInt() != MAGIC) {
+        throw new IOException(file + " is not a dungeon snapshot");
+      }
+      short version = in.getShort();
+      if (version != VERSION) {
+        throw new IOException("Version " + version + " of " + file + " is not supported");
+      }
+      DungeonSnapshot snapshot;
+      try {
+        snapshot = new DungeonSnapshot(in);
+      } catch (BufferUnderflowException e) {
+        throw new IOException(file + " is truncated", e);
+      } catch (IllegalArgumentException e) {
+        throw new IOException(file + " is corrupt: " + e.getMessage(), e);
+      }
+      if (in.hasRemaining()) {
+        throw new IOException(file + " has unexpected data after the dungeon");
+      }
+      return new DungeonImpl(snapshot);
+    }
+  }
+
+  private static void checkId(int id, int size, String name) throws IllegalArgumentException {
+    if (id < 0 || id >= size) {
+      throw new IllegalArgumentException(name + " " + id + " is not a location");
+    }
+  }
+
+  private void write(Path file) throws IOException {
+    long size = HEADER_SIZE + playerTreasures.size() + topology.size()
+            + initialGrid.byteSize() + grid.byteSize();
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Dungeon is too large to be saved");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      out.order(ByteOrder.LITTLE_ENDIAN);
+      out.putInt(MAGIC);
+      out.putShort(VERSION);
+      out.putShort((short) ((wrapping ? WRAPPING : 0) | (seeded ? SEEDED : 0)));
+      out.putInt(rows);
+      out.putInt(columns);
+      out.putInt(interconnectivity);
+      out.putInt(treasurePercent);
+      out.putInt(monsterCount);
+      out.putInt(thiefCount);
+      out.putInt(pitCount);
+      out.putInt(movingMonsterCount);
+      out.putInt(movingMonstersLeft);
+      out.putLong(seed);
+      out.putInt(startId);
+      out.putInt(endId);
+      out.putInt(playerLocation);
+      out.putInt(playerHealth);
+      out.putInt(playerArrows);
+      out.putInt(playerTreasures.size());
+      for (Treasure treasure : playerTreasures) {
+        out.put((byte) treasure.ordinal());
+      }
+      topology.writeMasks(out);
+      initialGrid.write(out);
+      grid.write(out);
+      out.force();
+    }
+  }
+
+  int getRows() {
+    return rows;
+  }
+
+  int getColumns() {
+    return columns;
+  }
+
+  int getInterconnectivity() {
+    return interconnectivity;
+  }
+
+  int getTreasurePercent() {
+    return treasurePercent;
+  }
+
+  boolean isWrapping() {
+    return wrapping;
+  }
+
+  int getMonsterCount() {
+    return monsterCount;
+  }
+
+  int getThiefCount() {
+    return thiefCount;
+  }
+
+  int getPitCount() {
+    return pitCount;
+  }
+
+  int getMovingMonsterCount() {
+    return movingMonsterCount;
+  }
+
+  int getMovingMonstersLeft() {
+    return movingMonstersLeft;
+  }
+
+  boolean isSeeded() {
+    return seeded;
+  }
+
+  long getSeed() {
+    return seed;
+  }
+
+  int getStartId() {
+    return startId;
+  }
+
+  int getEndId() {
+    return endId;
+  }
+
+  int getPlayerLocation() {
+    return playerLocation;
+  }
+
+  int getPlayerHealth() {
+    return playerHealth;
+  }
+
+  int getPlayerArrows() {
+    return playerArrows;
+  }
+
+  List<Treasure> getPlayerTreasures() {
+    return new ArrayList<>(playerTreasures);
+  }
+
+  GridTopology getTopology() {
+    return topology;
+  }
+
+  DungeonGrid getInitialGrid() {
+    return initialGrid;
+  }
+
+  DungeonGrid getGrid() {
+    return grid;
+  }
+}
@@ -0,0 +1,137 @@
+package dungeon;
+
+import java.util.Arrays;
+
+/**
+ * Citation for the Code:
+ * https://www.techiedelight.com/kruskals-algorithm-for-finding-minimum-spanning-tree/
+ * This class represents the edges of a dungeon with their source, destination, and weight. The
+ * edges are packed into primitive arrays instead of one object per edge, the source and the
+ * destination of an edge share a single long and the weight is kept in a parallel int array.
+ */
+class EdgeBuffer {
+
+  private long[] ends;
+  private int[] weights;
+  private int size;
+
+  /**
+   * Constructs an empty edge buffer.
+   *
+   * @param capacity this parameter takes the expected number of edges
+   * @throws IllegalArgumentException when the capacity is negative
+   */
+  EdgeBuffer(int capacity) throws IllegalArgumentException {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity of the edges cannot be negative");
+    }
+    ends = new long[capacity];
+    weights = new int[capacity];
+    size = 0;
+  }
+
+  /**
+   * This method adds a new edge at the end of the buffer.
+   *
+   * @param src    the source of the edge
+   * @param dest   the destination of the edge
+   * @param weight the weight of the edge
+   */
+  void add(int src, int dest, int weight) {
+    if (size == ends.length) {
+      int capacity = Math.max(16, size * 2);
+      ends = Arrays.copyOf(ends, capacity);
+      weights = Arrays.copyOf(weights, capacity);
+    }
+    ends[size] = ((long) src << 32) | (dest & 0xFFFFFFFFL);
+    weights[size] = weight;
+    size++;
+  }
+
+  /**
+   * This method adds the edge at the given index of another buffer to this buffer.
+   *
+   * @param other the buffer which holds the edge
+   * @param index the index of the edge in the other buffer
+   */
+  void add(EdgeBuffer other, int index) {
+    add(other.getSrc(index), other.getDest(index), other.getWeight(index));
+  }
+
+  int size() {
+    return size;
+  }
+
+  int getSrc(int index) {
+    return (int) (ends[index] >>> 32);
+  }
+
+  int getDest(int index) {
+    return (int) ends[index];
+  }
+
+  int getWeight(int index) {
+    return weights[index];
+  }
+
+  /**
+   * This method sorts the edges by their weight. The sort is stable, edges with the same weight
+   * keep the order in which they were added. The weights of a dungeon come from a small range,
+   * so a counting sort is used which runs in linear time, only a wide range of weights falls back
+   * to a comparison sort.
+   */
+  void sortByWeight() {
+    if (size < 2) {
+      return;
+    }
+    int min = weights[0];
+    int max = weights[0];
+    for (int i = 1; i < size; i++) {
+      min = Math.min(min, weights[i]);
+      max = Math.max(max, weights[i]);
+    }
+    if (min == max) {
+      return;
+    }
+    long range = (long) max - min + 1;
+    if (range > Math.max(size, 1024)) {
+      sortByWeightWideRange();
+      return;
+    }
+
+    int[] start = new int[(int) range + 1];
+    for (int i = 0; i < size; i++) {
+      start[weights[i] - min + 1]++;
+    }
+    for (int i = 1; i < start.length; i++) {
+      start[i] += start[i - 1];
+    }
+    long[] sortedEnds = new long[size];
+    int[] sortedWeights = new int[size];
+    for (int i = 0; i < size; i++) {
+      int position = start[weights[i] - min]++;
+      sortedEnds[position] = ends[i];
+      sortedWeights[position] = weights[i];
+    }
+    ends = sortedEnds;
+    weights = sortedWeights;
+  }
+
+  private void sortByWeightWideRange() {
+    //the index in the lower bits keeps equal weights in insertion order
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = ((long) weights[i] << 32) | i;
+    }
+    Arrays.sort(keys);
+    long[] sortedEnds = new long[size];
+    int[] sortedWeights = new int[size];
+    for (int i = 0; i < size; i++) {
+      int index = (int) keys[i];
+      sortedEnds[i] = ends[index];
+      sortedWeights[i] = weights[index];
+    }
+    ends = sortedEnds;
+    weights = sortedWeights;
+  }
+}
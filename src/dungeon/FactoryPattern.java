@@ -19,14 +19,14 @@ public class FactoryPattern {
   }
 
   /**
-   * This method creates a new edge object.
+   * This method creates a new edge with a random weight and adds it to the edge buffer.
    *
+   * @param edges the buffer to which the edge is added
    * @param source the source of the edge
    * @param destination the destination of the edge
-   * @return the new Edge object
    */
-  public Edge createEdge(int source, int destination) {
-    return new Edge(source, destination, randomizer.getNextInt(3, 9));
+  void createEdge(EdgeBuffer edges, int source, int destination) {
+    edges.add(source, destination, randomizer.getNextInt(3, 9));
   }
 
   public Location createLocation(int id, int rows, int columns) {
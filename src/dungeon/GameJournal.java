@@ -0,0 +1,468 @@
+package dungeon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import randomizer.SeededRandomizer;
+
+/**
+ * <P>
+ *   This class represents the append-only journal of a game. The journal starts with the
+ *   settings of the dungeon and the seed of its randomizer, and then records every action of the
+ *   player, followed by every number the randomizer draws for the action. The records are
+ *   collected in a buffer and written to the file when the buffer is full or the journal is
+ *   flushed, so recording an action costs a few bytes of memory and no system call.
+ * </P>
+ * <P>
+ *   Replaying creates the dungeon again from the settings and the seed and repeats the actions.
+ *   The numbers drawn while replaying are checked against the recorded ones, so a game that no
+ *   longer follows its journal is reported where it first differs. A journal cut short by a crash
+ *   is replayed up to its last complete record, and can be resumed from there.
+ * </P>
+ * <P>
+ *   The file starts with the magic (int), the version (short), the settings and the seed (long),
+ *   all little endian. A record starts with a byte holding its kind in the low 3 bits and, for a
+ *   move or a shot, the direction above them. A shot is followed by its distance and a draw by
+ *   the number drawn, both as unsigned variable length ints of 7 bits per byte.
+ * </P>
+ */
+public final class GameJournal implements Closeable {
+
+  //"DJNL" read as a little endian int
+  private static final int MAGIC = 0x4C4E4A44;
+  private static final short VERSION = 1;
+  private static final int HEADER_SIZE = 47;
+  private static final int BUFFER_SIZE = 1 << 16;
+  //the longest record, a kind byte and a 5 byte number
+  private static final int MAX_RECORD_SIZE = 6;
+  private static final int MOVE = 1;
+  private static final int PICK_TREASURE = 2;
+  private static final int PICK_ARROW = 3;
+  private static final int SHOOT = 4;
+  private static final int DRAW = 5;
+  private static final int KIND_MASK = 7;
+  private static final int DIRECTION_SHIFT = 3;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Path file;
+  private final DungeonImpl dungeon;
+  private final FileChannel channel;
+  private final ByteBuffer out;
+  private ByteBuffer in;
+  private boolean replaying;
+  private int validLength;
+  private IOException failure;
+
+  //the channel is null when the journal is only replayed
+  private GameJournal(Path file, DungeonImpl dungeon, FileChannel channel) {
+    this.file = file;
+    this.dungeon = dungeon;
+    this.channel = channel;
+    this.out = channel == null ? null
+            : ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * This method creates a dungeon from the settings and the seed and starts recording its game
+   * in a new journal, replacing the file when it exists.
+   *
+   * @param file     the file of the journal
+   * @param settings the settings of the dungeon
+   * @param seed     the seed of the randomizer of the dungeon
+   * @return the journal, whose dungeon is played with {@link #getDungeon()}
+   * @throws IllegalArgumentException when the file or the settings are null or invalid
+   * @throws IOException              when the file cannot be written
+   */
+  public static GameJournal create(Path file, DungeonSettings settings, long seed)
+          throws IllegalArgumentException, IOException {
+    if (file == null || settings == null) {
+      throw new IllegalArgumentException("File and settings of the journal cannot be null");
+    }
+    DungeonImpl dungeon = (DungeonImpl) settings.createDungeon(new SeededRandomizer(seed), null);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    GameJournal journal = new GameJournal(file, dungeon, channel);
+    journal.out.putInt(MAGIC);
+    journal.out.putShort(VERSION);
+    settings.write(journal.out);
+    journal.out.putLong(seed);
+    try {
+      journal.flush();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    dungeon.setJournal(journal);
+    return journal;
+  }
+
+  /**
+   * This method rebuilds the game recorded in a journal.
+   *
+   * @param file the file of the journal
+   * @return the dungeon in the state the journal ends in
+   * @throws IllegalArgumentException when the file is null
+   * @throws IOException              when the file cannot be read or is not a journal
+   * @throws IllegalStateException    when the game no longer follows the journal
+   */
+  public static Dungeon replay(Path file)
+          throws IllegalArgumentException, IOException, IllegalStateException {
+    return open(file, false).dungeon;
+  }
+
+  /**
+   * This method rebuilds the game recorded in a journal and goes on recording it. A record cut
+   * short by a crash is dropped from the file.
+   *
+   * @param file the file of the journal
+   * @return the journal, whose dungeon is played with {@link #getDungeon()}
+   * @throws IllegalArgumentException when the file is null
+   * @throws IOException              when the file cannot be read or is not a journal
+   * @throws IllegalStateException    when the game no longer follows the journal
+   */
+  public static GameJournal resume(Path file)
+          throws IllegalArgumentException, IOException, IllegalStateException {
+    return open(file, true);
+  }
+
+  /**
+   * This method replays many journals on a pool of threads and waits until all of them are
+   * replayed. The dungeons are handed to the listener as soon as they are rebuilt, so they do not
+   * all have to be kept in memory.
+   *
+   * @param files    the files of the journals
+   * @param threads  the number of journals replayed at the same time
+   * @param listener the receiver of the rebuilt dungeons and the errors
+   * @throws IllegalArgumentException when the files or the listener are null or the number of
+   *                                  threads is not positive
+   * @throws InterruptedException     when the waiting thread is interrupted
+   */
+  public static void replayAll(List<Path> files, int threads, ReplayListener listener)
+          throws IllegalArgumentException, InterruptedException {
+    if (files == null || listener == null) {
+      throw new IllegalArgumentException("Files and listener cannot be null");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "journal-replay");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      for (Path file : files) {
+        executor.execute(() -> {
+          Dungeon dungeon;
+          try {
+            dungeon = replay(file);
+          } catch (IOException | RuntimeException e) {
+            listener.failed(file, e);
+            return;
+          }
+          listener.replayed(file, dungeon);
+        });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static GameJournal open(Path file, boolean resume)
+          throws IllegalArgumentException, IOException, IllegalStateException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    FileChannel channel = resume
+            ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer in = read(file, channel);
+      DungeonSettings settings = DungeonSettings.read(in);
+      long seed = in.getLong();
+      DungeonImpl dungeon;
+      try {
+        dungeon = (DungeonImpl) settings.createDungeon(new SeededRandomizer(seed), null);
+      } catch (IllegalArgumentException e) {
+        throw new IOException(file + " has invalid settings: " + e.getMessage(), e);
+      }
+      GameJournal journal = new GameJournal(file, dungeon, resume ? channel : null);
+      journal.replayRecords(in);
+      if (resume) {
+        //anything after the last complete record is dropped, new records go after it
+        channel.truncate(journal.validLength);
+        channel.position(journal.validLength);
+        dungeon.setJournal(journal);
+      } else {
+        channel.close();
+      }
+      return journal;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  //reads the whole journal and checks that it is one, the buffer is left after the version
+  private static ByteBuffer read(Path file, FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      throw new IOException(file + " is not a game journal");
+    }
+    if (channel.size() > Integer.MAX_VALUE) {
+      throw new IOException(file + " is too large for a game journal");
+    }
+    ByteBuffer in = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+    while (in.hasRemaining() && channel.read(in) >= 0) {
+      //reads until the buffer is full
+    }
+    in.flip();
+    if (in.getInt() != MAGIC) {
+      throw new IOException(file + " is not a game journal");
+    }
+    short version = in.getShort();
+    if (version != VERSION) {
+      throw new IOException("Version " + version + " of " + file + " is not supported");
+    }
+    return in;
+  }
+
+  private void replayRecords(ByteBuffer records) throws IllegalStateException {
+    in = records;
+    validLength = in.position();
+    replaying = true;
+    dungeon.setJournal(this);
+    try {
+      while (in != null && in.hasRemaining()) {
+        int start = in.position();
+        int record = in.get();
+        switch (record & KIND_MASK) {
+          case MOVE:
+            validLength = in.position();
+            dungeon.move(directionOf(record), null);
+            break;
+          case PICK_TREASURE:
+            validLength = in.position();
+            dungeon.takeTreasure();
+            break;
+          case PICK_ARROW:
+            validLength = in.position();
+            dungeon.takeArrow();
+            break;
+          case SHOOT:
+            long distance = readNumber();
+            if (distance < 0) {
+              //cut short by a crash
+              in = null;
+              break;
+            }
+            if (distance < 1 || distance > Integer.MAX_VALUE) {
+              throw new IllegalStateException("Unexpected distance " + distance + " at byte "
+                      + start + " of " + file);
+            }
+            validLength = in.position();
+            dungeon.shoot(directionOf(record), (int) distance, null);
+            break;
+          default:
+            throw new IllegalStateException("Unexpected record " + record + " at byte " + start
+                    + " of " + file);
+        }
+      }
+    } finally {
+      in = null;
+      replaying = false;
+      dungeon.setJournal(null);
+    }
+  }
+
+  private static Direction directionOf(int record) {
+    return DIRECTIONS[(record >> DIRECTION_SHIFT) & 3];
+  }
+
+  /**
+   * This method gives the dungeon whose game is recorded.
+   *
+   * @return the dungeon
+   */
+  public Dungeon getDungeon() {
+    return dungeon;
+  }
+
+  /**
+   * This method writes the recorded actions to the file. The actions survive a crash of the
+   * program once they are flushed.
+   *
+   * @throws IOException when the file could not be written, now or while recording
+   */
+  public void flush() throws IOException {
+    if (failure == null) {
+      writeBuffer();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * This method flushes the journal and stops recording the game.
+   *
+   * @throws IOException when the file could not be written
+   */
+  @Override
+  public void close() throws IOException {
+    dungeon.setJournal(null);
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * This method records a move of the player.
+   *
+   * @param direction the direction of the move
+   */
+  void recordMove(Direction direction) {
+    recordAction(MOVE | direction.ordinal() << DIRECTION_SHIFT);
+  }
+
+  /**
+   * This method records the player picking up treasure.
+   */
+  void recordPickTreasure() {
+    recordAction(PICK_TREASURE);
+  }
+
+  /**
+   * This method records the player picking up an arrow.
+   */
+  void recordPickArrow() {
+    recordAction(PICK_ARROW);
+  }
+
+  /**
+   * This method records the player shooting an arrow.
+   *
+   * @param direction the direction of the shot
+   * @param distance  the distance of the shot
+   */
+  void recordShot(Direction direction, int distance) {
+    if (recordAction(SHOOT | direction.ordinal() << DIRECTION_SHIFT)) {
+      writeNumber(distance);
+    }
+  }
+
+  /**
+   * This method records a number drawn by the randomizer of the dungeon. While replaying, the
+   * number is checked against the recorded one instead.
+   *
+   * @param value the number drawn
+   * @throws IllegalStateException when the replayed game draws a different number
+   */
+  void recordDraw(int value) throws IllegalStateException {
+    if (in != null && !in.hasRemaining()) {
+      in = null;
+    }
+    if (in != null) {
+      int start = in.position();
+      int record = in.get();
+      if ((record & KIND_MASK) != DRAW) {
+        throw new IllegalStateException("Game draws " + value + " at byte " + start + " of "
+                + file + " where an action is recorded");
+      }
+      long recorded = readNumber();
+      if (recorded < 0) {
+        //cut short by a crash, the numbers drawn from here on are recorded again
+        in = null;
+      } else if ((int) recorded != value) {
+        throw new IllegalStateException("Game draws " + value + " at byte " + start + " of "
+                + file + " where " + (int) recorded + " is recorded");
+      } else {
+        validLength = in.position();
+        return;
+      }
+    }
+    if (out != null && failure == null) {
+      reserve();
+      out.put((byte) DRAW);
+      writeNumber(value);
+    }
+  }
+
+  /**
+   * This method records the numbers drawn by the randomizer of the dungeon in one go.
+   *
+   * @param values the numbers drawn
+   * @throws IllegalStateException when the replayed game draws different numbers
+   */
+  void recordDraws(int[] values) throws IllegalStateException {
+    for (int value : values) {
+      recordDraw(value);
+    }
+  }
+
+  //the actions being replayed are already in the journal
+  private boolean recordAction(int record) {
+    if (replaying || out == null || failure != null) {
+      return false;
+    }
+    reserve();
+    out.put((byte) record);
+    return true;
+  }
+
+  private void reserve() {
+    if (out.remaining() < MAX_RECORD_SIZE) {
+      writeBuffer();
+    }
+  }
+
+  //an error is kept for flush and close, so the game itself is never stopped by the journal
+  private void writeBuffer() {
+    out.flip();
+    try {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    } catch (IOException e) {
+      failure = e;
+    }
+    out.clear();
+  }
+
+  private void writeNumber(int value) {
+    while ((value & ~0x7F) != 0) {
+      out.put((byte) (value & 0x7F | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  //gives -1 when the number is cut short
+  private long readNumber() {
+    long value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (!in.hasRemaining()) {
+        return -1;
+      }
+      int b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value & 0xFFFFFFFFL;
+      }
+    }
+    throw new IllegalStateException("Number longer than 5 bytes at byte " + in.position()
+            + " of " + file);
+  }
+}
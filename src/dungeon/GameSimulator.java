@@ -0,0 +1,176 @@
+package dungeon;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import randomizer.SeededRandomizer;
+
+/**
+ * <P>
+ *   This class plays many games with bots on a fork-join pool to find out how the settings of a
+ *   dungeon play. The games are split into ranges which are played in parallel, and the counts
+ *   of the ranges are added up.
+ * </P>
+ * <P>
+ *   Every game has its own seed computed from the seed of the simulation and the number of the
+ *   game, and its dungeon and its bot draw only from randomizers started from that seed. The
+ *   games do not share anything, so the outcome of a simulation is the same for the same seed
+ *   whatever the number of threads and the order the games are played in.
+ * </P>
+ */
+public class GameSimulator {
+
+  //games played one after the other by a single task
+  private static final int GAMES_PER_TASK = 16;
+  //spreads consecutive game numbers over unrelated seeds
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final DungeonSettings settings;
+  private final Supplier<? extends BotPolicy> bots;
+  private final int maxTurns;
+
+  /**
+   * Constructs a simulator of games of dungeons created from the settings.
+   *
+   * @param settings the settings of the dungeons
+   * @param bots     creates the bot of every game
+   * @param maxTurns the most turns of a game, a game still going is counted as out of turns
+   * @throws IllegalArgumentException when the settings or the bots are null or the number of
+   *                                  turns is not positive
+   */
+  public GameSimulator(DungeonSettings settings, Supplier<? extends BotPolicy> bots,
+                       int maxTurns) throws IllegalArgumentException {
+    if (settings == null || bots == null) {
+      throw new IllegalArgumentException("Settings and bots cannot be null");
+    }
+    if (maxTurns < 1) {
+      throw new IllegalArgumentException("Turns of a game must be positive");
+    }
+    this.settings = settings;
+    this.bots = bots;
+    this.maxTurns = maxTurns;
+  }
+
+  /**
+   * This method plays the games on the pool and waits for all of them.
+   *
+   * @param seed  the seed of the simulation
+   * @param games the number of games
+   * @param pool  the pool playing the games
+   * @return the outcome of the games
+   * @throws IllegalArgumentException when the number of games is negative, the pool is null or
+   *                                  the settings are invalid
+   */
+  public SimulationResult run(long seed, long games, ForkJoinPool pool)
+          throws IllegalArgumentException {
+    if (games < 0) {
+      throw new IllegalArgumentException("Number of games cannot be negative");
+    }
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    long start = System.nanoTime();
+    Tally tally = pool.invoke(new Games(this, seed, 0, games));
+    return new SimulationResult(games, tally.wins, tally.pitDeaths, tally.monsterDeaths,
+            tally.timeouts, tally.moves, tally.treasures, tally.hits,
+            System.nanoTime() - start);
+  }
+
+  /**
+   * This method gives the seed of one game of a simulation.
+   *
+   * @param seed the seed of the simulation
+   * @param game the number of the game
+   * @return the seed of the dungeon of the game
+   */
+  static long gameSeed(long seed, long game) {
+    return mix(seed + (game + 1) * GOLDEN_GAMMA);
+  }
+
+  //the finalizer of SplitMix64
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private void play(long gameSeed, Tally tally) {
+    DungeonImpl dungeon = (DungeonImpl) settings.createDungeon(new SeededRandomizer(gameSeed),
+            null);
+    BotTurn turn = new BotTurn(dungeon, new SeededRandomizer(mix(gameSeed)));
+    BotPolicy bot = bots.get();
+    for (int i = 0; i < maxTurns && !turn.isOver(); i++) {
+      bot.playTurn(turn);
+    }
+    Player player = dungeon.getLivePlayer();
+    if (player.getHealth() <= 0) {
+      if (player.getCurrentLocation().isContainsPit()) {
+        tally.pitDeaths++;
+      } else {
+        tally.monsterDeaths++;
+      }
+    } else if (dungeon.hasReachedEnd()) {
+      tally.wins++;
+    } else {
+      tally.timeouts++;
+    }
+    tally.moves += turn.getMoves();
+    tally.treasures += turn.getTreasures();
+    tally.hits += turn.getHits();
+  }
+
+  //the counts of a range of games
+  private static final class Tally {
+    private long wins;
+    private long pitDeaths;
+    private long monsterDeaths;
+    private long timeouts;
+    private long moves;
+    private long treasures;
+    private long hits;
+
+    private Tally add(Tally other) {
+      wins += other.wins;
+      pitDeaths += other.pitDeaths;
+      monsterDeaths += other.monsterDeaths;
+      timeouts += other.timeouts;
+      moves += other.moves;
+      treasures += other.treasures;
+      hits += other.hits;
+      return this;
+    }
+  }
+
+  //plays the games from one number up to another, splitting the range while it is large
+  private static final class Games extends RecursiveTask<Tally> {
+    private static final long serialVersionUID = 1L;
+    private final transient GameSimulator simulator;
+    private final long seed;
+    private final long from;
+    private final long to;
+
+    private Games(GameSimulator simulator, long seed, long from, long to) {
+      this.simulator = simulator;
+      this.seed = seed;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Tally compute() {
+      if (to - from <= GAMES_PER_TASK) {
+        Tally tally = new Tally();
+        for (long game = from; game < to; game++) {
+          simulator.play(gameSeed(seed, game), tally);
+        }
+        return tally;
+      }
+      long middle = (from + to) >>> 1;
+      Games first = new Games(simulator, seed, from, middle);
+      first.fork();
+      Tally second = new Games(simulator, seed, middle, to).compute();
+      return first.join().add(second);
+    }
+  }
+}
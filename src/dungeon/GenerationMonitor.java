@@ -0,0 +1,23 @@
+package dungeon;
+
+/**
+ * This interface represents an observer of the creation of a dungeon. It is told when each
+ * phase of the creation starts and is asked between the phases if the creation should stop, so
+ * a dungeon created on a worker thread can show its progress and be cancelled.
+ */
+public interface GenerationMonitor {
+
+  /**
+   * This method is called when a phase of the creation starts.
+   *
+   * @param phase the phase starting
+   */
+  void phaseStarted(GenerationPhase phase);
+
+  /**
+   * This method tells if the creation should stop.
+   *
+   * @return true if the creation should stop
+   */
+  boolean isCancelled();
+}
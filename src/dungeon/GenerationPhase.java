@@ -0,0 +1,26 @@
+package dungeon;
+
+/**
+ * This is an enumeration for the phases of creating a dungeon, in the order they are run.
+ */
+public enum GenerationPhase {
+  EDGES("Listing the possible paths"),
+  SPANNING_TREE("Building the spanning tree"),
+  INTERCONNECTIVITY("Adding the extra paths"),
+  PLACEMENT("Placing treasures, arrows and creatures");
+
+  private final String description;
+
+  GenerationPhase(String description) {
+    this.description = description;
+  }
+
+  /**
+   * This method gives the description of the phase that can be shown to the user.
+   *
+   * @return the description of the phase
+   */
+  public String getDescription() {
+    return description;
+  }
+}
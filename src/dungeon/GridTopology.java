@@ -0,0 +1,219 @@
+package dungeon;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents the paths between the locations of a dungeon grid. The paths leaving a
+ * location are kept as a 4 bit mask in a single byte per location, one bit for each direction,
+ * and the id of the neighbor in a direction is computed from the row and column of the location,
+ * wrapping around the edges of the grid for a wrapping dungeon.
+ */
+class GridTopology {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final int rows;
+  private final int columns;
+  private final boolean wrapping;
+  private final byte[] masks;
+
+  /**
+   * Constructs a grid without any paths between the locations.
+   *
+   * @param rows     the number of rows in the grid
+   * @param columns  the number of columns in the grid
+   * @param wrapping if the paths can wrap around the edges of the grid
+   * @throws IllegalArgumentException when the number of rows or columns is not positive
+   */
+  GridTopology(int rows, int columns, boolean wrapping) throws IllegalArgumentException {
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("Rows and columns of the grid must be positive");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.wrapping = wrapping;
+    this.masks = new byte[Math.multiplyExact(rows, columns)];
+  }
+
+  int size() {
+    return masks.length;
+  }
+
+  int getRows() {
+    return rows;
+  }
+
+  int getColumns() {
+    return columns;
+  }
+
+  /**
+   * This method adds a path between two locations which are next to each other in the grid. The
+   * direction of the path is found from the rows and the columns of the two locations, and the
+   * path can be taken both ways.
+   *
+   * @param src  the id of the first location
+   * @param dest the id of the second location
+   * @throws IllegalArgumentException when the locations are not next to each other
+   */
+  void connect(int src, int dest) throws IllegalArgumentException {
+    for (Direction direction : DIRECTIONS) {
+      if (gridNeighbor(src, direction) == dest) {
+        masks[src] |= bit(direction);
+        masks[dest] |= bit(opposite(direction));
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Locations " + src + " and " + dest
+            + " are not next to each other");
+  }
+
+  /**
+   * This method adds a path leaving a location in the given direction only.
+   *
+   * @param id        the id of the location
+   * @param direction the direction of the path
+   * @param dest      the id of the location the path leads to
+   * @throws IllegalArgumentException when the location is not next to the other one in the
+   *                                  given direction
+   */
+  void addPath(int id, Direction direction, int dest) throws IllegalArgumentException {
+    if (gridNeighbor(id, direction) != dest) {
+      throw new IllegalArgumentException("Location " + dest + " is not " + direction
+              + " of location " + id);
+    }
+    masks[id] |= bit(direction);
+  }
+
+  /**
+   * This method gives the paths leaving the location.
+   *
+   * @param id the id of the location
+   * @return the paths as a bit mask, see {@link #bit(Direction)}
+   */
+  int getMask(int id) {
+    return masks[id];
+  }
+
+  /**
+   * This method writes the paths of every location into the buffer, one mask byte per location.
+   *
+   * @param out the buffer to write to
+   */
+  void writeMasks(ByteBuffer out) {
+    out.put(masks);
+  }
+
+  /**
+   * This method reads the paths of every location written by {@link #writeMasks}, replacing the
+   * paths of this grid.
+   *
+   * @param in the buffer to read from
+   * @throws IllegalArgumentException when a path leaves the grid of a dungeon that does not wrap
+   */
+  void readMasks(ByteBuffer in) throws IllegalArgumentException {
+    in.get(masks);
+    for (int id = 0; id < masks.length; id++) {
+      int mask = masks[id];
+      for (Direction direction : DIRECTIONS) {
+        if ((mask & bit(direction)) != 0 && gridNeighbor(id, direction) >= 0) {
+          mask &= ~bit(direction);
+        }
+      }
+      if (mask != 0) {
+        throw new IllegalArgumentException("Location " + id + " has a path leaving the grid");
+      }
+    }
+  }
+
+  /**
+   * This method gives the number of paths leaving the location.
+   *
+   * @param id the id of the location
+   * @return the number of paths
+   */
+  int degree(int id) {
+    return Integer.bitCount(masks[id]);
+  }
+
+  /**
+   * This method gives the neighbor reached by moving from the location in the direction.
+   *
+   * @param id        the id of the location
+   * @param direction the direction to move in
+   * @return the id of the neighbor, -1 when there is no path in that direction
+   */
+  int neighbor(int id, Direction direction) {
+    return (masks[id] & bit(direction)) == 0 ? -1 : gridNeighbor(id, direction);
+  }
+
+  /**
+   * This method gives the neighbor in the direction ordinal, used by the searches which walk
+   * over all four directions.
+   *
+   * @param id        the id of the location
+   * @param direction the ordinal of the direction
+   * @return the id of the neighbor, -1 when there is no path in that direction
+   */
+  int neighbor(int id, int direction) {
+    return neighbor(id, DIRECTIONS[direction]);
+  }
+
+  //the location next to the given one in the grid, whether or not there is a path to it
+  private int gridNeighbor(int id, Direction direction) {
+    int row = id / columns;
+    int column = id % columns;
+    switch (direction) {
+      case NORTH:
+        row--;
+        break;
+      case SOUTH:
+        row++;
+        break;
+      case EAST:
+        column++;
+        break;
+      case WEST:
+        column--;
+        break;
+      default:
+        return -1;
+    }
+    if (wrapping) {
+      row = Math.floorMod(row, rows);
+      column = Math.floorMod(column, columns);
+    } else if (row < 0 || row >= rows || column < 0 || column >= columns) {
+      return -1;
+    }
+    return row * columns + column;
+  }
+
+  /**
+   * This method gives the bit of the direction in a path mask.
+   *
+   * @param direction the direction
+   * @return the bit of the direction
+   */
+  static int bit(Direction direction) {
+    return 1 << direction.ordinal();
+  }
+
+  /**
+   * This method gives the direction which leads back.
+   *
+   * @param direction the direction
+   * @return the opposite direction
+   */
+  static Direction opposite(Direction direction) {
+    switch (direction) {
+      case NORTH:
+        return Direction.SOUTH;
+      case SOUTH:
+        return Direction.NORTH;
+      case EAST:
+        return Direction.WEST;
+      default:
+        return Direction.EAST;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package dungeon;
+
+/**
+ * This class represents a bot that hunts the Otyughs. On every turn when it smells an Otyugh
+ * next to it and still has arrows, it shoots one arrow along a random path before it walks on
+ * like a {@link RandomWalkBot}.
+ */
+public class HunterBot implements BotPolicy {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void playTurn(BotTurn turn) {
+    turn.pickTreasure();
+    turn.pickArrow();
+    if (turn.getSmell() == SmellType.HIGH_PUNGENT && turn.getArrowCount() > 0) {
+      turn.shoot(RandomWalkBot.randomPath(turn), 1);
+    }
+    turn.move(RandomWalkBot.randomPath(turn));
+  }
+}
@@ -0,0 +1,202 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * This class represents the smell of the Otyughs and the soil quality around the pits for every
+ * location of the dungeon. For each location it keeps the number of live Otyughs and pits one
+ * move away and the number of distinct ones at most two moves away, so the smell and soil quality
+ * at a location is a lookup in small primitive arrays. The counts are computed once after the
+ * creatures are placed and patched only around a location when an Otyugh dies.
+ */
+class InfluenceMap {
+
+  private static final int DIRECTIONS = Direction.values().length;
+
+  private final int size;
+  private final int[] incomingStart;
+  private final int[] incoming;
+  private final byte[] otyughNear;
+  private final byte[] otyughFar;
+  private final byte[] pitNear;
+  private final byte[] pitFar;
+
+  /**
+   * Constructs the influence map from the neighbors, the Otyughs and the pits of the given
+   * locations.
+   *
+   * @param locationList the locations of the dungeon, the index of a location is its id
+   * @throws IllegalArgumentException when the list of locations is null
+   */
+  InfluenceMap(List<Location> locationList) throws IllegalArgumentException {
+    if (locationList == null) {
+      throw new IllegalArgumentException("List of locations cannot be null");
+    }
+    size = locationList.size();
+
+    //the locations from which a move leads into each location, grouped by target id
+    int[] neighbors = new int[size * DIRECTIONS];
+    Arrays.fill(neighbors, -1);
+    incomingStart = new int[size + 1];
+    for (int i = 0; i < size; i++) {
+      for (Direction direction : Direction.values()) {
+        Location neighbor = locationList.get(i).getNeighbor(direction);
+        if (neighbor != null) {
+          neighbors[i * DIRECTIONS + direction.ordinal()] = neighbor.getId();
+          incomingStart[neighbor.getId() + 1]++;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      incomingStart[i + 1] += incomingStart[i];
+    }
+    incoming = new int[incomingStart[size]];
+    int[] next = Arrays.copyOf(incomingStart, size);
+    for (int i = 0; i < neighbors.length; i++) {
+      if (neighbors[i] >= 0) {
+        incoming[next[neighbors[i]]++] = i / DIRECTIONS;
+      }
+    }
+
+    otyughNear = new byte[size];
+    otyughFar = new byte[size];
+    pitNear = new byte[size];
+    pitFar = new byte[size];
+    for (Location location : locationList) {
+      if (location.getMonsterType() == CreatureType.OTUYGH && location.getMonsterHealth() > 0) {
+        spread(location.getId(), otyughNear, otyughFar, 1);
+      }
+      if (location.isContainsPit()) {
+        spread(location.getId(), pitNear, pitFar, 1);
+      }
+    }
+  }
+
+  /**
+   * Constructs a copy of the given influence map. The paths between the locations and the pits
+   * never change and are shared, only the counts of the Otyughs are copied.
+   *
+   * @param other the influence map to copy
+   * @throws IllegalArgumentException when the influence map to copy is null
+   */
+  InfluenceMap(InfluenceMap other) throws IllegalArgumentException {
+    if (other == null) {
+      throw new IllegalArgumentException("Influence map to copy cannot be null");
+    }
+    size = other.size;
+    incomingStart = other.incomingStart;
+    incoming = other.incoming;
+    otyughNear = other.otyughNear.clone();
+    otyughFar = other.otyughFar.clone();
+    pitNear = other.pitNear;
+    pitFar = other.pitFar;
+  }
+
+  /**
+   * This method removes the smell of an Otyugh that has been killed.
+   *
+   * @param id the location of the Otyugh
+   */
+  void removeOtyugh(int id) {
+    spread(id, otyughNear, otyughFar, -1);
+  }
+
+  /**
+   * This method gives the smell at the location.
+   *
+   * @param id the location id
+   * @return the type of smell
+   */
+  SmellType smellAt(int id) {
+    return smellOf(otyughNear[id], otyughFar[id]);
+  }
+
+  /**
+   * This method gives the smell of the Otyughs counted around a location.
+   *
+   * @param near the Otyughs one move away, once for every path
+   * @param far  the distinct Otyughs two moves away
+   * @return the type of smell
+   */
+  static SmellType smellOf(int near, int far) {
+    if (near > 0 || far > 1) {
+      return SmellType.HIGH_PUNGENT;
+    } else if (far == 1) {
+      return SmellType.LESS_PUNGENT;
+    }
+    return SmellType.ODOURLESS;
+  }
+
+  /**
+   * This method gives the soil quality at the location.
+   *
+   * @param id the location id
+   * @return the soil quality
+   */
+  SoilQuality soilAt(int id) {
+    return soilOf(pitNear[id], pitFar[id]);
+  }
+
+  /**
+   * This method gives the soil quality of the pits counted around a location.
+   *
+   * @param near the pits one move away, once for every path
+   * @param far  the distinct pits two moves away
+   * @return the soil quality
+   */
+  static SoilQuality soilOf(int near, int far) {
+    if (near > 0) {
+      return SoilQuality.DENSE;
+    } else if (far > 0) {
+      return SoilQuality.POROUS;
+    }
+    return SoilQuality.NONE;
+  }
+
+  private void spread(int source, byte[] near, byte[] far, int delta) {
+    reach(source, id -> near[id] += delta, id -> far[id] += delta);
+  }
+
+  /**
+   * This method gives every location that reaches the source in one move to the first consumer,
+   * once for every path, and every distinct location that reaches it in two moves to the second
+   * one. These are the locations the smell of an Otyugh or the soil of a pit at the source is
+   * counted at.
+   *
+   * @param source the location of the Otyugh or the pit
+   * @param near   receives the locations one move away
+   * @param far    receives the locations two moves away
+   */
+  void reach(int source, IntConsumer near, IntConsumer far) {
+    //a location has a few neighbors only, so the distinct ones are found in a short array
+    int total = 0;
+    for (int i = incomingStart[source]; i < incomingStart[source + 1]; i++) {
+      int neighbor = incoming[i];
+      total += incomingStart[neighbor + 1] - incomingStart[neighbor];
+    }
+    int[] counted = new int[total];
+    int count = 0;
+    for (int i = incomingStart[source]; i < incomingStart[source + 1]; i++) {
+      int neighbor = incoming[i];
+      near.accept(neighbor);
+      for (int j = incomingStart[neighbor]; j < incomingStart[neighbor + 1]; j++) {
+        int second = incoming[j];
+        if (!contains(counted, count, second)) {
+          counted[count++] = second;
+          far.accept(second);
+        }
+      }
+    }
+  }
+
+  private static boolean contains(int[] ids, int count, int id) {
+    for (int i = 0; i < count; i++) {
+      if (ids[i] == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,11 +1,6 @@
 package dungeon;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Citation for the code:
@@ -14,47 +9,25 @@ import java.util.Map;
  */
 class KruskalAlgo {
 
-  private Map<Integer, Integer> parent;
-
-  private void makeSet(int n) {
-    parent = new HashMap<Integer, Integer>();
-    for (int i = 0; i < n; i++) {
-      parent.put(i, i);
-    }
-  }
-
-  private int findRootOfSet(int k) {
-    if (parent.get(k) == k) {
-      return k;
-    }
-    return findRootOfSet(parent.get(k));
-  }
-
-  private void union(int a, int b) {
-    int x = findRootOfSet(a);
-    int y = findRootOfSet(b);
-    parent.put(x, y);
-  }
-
-  public List<Edge> kruskalAlgo(List<Edge> edges, int n) {
-    List<Edge> mst = new ArrayList<Edge>();
-    KruskalAlgo ds = new KruskalAlgo();
-    ds.makeSet(n);
-
-    int index = 0;
-    Collections.sort(edges, Comparator.comparingInt(e -> e.getWeight()));
-
-    while (true) {
-      if (mst.size() == n - 1) break;
-      Edge nextEdge = edges.get(index++);
-      int source = ds.findRootOfSet(nextEdge.getSrc());
-      int destination = ds.findRootOfSet(nextEdge.getDest());
-
-      if (source != destination) {
-        mst.add(nextEdge);
-        ds.union(source, destination);
+  /**
+   * This method sorts the given edges by weight and builds the minimum spanning tree over them.
+   *
+   * @param edges the edges of the dungeon, they are left sorted by weight
+   * @param n     the number of locations in the dungeon
+   * @return the indices of the spanning tree edges in the sorted edges, in increasing order
+   */
+  public int[] kruskalAlgo(EdgeBuffer edges, int n) {
+    int[] mst = new int[Math.max(n - 1, 0)];
+    int count = 0;
+    DisjointSet ds = new DisjointSet(n);
+
+    edges.sortByWeight();
+
+    for (int index = 0; count < mst.length && index < edges.size(); index++) {
+      if (ds.union(edges.getSrc(index), edges.getDest(index))) {
+        mst[count++] = index;
       }
     }
-    return new ArrayList<Edge>(mst);
+    return count == mst.length ? mst : Arrays.copyOf(mst, count);
   }
 }
@@ -34,6 +34,32 @@ public interface Location {
    */
   public Map<Direction, Location> getNeighbors();
 
+  /**
+   * This method checks if there is a path from the location in the given direction, without
+   * creating a copy of the neighbors.
+   *
+   * @param direction the direction to check
+   * @return true if there is a neighbor in the direction, false otherwise
+   */
+  public boolean hasNeighbor(Direction direction);
+
+  /**
+   * This method provides the neighbor location in the given direction, without creating a copy
+   * of the neighbors.
+   *
+   * @param direction the direction of the neighbor
+   * @return the neighbor location, null when there is no path in the direction
+   */
+  public Location getNeighbor(Direction direction);
+
+  /**
+   * This method provides the directions with a path from the location as a bit mask, where the
+   * bit {@code 1 << direction.ordinal()} is set for every direction with a neighbor.
+   *
+   * @return the bit mask of the directions with a neighbor
+   */
+  public int getNeighborMask();
+
   /**
    * This method adds the treasures to the list of treasures in the location.
    *
@@ -99,6 +125,22 @@ public interface Location {
    */
   public Creature getMonster();
 
+  /**
+   * This method gives the type of the monster at the location without creating the monster
+   * object.
+   *
+   * @return the type of the monster, null when the location has no monster
+   */
+  public CreatureType getMonsterType();
+
+  /**
+   * This method gives the health of the monster at the location without creating the monster
+   * object.
+   *
+   * @return the health of the monster, 0 when the location has no monster
+   */
+  public int getMonsterHealth();
+
   /**
    * This method checks if the location has monsters.
    *
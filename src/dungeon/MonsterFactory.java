@@ -22,4 +22,25 @@ public class MonsterFactory {
         throw new IllegalArgumentException("Unexpected value of the monster type: ");
     }
   }
+
+  /**
+   * This method gives the monster of the type living at a location of the dungeon grid.
+   *
+   * @param monsterType take the creature type
+   * @param grid        the storage of the dungeon locations
+   * @param id          the location of the monster
+   * @return the creature object
+   * @throws IllegalArgumentException when the type entered is invalid
+   */
+  static Creature createMonster(CreatureType monsterType, DungeonGrid grid, int id)
+          throws IllegalArgumentException {
+    switch (monsterType) {
+      case MOVING_MONSTER:
+        return new MovingMonster(grid, id);
+      case OTUYGH:
+        return new Otyugh(grid, id);
+      default:
+        throw new IllegalArgumentException("Unexpected value of the monster type: ");
+    }
+  }
 }
@@ -6,6 +6,23 @@ package dungeon;
  */
 public class MovingMonster extends CreatureAbs {
 
+  /**
+   * Constructs a moving monster with health 100.
+   */
+  public MovingMonster() {
+    super();
+  }
+
+  /**
+   * Constructs a moving monster whose health is kept in the grid storage of its location.
+   *
+   * @param grid the storage of the dungeon locations
+   * @param id   the location of the monster in the grid
+   */
+  MovingMonster(DungeonGrid grid, int id) {
+    super(grid, id);
+  }
+
   @Override
   public CreatureType getMonsterType() {
     return CreatureType.MOVING_MONSTER;
@@ -0,0 +1,139 @@
+package dungeon;
+
+/**
+ * This class represents an index of the locations that are free to hold a roaming entity such as
+ * a thief or a moving monster. Membership is kept in a Fenwick tree over the location ids, so
+ * adding or removing a location and finding the location with a given rank among the free ones
+ * take logarithmic time. Ranks follow the order of the ids, which keeps a pick by rank
+ * reproducible for a fixed randomizer.
+ */
+class OccupancyIndex {
+
+  private final int[] tree;
+  private final boolean[] member;
+  private final int highestPowerOfTwo;
+  private int size;
+
+  /**
+   * Constructs an index where all the given locations are free.
+   *
+   * @param free the free status of every location indexed by id
+   * @throws IllegalArgumentException when the free status array is null
+   */
+  OccupancyIndex(boolean[] free) throws IllegalArgumentException {
+    if (free == null) {
+      throw new IllegalArgumentException("Free locations cannot be null");
+    }
+    int n = free.length;
+    member = free.clone();
+    tree = new int[n + 1];
+    for (int i = 1; i <= n; i++) {
+      if (member[i - 1]) {
+        tree[i]++;
+        size++;
+      }
+      int parent = i + (i & -i);
+      if (parent <= n) {
+        tree[parent] += tree[i];
+      }
+    }
+    highestPowerOfTwo = n == 0 ? 0 : Integer.highestOneBit(n);
+  }
+
+  /**
+   * Constructs a copy of the given index.
+   *
+   * @param other the index to copy
+   * @throws IllegalArgumentException when the index to copy is null
+   */
+  OccupancyIndex(OccupancyIndex other) throws IllegalArgumentException {
+    if (other == null) {
+      throw new IllegalArgumentException("Index to copy cannot be null");
+    }
+    tree = other.tree.clone();
+    member = other.member.clone();
+    highestPowerOfTwo = other.highestPowerOfTwo;
+    size = other.size;
+  }
+
+  /**
+   * This method gives the number of free locations.
+   *
+   * @return the number of free locations
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * This method checks if the location is free.
+   *
+   * @param id the id of the location
+   * @return true if the location is free, false otherwise
+   */
+  boolean contains(int id) {
+    return member[id];
+  }
+
+  /**
+   * This method marks the location as free.
+   *
+   * @param id the id of the location
+   * @return true if the location was not free before, false otherwise
+   */
+  boolean add(int id) {
+    if (member[id]) {
+      return false;
+    }
+    member[id] = true;
+    size++;
+    update(id, 1);
+    return true;
+  }
+
+  /**
+   * This method marks the location as not free.
+   *
+   * @param id the id of the location
+   * @return true if the location was free before, false otherwise
+   */
+  boolean remove(int id) {
+    if (!member[id]) {
+      return false;
+    }
+    member[id] = false;
+    size--;
+    update(id, -1);
+    return true;
+  }
+
+  /**
+   * This method gives the free location with the given rank, the free location with the lowest
+   * id has rank 0.
+   *
+   * @param rank the rank of the free location
+   * @return the id of the free location
+   * @throws IllegalArgumentException when the rank is not between 0 and size - 1
+   */
+  int select(int rank) throws IllegalArgumentException {
+    if (rank < 0 || rank >= size) {
+      throw new IllegalArgumentException("Rank " + rank + " is not between 0 and " + size);
+    }
+    int position = 0;
+    int remaining = rank;
+    for (int step = highestPowerOfTwo; step > 0; step >>= 1) {
+      int next = position + step;
+      if (next < tree.length && tree[next] <= remaining) {
+        position = next;
+        remaining -= tree[next];
+      }
+    }
+    return position;
+  }
+
+  private void update(int id, int delta) {
+    for (int i = id + 1; i < tree.length; i += i & -i) {
+      tree[i] += delta;
+    }
+  }
+}
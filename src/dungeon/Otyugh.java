@@ -6,6 +6,23 @@ package dungeon;
  */
 public class Otyugh extends CreatureAbs {
 
+  /**
+   * Constructs an Otyugh with health 100.
+   */
+  public Otyugh() {
+    super();
+  }
+
+  /**
+   * Constructs an Otyugh whose health is kept in the grid storage of its location.
+   *
+   * @param grid the storage of the dungeon locations
+   * @param id   the location of the monster in the grid
+   */
+  Otyugh(DungeonGrid grid, int id) {
+    super(grid, id);
+  }
+
   @Override
   public CreatureType getMonsterType() {
     return CreatureType.OTUYGH;
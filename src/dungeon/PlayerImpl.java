@@ -1,7 +1,6 @@
 package dungeon;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -54,6 +53,26 @@ public class PlayerImpl implements Player {
     this.health = player.getHealth();
   }
 
+  /**
+   * Constructs a player in the middle of a game, as it was when the game was saved.
+   *
+   * @param currentCave the location the player is in
+   * @param treasures   the treasures the player has collected
+   * @param arrowCount  the number of arrows the player has
+   * @param health      the health of the player
+   * @throws IllegalArgumentException when the location or the treasures are null
+   */
+  PlayerImpl(Location currentCave, List<Treasure> treasures, int arrowCount, int health)
+          throws IllegalArgumentException {
+    if (currentCave == null || treasures == null) {
+      throw new IllegalArgumentException("Location and treasures of the player cannot be null");
+    }
+    this.currentCave = currentCave;
+    this.treasureList = new ArrayList<>(treasures);
+    this.arrowCount = arrowCount;
+    this.health = health;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -79,10 +98,9 @@ public class PlayerImpl implements Player {
     if (direction == null) {
       throw new IllegalArgumentException("Direction cannot be null");
     }
-    Map<Direction, Location> neighborMap =
-            new HashMap<Direction, Location>(this.currentCave.getNeighbors());
-    if (neighborMap.containsKey(direction)) {
-      this.currentCave = neighborMap.get(direction);
+    Location neighbor = this.currentCave.getNeighbor(direction);
+    if (neighbor != null) {
+      this.currentCave = neighbor;
       return "Moved";
     }
     return "Not Moved";
@@ -0,0 +1,37 @@
+package dungeon;
+
+/**
+ * This class represents a bot that picks up everything it finds and moves along a random path
+ * from its location on every turn.
+ */
+public class RandomWalkBot implements BotPolicy {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void playTurn(BotTurn turn) {
+    turn.pickTreasure();
+    turn.pickArrow();
+    turn.move(randomPath(turn));
+  }
+
+  /**
+   * This method picks one of the paths leaving the player location at random.
+   *
+   * @param turn the game seen by the bot
+   * @return the direction of the path
+   */
+  static Direction randomPath(BotTurn turn) {
+    int mask = turn.getLocation().getNeighborMask();
+    int pick = turn.getRandomizer().nextIndex(Integer.bitCount(mask));
+    for (Direction direction : DIRECTIONS) {
+      if ((mask & GridTopology.bit(direction)) != 0 && pick-- == 0) {
+        return direction;
+      }
+    }
+    throw new IllegalStateException("Location " + turn.getLocation().getId() + " has no path");
+  }
+}
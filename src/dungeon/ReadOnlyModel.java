@@ -149,4 +149,32 @@ public interface ReadOnlyModel {
    * @return the moving monster count
    */
   public int getMovingMonsterCount();
+
+  /**
+   * This method gives the location with the given id without copying the list of locations.
+   *
+   * @param id the id of the location
+   * @return the location
+   * @throws IllegalArgumentException when there is no location with the id
+   */
+  public Location getLocation(int id) throws IllegalArgumentException;
+
+  /**
+   * This method gives the version of the last change to any location of the dungeon, such as
+   * the player moving, a thief or monster moving, a treasure or arrow picked up or a monster hit.
+   *
+   * @return the version of the last change
+   */
+  public long getChangeVersion();
+
+  /**
+   * This method gives the locations that have changed after the given version, so that only
+   * those locations have to be drawn again.
+   *
+   * @param version the version already seen, see {@link #getChangeVersion()}
+   * @return the ids of the changed locations in increasing order, null when the changes are not
+   *         known and the whole dungeon has to be read again
+   * @throws IllegalArgumentException when the version is not between 0 and the current version
+   */
+  public int[] getChangedLocations(long version) throws IllegalArgumentException;
 }
@@ -0,0 +1,27 @@
+package dungeon;
+
+import java.nio.file.Path;
+
+/**
+ * This interface represents the receiver of the results of replaying many game journals. The
+ * methods are called from the threads replaying the journals, one call for every journal.
+ */
+public interface ReplayListener {
+
+  /**
+   * This method is called with the dungeon rebuilt from a journal.
+   *
+   * @param journal the file of the journal
+   * @param dungeon the dungeon in the state the journal ends in
+   */
+  public void replayed(Path journal, Dungeon dungeon);
+
+  /**
+   * This method is called when a journal cannot be replayed.
+   *
+   * @param journal the file of the journal
+   * @param error   the reason, an IOException when the journal cannot be read and an
+   *                IllegalStateException when the game no longer follows the journal
+   */
+  public void failed(Path journal, Exception error);
+}
@@ -0,0 +1,327 @@
+package dungeon;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import randomizer.SeededRandomizer;
+
+/**
+ * <P>
+ *   This class represents one dungeon explored by many players at the same time, each playing on
+ *   its own thread. The paths, pits and thieves of the dungeon never change and are kept in
+ *   plain arrays read by every thread. The arrows, the treasures and the health of the monster
+ *   of every location are the only state the players change, and each of them is one int
+ *   changed with compare and swap, so two players picking up or shooting at the same location
+ *   never both get the same arrows, the same treasure or the same hit, and players at different
+ *   locations never wait for each other.
+ * </P>
+ * <P>
+ *   The three ints of a location are kept next to each other, so a pickup or a hit touches a
+ *   single cache line. Monsters do not move in a shared dungeon, a moving monster fights every
+ *   player entering its location until it is killed. The smell and the soil quality follow the
+ *   rules and the paths of the {@link InfluenceMap} of a dungeon played alone. The counts of
+ *   the Otyughs around every location are atomic and lowered by the one player whose hit kills
+ *   an Otyugh.
+ * </P>
+ */
+public final class SharedDungeon {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final Treasure[] TREASURES = Treasure.values();
+  private static final CreatureType[] CREATURE_TYPES = CreatureType.values();
+  private static final int ARROWS = 0;
+  private static final int TREASURE = 1;
+  private static final int HEALTH = 2;
+  private static final int STRIDE = 4;
+  private static final int START_ARROWS = 3;
+  private static final int START_HEALTH = 100;
+
+  private final int size;
+  private final int startId;
+  private final int endId;
+  private final int[] neighbors;
+  private final boolean[] caves;
+  private final boolean[] pits;
+  private final boolean[] thieves;
+  private final byte[] monsterTypes;
+  private final AtomicIntegerArray cells;
+  private final InfluenceMap influence;
+  //the Otyughs one move and two moves away from every location, next to each other
+  private final AtomicIntegerArray otyughCounts;
+  private final AtomicInteger playerCount;
+
+  /**
+   * Constructs a shared dungeon with the locations, the creatures and the items the given
+   * dungeon has now. The given dungeon is not changed by the players of the shared dungeon.
+   *
+   * @param dungeon the dungeon to share
+   * @throws IllegalArgumentException when the dungeon is null
+   */
+  public SharedDungeon(Dungeon dungeon) throws IllegalArgumentException {
+    if (dungeon == null) {
+      throw new IllegalArgumentException("Dungeon cannot be null");
+    }
+    size = dungeon.getRows() * dungeon.getColumns();
+    startId = dungeon.getStartCave().getId();
+    endId = dungeon.getEndCave().getId();
+    neighbors = new int[size * DIRECTIONS.length];
+    Arrays.fill(neighbors, -1);
+    caves = new boolean[size];
+    pits = new boolean[size];
+    thieves = new boolean[size];
+    monsterTypes = new byte[size];
+    cells = new AtomicIntegerArray(size * STRIDE);
+    otyughCounts = new AtomicIntegerArray(size * 2);
+    playerCount = new AtomicInteger();
+    influence = new InfluenceMap(dungeon.getLocationList());
+    for (int id = 0; id < size; id++) {
+      Location location = dungeon.getLocation(id);
+      for (Direction direction : DIRECTIONS) {
+        Location neighbor = location.getNeighbor(direction);
+        if (neighbor != null) {
+          neighbors[id * DIRECTIONS.length + direction.ordinal()] = neighbor.getId();
+        }
+      }
+      caves[id] = location.getLocationType() == LocationType.CAVE;
+      pits[id] = location.isContainsPit();
+      thieves[id] = location.isContainsThief();
+      int treasureMask = 0;
+      for (Treasure treasure : location.getTreasureList()) {
+        treasureMask |= 1 << treasure.ordinal();
+      }
+      cells.set(id * STRIDE + ARROWS, location.getArrow());
+      cells.set(id * STRIDE + TREASURE, treasureMask);
+      monsterTypes[id] = -1;
+      if (location.hasMonster()) {
+        monsterTypes[id] = (byte) location.getMonsterType().ordinal();
+        cells.set(id * STRIDE + HEALTH, location.getMonsterHealth());
+      }
+    }
+    for (int id = 0; id < size; id++) {
+      if (isLiveOtyugh(id)) {
+        influence.reach(id, near -> otyughCounts.getAndIncrement(near * 2),
+                far -> otyughCounts.getAndIncrement(far * 2 + 1));
+      }
+    }
+  }
+
+  /**
+   * This method adds a player at the start cave of the dungeon.
+   *
+   * @param seed the seed of the numbers drawn for the player
+   * @return the new player
+   */
+  public SharedPlayer join(long seed) {
+    return join(seed, startId);
+  }
+
+  /**
+   * This method adds a player at a location of the dungeon. Nothing happens to the player at
+   * that location before its first move.
+   *
+   * @param seed       the seed of the numbers drawn for the player
+   * @param locationId the location of the player
+   * @return the new player
+   * @throws IllegalArgumentException when the location does not exist
+   */
+  public SharedPlayer join(long seed, int locationId) throws IllegalArgumentException {
+    checkId(locationId);
+    playerCount.incrementAndGet();
+    return new SharedPlayer(this, new SeededRandomizer(seed), locationId, START_ARROWS,
+            START_HEALTH);
+  }
+
+  /**
+   * This method gives the number of players that have joined the dungeon.
+   *
+   * @return the number of players
+   */
+  public int getPlayerCount() {
+    return playerCount.get();
+  }
+
+  /**
+   * This method gives the number of locations of the dungeon.
+   *
+   * @return the number of locations
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * This method gives the id of the start cave.
+   *
+   * @return the id of the start cave
+   */
+  public int getStartId() {
+    return startId;
+  }
+
+  /**
+   * This method gives the id of the end cave.
+   *
+   * @return the id of the end cave
+   */
+  public int getEndId() {
+    return endId;
+  }
+
+  /**
+   * This method gives the arrows lying at a location.
+   *
+   * @param id the location id
+   * @return the number of arrows
+   * @throws IllegalArgumentException when the location does not exist
+   */
+  public int getArrows(int id) throws IllegalArgumentException {
+    checkId(id);
+    return cells.get(id * STRIDE + ARROWS);
+  }
+
+  /**
+   * This method gives the number of treasures lying at a location.
+   *
+   * @param id the location id
+   * @return the number of treasures
+   * @throws IllegalArgumentException when the location does not exist
+   */
+  public int getTreasureCount(int id) throws IllegalArgumentException {
+    checkId(id);
+    return Integer.bitCount(cells.get(id * STRIDE + TREASURE));
+  }
+
+  /**
+   * This method gives the monster at a location.
+   *
+   * @param id the location id
+   * @return the type of the monster, null when there is none
+   * @throws IllegalArgumentException when the location does not exist
+   */
+  public CreatureType getMonsterType(int id) throws IllegalArgumentException {
+    checkId(id);
+    return monsterTypes[id] < 0 ? null : CREATURE_TYPES[monsterTypes[id]];
+  }
+
+  /**
+   * This method gives the health of the monster at a location.
+   *
+   * @param id the location id
+   * @return the health of the monster, 0 when there is none
+   * @throws IllegalArgumentException when the location does not exist
+   */
+  public int getMonsterHealth(int id) throws IllegalArgumentException {
+    checkId(id);
+    return cells.get(id * STRIDE + HEALTH);
+  }
+
+  private void checkId(int id) throws IllegalArgumentException {
+    if (id < 0 || id >= size) {
+      throw new IllegalArgumentException("Location " + id + " does not exist");
+    }
+  }
+
+  /**
+   * This method gives the location one move away.
+   *
+   * @param id        the location id
+   * @param direction the direction of the move
+   * @return the id of the location, -1 when there is no path
+   */
+  int neighbor(int id, Direction direction) {
+    return neighbors[id * DIRECTIONS.length + direction.ordinal()];
+  }
+
+  boolean isCave(int id) {
+    return caves[id];
+  }
+
+  boolean hasPit(int id) {
+    return pits[id];
+  }
+
+  boolean hasThief(int id) {
+    return thieves[id];
+  }
+
+  boolean isEnd(int id) {
+    return id == endId;
+  }
+
+  /**
+   * This method takes all the arrows at a location.
+   *
+   * @param id the location id
+   * @return the number of arrows taken, 0 when another player took them first
+   */
+  int takeArrows(int id) {
+    return cells.getAndSet(id * STRIDE + ARROWS, 0);
+  }
+
+  /**
+   * This method takes all the treasures at a location.
+   *
+   * @param id the location id
+   * @return the bit mask of the treasures taken over the treasure ordinals
+   */
+  int takeTreasures(int id) {
+    return cells.getAndSet(id * STRIDE + TREASURE, 0);
+  }
+
+  /**
+   * This method hits the monster at a location if it is still alive.
+   *
+   * @param id     the location id
+   * @param damage the damage of the hit
+   * @return the health of the monster after the hit, -1 when there was no live monster to hit
+   */
+  int hitMonster(int id, int damage) {
+    int index = id * STRIDE + HEALTH;
+    while (true) {
+      int health = cells.get(index);
+      if (health <= 0) {
+        return -1;
+      }
+      int hit = Math.max(health - damage, 0);
+      if (cells.compareAndSet(index, health, hit)) {
+        if (hit == 0 && monsterTypes[id] == CreatureType.OTUYGH.ordinal()) {
+          influence.reach(id, near -> otyughCounts.getAndDecrement(near * 2),
+                  far -> otyughCounts.getAndDecrement(far * 2 + 1));
+        }
+        return hit;
+      }
+    }
+  }
+
+  /**
+   * This method gives the smell at a location from the Otyughs alive now, with the same rules
+   * as the smell of a dungeon played alone.
+   *
+   * @param id the location id
+   * @return the type of smell
+   */
+  SmellType smellAt(int id) {
+    return InfluenceMap.smellOf(otyughCounts.get(id * 2), otyughCounts.get(id * 2 + 1));
+  }
+
+  /**
+   * This method gives the soil quality at a location, with the same rules as the soil quality
+   * of a dungeon played alone.
+   *
+   * @param id the location id
+   * @return the soil quality
+   */
+  SoilQuality soilAt(int id) {
+    return influence.soilAt(id);
+  }
+
+  private boolean isLiveOtyugh(int id) {
+    return monsterTypes[id] == CreatureType.OTUYGH.ordinal()
+            && cells.get(id * STRIDE + HEALTH) > 0;
+  }
+
+  static Treasure[] treasures() {
+    return TREASURES;
+  }
+}
@@ -0,0 +1,240 @@
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import randomizer.Randomizer;
+
+/**
+ * This class represents a player of a {@link SharedDungeon}. A player is played by one thread
+ * at a time, while the other players of the dungeon are played on other threads. The location,
+ * the health, the arrows and the treasures of the player belong to it alone, only what lies at
+ * the locations and the monsters are shared with the other players.
+ */
+public final class SharedPlayer {
+
+  private static final int ARROW_DAMAGE = 50;
+  private static final int FULL_HEALTH = 100;
+
+  private final SharedDungeon dungeon;
+  private final Randomizer randomizer;
+  private final int[] treasures;
+  private int locationId;
+  private int arrows;
+  private int health;
+
+  /**
+   * Constructs a player of a shared dungeon.
+   *
+   * @param dungeon    the dungeon of the player
+   * @param randomizer draws the numbers of the fights of the player
+   * @param locationId the location of the player
+   * @param arrows     the arrows of the player
+   * @param health     the health of the player
+   */
+  SharedPlayer(SharedDungeon dungeon, Randomizer randomizer, int locationId, int arrows,
+               int health) {
+    this.dungeon = dungeon;
+    this.randomizer = randomizer;
+    this.treasures = new int[SharedDungeon.treasures().length];
+    this.locationId = locationId;
+    this.arrows = arrows;
+    this.health = health;
+  }
+
+  /**
+   * This method gives the location of the player.
+   *
+   * @return the location id
+   */
+  public int getLocationId() {
+    return locationId;
+  }
+
+  /**
+   * This method gives the health of the player.
+   *
+   * @return the health, 0 or less once the player is dead
+   */
+  public int getHealth() {
+    return health;
+  }
+
+  /**
+   * This method gives the arrows of the player.
+   *
+   * @return the number of arrows
+   */
+  public int getArrowCount() {
+    return arrows;
+  }
+
+  /**
+   * This method gives the treasures the player has collected.
+   *
+   * @return a copy of the list of treasures
+   */
+  public List<Treasure> getTreasureList() {
+    List<Treasure> list = new ArrayList<>();
+    Treasure[] types = SharedDungeon.treasures();
+    for (int i = 0; i < treasures.length; i++) {
+      for (int j = 0; j < treasures[i]; j++) {
+        list.add(types[i]);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * This method tells whether the player has reached the end cave.
+   *
+   * @return true if the player is at the end cave
+   */
+  public boolean hasReachedEnd() {
+    return dungeon.isEnd(locationId);
+  }
+
+  /**
+   * This method tells whether the game of the player is over, because the player is dead or has
+   * reached the end cave.
+   *
+   * @return true if the game is over
+   */
+  public boolean isOver() {
+    return health <= 0 || hasReachedEnd();
+  }
+
+  /**
+   * This method gives the smell at the location of the player.
+   *
+   * @return the type of smell
+   */
+  public SmellType checkSmell() {
+    return dungeon.smellAt(locationId);
+  }
+
+  /**
+   * This method gives the soil quality at the location of the player.
+   *
+   * @return the soil quality
+   */
+  public SoilQuality checkSoilType() {
+    return dungeon.soilAt(locationId);
+  }
+
+  /**
+   * This method moves the player and lets the thief, the pit or the monster at the new location
+   * act on the player.
+   *
+   * @param direction the direction of the move
+   * @return true if the player moved, false if there is no path or the game is over
+   * @throws IllegalArgumentException when the direction is null
+   */
+  public boolean move(Direction direction) throws IllegalArgumentException {
+    if (direction == null) {
+      throw new IllegalArgumentException("Direction cannot be null");
+    }
+    int next = dungeon.neighbor(locationId, direction);
+    if (isOver() || next < 0) {
+      return false;
+    }
+    locationId = next;
+    if (dungeon.hasThief(locationId)) {
+      for (int i = 0; i < treasures.length; i++) {
+        treasures[i] = 0;
+      }
+    }
+    if (dungeon.hasPit(locationId)) {
+      health = 0;
+    } else if (dungeon.getMonsterType(locationId) == CreatureType.MOVING_MONSTER) {
+      handToHandCombat();
+    } else if (dungeon.getMonsterType(locationId) == CreatureType.OTUYGH) {
+      int monsterHealth = dungeon.getMonsterHealth(locationId);
+      if (monsterHealth == FULL_HEALTH
+              || monsterHealth > 0 && randomizer.getNextInt(0, 2) % 2 == 1) {
+        health = 0;
+      }
+    }
+    return true;
+  }
+
+  //the fight ends when one of the two dies, the monster can also be killed by another player
+  private void handToHandCombat() {
+    boolean monsterFirst = randomizer.getNextInt(20, 30) % 2 == 0;
+    while (health > 0 && dungeon.getMonsterHealth(locationId) > 0) {
+      if (monsterFirst) {
+        monsterTurn();
+        dungeon.hitMonster(locationId, randomizer.getNextInt(30, 100));
+      } else {
+        dungeon.hitMonster(locationId, randomizer.getNextInt(30, 100));
+        monsterTurn();
+      }
+    }
+  }
+
+  private void monsterTurn() {
+    if (dungeon.getMonsterHealth(locationId) > 0) {
+      health -= randomizer.getNextInt(30, 100);
+    }
+  }
+
+  /**
+   * This method picks up the treasures at the location of the player. When players pick up at
+   * the same location at the same time, one of them gets all the treasures.
+   *
+   * @return true if there was treasure to pick up
+   */
+  public boolean takeTreasure() {
+    if (isOver()) {
+      return false;
+    }
+    int mask = dungeon.takeTreasures(locationId);
+    for (int i = 0; i < treasures.length; i++) {
+      treasures[i] += (mask >>> i) & 1;
+    }
+    return mask != 0;
+  }
+
+  /**
+   * This method picks up the arrows at the location of the player. When players pick up at the
+   * same location at the same time, one of them gets all the arrows.
+   *
+   * @return true if there were arrows to pick up
+   */
+  public boolean takeArrow() {
+    if (isOver()) {
+      return false;
+    }
+    int taken = dungeon.takeArrows(locationId);
+    arrows += taken;
+    return taken > 0;
+  }
+
+  /**
+   * This method shoots an arrow from the location of the player. When players hit the same
+   * monster at the same time, every hit counts once, and a monster can only be killed once.
+   *
+   * @param direction the direction of the shot
+   * @param dist      the number of caves the arrow flies
+   * @return true if the arrow hit a live monster, an arrow flying into a wall is kept
+   * @throws IllegalArgumentException when the direction is null or the distance is less than 1
+   */
+  public boolean shoot(Direction direction, int dist) throws IllegalArgumentException {
+    if (direction == null) {
+      throw new IllegalArgumentException("Direction cannot be null");
+    }
+    if (dist < 1) {
+      throw new IllegalArgumentException("Distance should be at least 1");
+    }
+    if (isOver() || arrows <= 0) {
+      return false;
+    }
+    int arrowId = ArrowPath.land(dungeon::neighbor, dungeon::isCave, dungeon.size(), locationId,
+            direction, dist);
+    if (arrowId < 0) {
+      return false;
+    }
+    arrows--;
+    return dungeon.hitMonster(arrowId, ARROW_DAMAGE) >= 0;
+  }
+}
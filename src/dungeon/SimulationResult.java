@@ -0,0 +1,170 @@
+package dungeon;
+
+/**
+ * This class represents the outcome of many games played by bots. The counts only depend on the
+ * settings, the bot and the seed of the simulation, while the throughput depends on the machine
+ * and the number of threads.
+ */
+public final class SimulationResult {
+
+  private final long games;
+  private final long wins;
+  private final long pitDeaths;
+  private final long monsterDeaths;
+  private final long timeouts;
+  private final long moves;
+  private final long treasures;
+  private final long hits;
+  private final long elapsedNanos;
+
+  /**
+   * Constructs the outcome of a simulation.
+   *
+   * @param games         the number of games played
+   * @param wins          the number of games the player reached the end cave in
+   * @param pitDeaths     the number of games the player fell into a pit in
+   * @param monsterDeaths the number of games the player was killed by a monster in
+   * @param timeouts      the number of games stopped after the most turns allowed
+   * @param moves         the number of moves of all the games
+   * @param treasures     the number of times treasure was picked up
+   * @param hits          the number of arrows that hit a monster
+   * @param elapsedNanos  the time the simulation took in nanoseconds
+   */
+  SimulationResult(long games, long wins, long pitDeaths, long monsterDeaths, long timeouts,
+                   long moves, long treasures, long hits, long elapsedNanos) {
+    this.games = games;
+    this.wins = wins;
+    this.pitDeaths = pitDeaths;
+    this.monsterDeaths = monsterDeaths;
+    this.timeouts = timeouts;
+    this.moves = moves;
+    this.treasures = treasures;
+    this.hits = hits;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * This method gives the number of games played.
+   *
+   * @return the number of games played
+   */
+  public long getGames() {
+    return games;
+  }
+
+  /**
+   * This method gives the number of games won.
+   *
+   * @return the number of games won
+   */
+  public long getWins() {
+    return wins;
+  }
+
+  /**
+   * This method gives the number of games lost to a pit.
+   *
+   * @return the number of games lost to a pit
+   */
+  public long getPitDeaths() {
+    return pitDeaths;
+  }
+
+  /**
+   * This method gives the number of games lost to a monster.
+   *
+   * @return the number of games lost to a monster
+   */
+  public long getMonsterDeaths() {
+    return monsterDeaths;
+  }
+
+  /**
+   * This method gives the number of games stopped after the most turns allowed.
+   *
+   * @return the number of games stopped after the most turns allowed
+   */
+  public long getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * This method gives the number of moves of all the games.
+   *
+   * @return the number of moves of all the games
+   */
+  public long getMoves() {
+    return moves;
+  }
+
+  /**
+   * This method gives the number of times treasure was picked up.
+   *
+   * @return the number of times treasure was picked up
+   */
+  public long getTreasures() {
+    return treasures;
+  }
+
+  /**
+   * This method gives the number of arrows that hit a monster.
+   *
+   * @return the number of arrows that hit a monster
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * This method gives the time the simulation took in nanoseconds.
+   *
+   * @return the time the simulation took in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * This method gives the number of games played per second.
+   *
+   * @return the games per second
+   */
+  public double getGamesPerSecond() {
+    return perSecond(games);
+  }
+
+  /**
+   * This method gives the number of moves made per second.
+   *
+   * @return the moves per second
+   */
+  public double getMovesPerSecond() {
+    return perSecond(moves);
+  }
+
+  private double perSecond(long count) {
+    return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * This method tells if the other simulation had the same outcome, whatever its throughput.
+   *
+   * @param other the other simulation
+   * @return true if all the counts are the same
+   */
+  public boolean hasSameOutcome(SimulationResult other) {
+    return other != null && games == other.games && wins == other.wins
+            && pitDeaths == other.pitDeaths && monsterDeaths == other.monsterDeaths
+            && timeouts == other.timeouts && moves == other.moves
+            && treasures == other.treasures && hits == other.hits;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d games in %.3f s (%.0f games/s, %.0f moves/s)%n"
+                    + "won %d, fell into a pit %d, killed by a monster %d, out of turns %d%n"
+                    + "moves %d, treasure picked up %d, monsters hit %d",
+            games, elapsedNanos / 1e9, getGamesPerSecond(), getMovesPerSecond(),
+            wins, pitDeaths, monsterDeaths, timeouts, moves, treasures, hits);
+  }
+}
@@ -29,4 +29,23 @@ public class ActualRandomizer<T> implements Randomizer<T> {
     Collections.shuffle(newList);
     return newList;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int nextIndex(int bound) throws IllegalArgumentException {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive");
+    }
+    return getNextInt(0, bound);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] sampleK(int bound, int k) throws IllegalArgumentException {
+    return IndexSampler.sample(this, bound, k);
+  }
 }
@@ -35,4 +35,40 @@ public class FixedRandomizer<T> implements Randomizer<T> {
   public List<T> randomizedValueList(List<T> list) {
     return new ArrayList<T>(list);
   }
+
+  /**
+   * Gives the first index, the same value that the first element of
+   * {@link #randomizedValueList(List)} keeps.
+   *
+   * @param bound this parameter takes the number of values to pick from
+   * @return always 0
+   * @throws IllegalArgumentException when the bound is not positive
+   */
+  @Override
+  public int nextIndex(int bound) throws IllegalArgumentException {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive");
+    }
+    return 0;
+  }
+
+  /**
+   * Gives the first k indices in order, the same values that the first k elements of
+   * {@link #randomizedValueList(List)} keep.
+   *
+   * @param bound this parameter takes the number of values to pick from
+   * @param k this parameter takes the number of values to pick
+   * @return the indices 0 to k - 1
+   * @throws IllegalArgumentException when the bound or k is negative or k is greater than the
+   *                                  bound
+   */
+  @Override
+  public int[] sampleK(int bound, int k) throws IllegalArgumentException {
+    IndexSampler.validate(bound, k);
+    int[] picked = new int[k];
+    for (int i = 0; i < k; i++) {
+      picked[i] = i;
+    }
+    return picked;
+  }
 }
@@ -0,0 +1,101 @@
+package randomizer;
+
+/**
+ * This class picks distinct random indices out of a range using the random indices of a
+ * randomizer. A small sample out of a large range is picked with Floyd's algorithm, which draws
+ * one random number per picked index and only keeps the picked indices. A large sample is picked
+ * with a Fisher-Yates shuffle of the range that stops after the needed number of indices.
+ */
+final class IndexSampler {
+
+  private IndexSampler() {
+  }
+
+  /**
+   * This method picks distinct random indices between 0 and bound - 1.
+   *
+   * @param randomizer the randomizer giving the random indices
+   * @param bound      the number of indices to pick from
+   * @param k          the number of indices to pick
+   * @return the picked indices
+   * @throws IllegalArgumentException when the bound or the count is negative or the count is
+   *                                  greater than the bound
+   */
+  static int[] sample(Randomizer<?> randomizer, int bound, int k)
+          throws IllegalArgumentException {
+    validate(bound, k);
+    if (k == 0) {
+      return new int[0];
+    }
+    //Floyd's algorithm keeps memory and draws proportional to k, the partial shuffle needs an
+    //array of the whole range but no set lookups
+    if (k <= bound / 4) {
+      return floyd(randomizer, bound, k);
+    }
+    return partialShuffle(randomizer, bound, k);
+  }
+
+  /**
+   * This method checks the bound and the count of a sample.
+   *
+   * @param bound the number of indices to pick from
+   * @param k     the number of indices to pick
+   * @throws IllegalArgumentException when the bound or the count is negative or the count is
+   *                                  greater than the bound
+   */
+  static void validate(int bound, int k) throws IllegalArgumentException {
+    if (bound < 0 || k < 0) {
+      throw new IllegalArgumentException("Bound and sample size cannot be negative");
+    }
+    if (k > bound) {
+      throw new IllegalArgumentException("Cannot pick " + k + " distinct values out of " + bound);
+    }
+  }
+
+  private static int[] partialShuffle(Randomizer<?> randomizer, int bound, int k) {
+    int[] range = new int[bound];
+    for (int i = 0; i < bound; i++) {
+      range[i] = i;
+    }
+    for (int i = 0; i < k; i++) {
+      int j = i + randomizer.nextIndex(bound - i);
+      int swap = range[i];
+      range[i] = range[j];
+      range[j] = swap;
+    }
+    int[] picked = new int[k];
+    System.arraycopy(range, 0, picked, 0, k);
+    return picked;
+  }
+
+  private static int[] floyd(Randomizer<?> randomizer, int bound, int k) {
+    int[] picked = new int[k];
+    //open addressing set of the picked indices, stored plus one so that 0 is an empty slot
+    int[] table = new int[Integer.highestOneBit(k) << 2];
+    int mask = table.length - 1;
+    for (int n = 0, j = bound - k; j < bound; j++) {
+      int t = randomizer.nextIndex(j + 1);
+      if (!insert(table, mask, t)) {
+        //j itself cannot have been picked yet, all earlier picks are below it
+        t = j;
+        insert(table, mask, j);
+      }
+      picked[n++] = t;
+    }
+    return picked;
+  }
+
+  //adds the value to the set, returns false when it was already present
+  private static boolean insert(int[] table, int mask, int value) {
+    int hash = value * 0x9E3779B9;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (table[slot] != 0) {
+      if (table[slot] == value + 1) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = value + 1;
+    return true;
+  }
+}
@@ -23,4 +23,25 @@ public interface Randomizer<T> {
    * @param list this parameter takes the not shuffled array list
    */
   public List<T> randomizedValueList(List<T> list);
+
+  /**
+   * This method provides a random index to pick one of the given number of values.
+   *
+   * @param bound this parameter takes the number of values to pick from
+   * @return an index between 0 and bound - 1
+   * @throws IllegalArgumentException when the bound is not positive
+   */
+  public int nextIndex(int bound) throws IllegalArgumentException;
+
+  /**
+   * This method picks k distinct random indices out of the given number of values, without
+   * shuffling all of them.
+   *
+   * @param bound this parameter takes the number of values to pick from
+   * @param k this parameter takes the number of values to pick
+   * @return k distinct indices between 0 and bound - 1
+   * @throws IllegalArgumentException when the bound or k is negative or k is greater than the
+   *                                  bound
+   */
+  public int[] sampleK(int bound, int k) throws IllegalArgumentException;
 }
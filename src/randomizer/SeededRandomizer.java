@@ -0,0 +1,94 @@
+package randomizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class represents a random generator started from an explicit 64 bit seed. The same seed
+ * always gives the same sequence of numbers and shuffles, so a dungeon created with this
+ * randomizer can be created again from its seed. Independent child generators for separate
+ * parts of the work can be created with {@link #split()}.
+ */
+public class SeededRandomizer<T> implements Randomizer<T> {
+
+  private final long seed;
+  private final SplittableRandom random;
+
+  /**
+   * Constructs a random generator with a new seed, which can be read with {@link #getSeed()}.
+   */
+  public SeededRandomizer() {
+    this(new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Constructs a random generator from the given seed.
+   *
+   * @param seed this parameter takes the seed of the generator
+   */
+  public SeededRandomizer(long seed) {
+    this.seed = seed;
+    this.random = new SplittableRandom(seed);
+  }
+
+  /**
+   * This method gives the seed the generator was started from.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * This method creates a child generator whose numbers are independent of the numbers of this
+   * generator. The seed of the child is the next number of this generator, so the child is the
+   * same every time for the same seed of this generator.
+   *
+   * @return the child generator
+   */
+  public SeededRandomizer<T> split() {
+    return new SeededRandomizer<T>(random.nextLong());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNextInt(int min, int max) {
+    return random.nextInt(min, max);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<T> randomizedValueList(List<T> list) {
+    List<T> newList = new ArrayList<>(list);
+    for (int i = newList.size() - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      newList.set(j, newList.set(i, newList.get(j)));
+    }
+    return newList;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int nextIndex(int bound) throws IllegalArgumentException {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive");
+    }
+    return random.nextInt(bound);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] sampleK(int bound, int k) throws IllegalArgumentException {
+    return IndexSampler.sample(this, bound, k);
+  }
+}
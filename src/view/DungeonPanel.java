@@ -3,39 +3,52 @@ package view;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 
 import controller.IDungeonController;
-import dungeon.CreatureType;
 import dungeon.Direction;
 import dungeon.Location;
 import dungeon.ReadOnlyModel;
 import dungeon.SmellType;
 import dungeon.SoilQuality;
-import dungeon.Treasure;
 
 /**
  * <P>
- *   This class represents the dungeon panel. The panel creates the entire dungeon grid view by
- *   visiting all the nodes and overlaying the images on top of each other based on different
- *   things present at each location.
+ *   This class represents the dungeon panel. The panel paints the dungeon grid itself instead of
+ *   holding a component per location. Only the locations around the visible part of the scroll
+ *   pane are drawn, so the time and memory needed to show the dungeon depend on the window size
+ *   and not on the size of the dungeon. The locations are composed into one image on a
+ *   background thread and the panel shows the last finished image until the next one is ready.
  * </P>
  */
 class DungeonPanel extends JPanel {
 
-  List<JLabel> gridList;
+  private static final int TILE_CACHE_CAPACITY = 512;
+  //size in pixels of every location image
+  private static final int TILE_SIZE = 64;
+  //gap kept around the grid, as the flow layout of the panel used to keep
+  private static final int GAP = 5;
+  //locations drawn beyond each side of the visible part, so that short scrolls are covered
+  private static final int MARGIN = 2;
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static TileCache tileCache;
+
   private ReadOnlyModel model;
   private IView view;
-  private JPanel gamePanel;
+  private boolean showDungeon;
+  private long renderedVersion;
+  private int playerLocation;
+  private IDungeonController listener;
+  private TileRenderer renderer;
+  private TileRenderer.Frame frame;
+  private long stamp;
+  private long requestedStamp = -1;
+  private Rectangle requestedBlock;
+  private int[] requestedKeys;
+  //the part of the panel painted again when the requested frame is finished
+  private Rectangle dirtyArea;
 
   /**
    * Constructor to create a blank dungeon panel with white background and yellow border.
@@ -48,156 +61,266 @@ class DungeonPanel extends JPanel {
     this.view = v;
     UIManager.put("OptionPane.background", Color.WHITE);
     setBorder(BorderFactory.createLineBorder(Color.YELLOW));
+    //one listener for the whole panel, the clicked location is worked out from the point
+    addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        super.mouseClicked(e);
+        clickLocation(locationAt(e.getX(), e.getY()));
+      }
+    });
   }
 
   /**
-   * This method refreshed the dunegon UI by updating the dungeon panel as well as the internal
-   * grid panel.
+   * This method refreshed the dunegon UI by laying out and painting the dungeon panel again.
    */
   public void refresh() {
-    this.updateUI();
-    gamePanel.updateUI();
+    revalidate();
+    repaint();
   }
 
   /**
-   * This method creates the entire dungeon by passing through each node in the dungeon.
+   * This method shows the entire dungeon and scrolls to the player location.
    *
    * @param listener takes the controller as an input to use it for mouse clicks
    */
   public void createDungeon(IDungeonController listener) {
-    gamePanel = new JPanel();
-    gamePanel.setLayout(new GridLayout(model.getRows(), model.getColumns()));
-    gamePanel.setComponentOrientation(ComponentOrientation.LEFT_TO_RIGHT);
-    this.add(gamePanel);
-    gridList = new ArrayList<>();
-    try {
-      List<Location> tempList = new ArrayList<>(model.getLocationList());
-      for (int i = 0; i < tempList.size(); i++) {
-        JLabel jLabel = new JLabel();
-        String pathname = "/images/black.png";
-        BufferedImage myPicture = ImageIO.read(getClass().getResourceAsStream(pathname));
+    showDungeon = true;
+    renderedVersion = model.getChangeVersion();
+    playerLocation = model.getPlayer().getCurrentLocation().getId();
+    this.listener = listener;
+    stamp++;
+    refresh();
+    followPlayer();
+    gameOver();
+  }
 
-        if (tempList.get(i).hasPlayerVisited()) {
-        myPicture = overlay(myPicture,
-                "/images/" + getCorrectImages(tempList.get(i)),
-                0);
+  /**
+   * This method draws and paints again only the locations that have changed since the dungeon
+   * was last shown, together with the old and the new player location, and scrolls to the
+   * player when the player has moved. The whole dungeon is shown again when it is not shown yet
+   * or the changes are not known.
+   *
+   * @param listener takes the controller as an input to use it for mouse clicks
+   */
+  public void updateDungeon(IDungeonController listener) {
+    long version = model.getChangeVersion();
+    int[] changed = null;
+    if (showDungeon && version >= renderedVersion) {
+      changed = model.getChangedLocations(renderedVersion);
+    }
+    if (changed == null) {
+      createDungeon(listener);
+      return;
+    }
+    int previousPlayer = playerLocation;
+    playerLocation = model.getPlayer().getCurrentLocation().getId();
+    this.listener = listener;
+    //the smell and soil painted on the player location can change without the location changing,
+    //so the player location is always keyed again after an action
+    redrawLocations(changed, previousPlayer);
+    renderedVersion = version;
+    if (previousPlayer != playerLocation) {
+      followPlayer();
+    }
+    gameOver();
+  }
 
-        //if location contains otyugh
-        if (tempList.get(i).hasMonster() &&
-                tempList.get(i).getMonster().getMonsterType().equals(CreatureType.OTUYGH)
-                && tempList.get(i).getMonster().getHealth() > 0) {
-          if (tempList.get(i).getMonster().getHealth() == 100) {
-            myPicture = overlay(myPicture,
-                    "/images/otyugh.png",
-                    2);
-          } else if (tempList.get(i).getMonster().getHealth() == 50) {
-            myPicture = overlay(myPicture,
-                    "/images/otyugh.png",
-                    2);
-          }
-        }
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Dimension getPreferredSize() {
+    if (isPreferredSizeSet()) {
+      return super.getPreferredSize();
+    }
+    Insets insets = getInsets();
+    return new Dimension(model.getColumns() * TILE_SIZE + 2 * GAP + insets.left + insets.right,
+            model.getRows() * TILE_SIZE + 2 * GAP + insets.top + insets.bottom);
+  }
 
-        //if location contains arrow
-        if (tempList.get(i).getArrow() > 0) {
-          myPicture = overlay(myPicture,
-                  "/images/arrow-white.png",
-                  2);
-        }
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    if (!showDungeon) {
+      return;
+    }
+    int left = gridLeft();
+    int top = gridTop();
+    if (frame != null) {
+      g.drawImage(frame.image, left + frame.firstColumn * TILE_SIZE,
+              top + frame.firstRow * TILE_SIZE, null);
+    }
+    Rectangle visible = getVisibleRect();
+    int firstColumn = Math.max(0, Math.floorDiv(visible.x - left, TILE_SIZE) - MARGIN);
+    int lastColumn = Math.min(model.getColumns() - 1,
+            Math.floorDiv(visible.x + visible.width - 1 - left, TILE_SIZE) + MARGIN);
+    int firstRow = Math.max(0, Math.floorDiv(visible.y - top, TILE_SIZE) - MARGIN);
+    int lastRow = Math.min(model.getRows() - 1,
+            Math.floorDiv(visible.y + visible.height - 1 - top, TILE_SIZE) + MARGIN);
+    if (lastColumn < firstColumn || lastRow < firstRow) {
+      return;
+    }
+    Rectangle block = new Rectangle(firstColumn, firstRow, lastColumn - firstColumn + 1,
+            lastRow - firstRow + 1);
+    boolean current = frame != null && frame.stamp == stamp
+            && frame.isBlock(block.y, block.x, block.height, block.width);
+    boolean requested = requestedStamp == stamp && block.equals(requestedBlock);
+    if (!current && !requested) {
+      requestFrame(block);
+    }
+  }
 
-        //if location contains ruby
-        if (tempList.get(i).getTreasureList().contains(Treasure.RUBY)) {
-          myPicture = overlay(myPicture,
-                  "/images/ruby.png",
-                  2);
-        }
+  //reads the keys of the block here, the images are composed on the renderer thread
+  private void requestFrame(Rectangle block) {
+    try {
+      if (renderer == null) {
+        renderer = new TileRenderer(getTileCache(), TILE_SIZE);
+      }
+    } catch (IOException i) {
+      i.printStackTrace();
+      return;
+    }
+    SmellType smell = model.checkSmell();
+    SoilQuality soil = model.checkSoilType();
+    int[] keys = new int[block.width * block.height];
+    for (int row = 0; row < block.height; row++) {
+      for (int column = 0; column < block.width; column++) {
+        int id = (block.y + row) * model.getColumns() + block.x + column;
+        keys[row * block.width + column] = keyAt(id, smell, soil);
+      }
+    }
+    Rectangle area = tileBounds(block.y * model.getColumns() + block.x);
+    area.setSize(block.width * TILE_SIZE, block.height * TILE_SIZE);
+    render(block, keys, area);
+  }
 
-        //if contains diamond
-        if (tempList.get(i).getTreasureList().contains(Treasure.DIAMOND)) {
-          myPicture = overlay(myPicture,
-                  "/images/diamond.png",
-                  2);
-        }
+  //keys again only the given locations of the requested block, the other keys are still current
+  private void redrawLocations(int[] changed, int previousPlayer) {
+    if (renderer == null || requestedBlock == null || requestedStamp != stamp) {
+      //nothing requested yet for this version, the next paint keys the whole block
+      stamp++;
+      repaint(getVisibleRect());
+      return;
+    }
+    SmellType smell = model.checkSmell();
+    SoilQuality soil = model.checkSoilType();
+    int[] keys = requestedKeys.clone();
+    Rectangle dirty = rekey(keys, previousPlayer, smell, soil, null);
+    dirty = rekey(keys, playerLocation, smell, soil, dirty);
+    for (int id : changed) {
+      dirty = rekey(keys, id, smell, soil, dirty);
+    }
+    if (dirty != null) {
+      stamp++;
+      render(requestedBlock, keys, dirty);
+    }
+  }
 
-        //if contains sapphire
-        if (tempList.get(i).getTreasureList().contains(Treasure.SAPPHIRE)) {
-          myPicture = overlay(myPicture,
-                  "/images/emerald.png",
-                  2);
-        }
+  //gives the dirty area grown by the location when the location is in the block and its key has
+  //changed
+  private Rectangle rekey(int[] keys, int id, SmellType smell, SoilQuality soil,
+                          Rectangle dirty) {
+    int row = id / model.getColumns() - requestedBlock.y;
+    int column = id % model.getColumns() - requestedBlock.x;
+    if (row < 0 || column < 0 || row >= requestedBlock.height
+            || column >= requestedBlock.width) {
+      return dirty;
+    }
+    int i = row * requestedBlock.width + column;
+    int key = keyAt(id, smell, soil);
+    if (keys[i] == key) {
+      return dirty;
+    }
+    keys[i] = key;
+    Rectangle bounds = tileBounds(id);
+    return dirty == null ? bounds : dirty.union(bounds);
+  }
 
-        //if moving monster
-        if (tempList.get(i).hasMonster()
-                && tempList.get(i).getMonster().getMonsterType().equals(CreatureType.MOVING_MONSTER)
-                && tempList.get(i).getMonster().getHealth() > 0) {
-          myPicture = overlay(myPicture,
-                  "/images/moving-monster.png",
-                  2);
-        }
+  private int keyAt(int id, SmellType smell, SoilQuality soil) {
+    return TileCache.keyOf(model.getLocation(id), id == playerLocation, smell, soil);
+  }
 
-        //if contains pit
-        if (tempList.get(i).isContainsPit()) {
-          myPicture = overlay(myPicture,
-                  "/images/pit.png",
-                  0);
-        }
+  //a request still being drawn is cancelled, so its area is painted with the next frame
+  private void render(Rectangle block, int[] keys, Rectangle area) {
+    requestedStamp = stamp;
+    requestedBlock = block;
+    requestedKeys = keys;
+    dirtyArea = dirtyArea == null ? area : dirtyArea.union(area);
+    renderer.render(block.y, block.x, block.height, block.width, stamp, keys, frame, finished -> {
+      frame = finished;
+      repaint(dirtyArea);
+      dirtyArea = null;
+    });
+  }
 
-        //if contains thief
-        if (tempList.get(i).isContainsThief()) {
-          myPicture = overlay(myPicture,
-                  "/images/thief.png",
-                  2);
-        }
+  //the grid is centered across the panel and starts at the top, as the flow layout placed it
+  private int gridLeft() {
+    Insets insets = getInsets();
+    int width = model.getColumns() * TILE_SIZE;
+    return Math.max(insets.left + GAP, (getWidth() - width) / 2);
+  }
 
-        //if contains player cave - show stench
-        if (tempList.get(i).getId() == model.getPlayer().getCurrentLocation().getId()) {
-          if (model.checkSmell() == SmellType.HIGH_PUNGENT) {
-            myPicture = overlay(myPicture,
-                    "/images/stench02.png", 2);
-          } else if (model.checkSmell() == SmellType.LESS_PUNGENT) {
-            myPicture = overlay(myPicture,
-                    "/images/stench01.png", 2);
-          }
+  private int gridTop() {
+    return getInsets().top + GAP;
+  }
 
-          if(model.checkSoilType() == SoilQuality.DENSE) {
-            myPicture = overlay(myPicture,
-                    "/images/dense.png", 2);
-          } else if(model.checkSoilType() == SoilQuality.POROUS) {
-            myPicture = overlay(myPicture,
-                    "/images/porous.png", 2);
-          }
-        }
+  //the location under the point, -1 when the point is outside the grid
+  private int locationAt(int x, int y) {
+    int left = gridLeft();
+    int top = gridTop();
+    if (x < left || y < top) {
+      return -1;
+    }
+    int column = (x - left) / TILE_SIZE;
+    int row = (y - top) / TILE_SIZE;
+    if (column >= model.getColumns() || row >= model.getRows()) {
+      return -1;
+    }
+    return row * model.getColumns() + column;
+  }
 
-        //player image
-        if (tempList.get(i).getId() == model.getPlayer().getCurrentLocation().getId()) {
-          myPicture = overlay(myPicture,
-                  "/images/player.png", 2);
-        }
-        }
-        jLabel.setIcon(new ImageIcon(myPicture));
-        gridList.add(jLabel);
-        gamePanel.add(jLabel);
+  //moves the player when the clicked location is a neighbor of the player location
+  private void clickLocation(int id) {
+    if (!showDungeon || listener == null || id < 0) {
+      return;
+    }
+    //Code citation: https://northeastern.instructure.com/courses/90366/files/10995936?wrap=1
+    Location currentLocation = model.getLocation(playerLocation);
+    for (Direction direction : DIRECTIONS) {
+      Location neighbor = currentLocation.getNeighbor(direction);
+      if (neighbor != null && neighbor.getId() == id) {
+        listener.moveThePlayerByClick(direction);
+        return;
       }
+    }
+  }
 
-      //click listener
-      //Code citation: https://northeastern.instructure.com/courses/90366/files/10995936?wrap=1
-      Map<Direction, Location> adjacencyClickMap = new HashMap<>(
-              model.getPlayer().getCurrentLocation().getNeighbors());
-      Iterator<Map.Entry<Direction, Location>> iterator = adjacencyClickMap.entrySet().iterator();
-      while (iterator.hasNext()) {
-        Map.Entry<Direction, Location> entry = iterator.next();
-        gridList.get(entry.getValue().getId()).addMouseListener(new MouseAdapter() {
-          @Override
-          public void mouseClicked(MouseEvent e) {
-            super.mouseClicked(e);
-            listener.moveThePlayerByClick(entry.getKey());
-          }
-        });
-      }
-      refresh();
-      gameOver();
-    } catch (IOException i) {
-      i.printStackTrace();
+  private Rectangle tileBounds(int id) {
+    int row = id / model.getColumns();
+    int column = id % model.getColumns();
+    return new Rectangle(gridLeft() + column * TILE_SIZE, gridTop() + row * TILE_SIZE,
+            TILE_SIZE, TILE_SIZE);
+  }
+
+  //keeps the player and the locations around it inside the visible part of the scroll pane
+  private void followPlayer() {
+    SwingUtilities.invokeLater(() -> {
+      Rectangle around = tileBounds(playerLocation);
+      around.grow(TILE_SIZE, TILE_SIZE);
+      scrollRectToVisible(around);
+    });
+  }
+
+  //the finished location images are shared by all the dungeons drawn
+  private static TileCache getTileCache() throws IOException {
+    if (tileCache == null) {
+      tileCache = new TileCache(TileAtlas.getInstance(), TILE_CACHE_CAPACITY);
     }
+    return tileCache;
   }
 
   private void gameOver() {
@@ -220,80 +343,16 @@ class DungeonPanel extends JPanel {
     }
   }
 
-  private String getCorrectImages(Location location) {
-
-    String result = "";
-    if (location.getNeighbors().size() == 1) {
-      if (location.getNeighbors().containsKey(Direction.NORTH)) {
-        result = "N.png";
-      } else if (location.getNeighbors().containsKey(Direction.SOUTH)) {
-        result = "S.png";
-      } else if (location.getNeighbors().containsKey(Direction.EAST)) {
-        result = "E.png";
-      } else if (location.getNeighbors().containsKey(Direction.WEST)) {
-        result = "W.png";
-      }
-    } else if (location.getNeighbors().size() == 2) {
-      if (location.getNeighbors().containsKey(Direction.NORTH)
-              && location.getNeighbors().containsKey(Direction.SOUTH)) {
-        result = "NS.png";
-      } else if (location.getNeighbors().containsKey(Direction.NORTH)
-              && location.getNeighbors().containsKey(Direction.WEST)) {
-        result = "NW.png";
-      } else if (location.getNeighbors().containsKey(Direction.NORTH)
-              && location.getNeighbors().containsKey(Direction.EAST)) {
-        result = "NE.png";
-      } else if (location.getNeighbors().containsKey(Direction.SOUTH)
-              && location.getNeighbors().containsKey(Direction.EAST)) {
-        result = "ES.png";
-      } else if (location.getNeighbors().containsKey(Direction.SOUTH)
-              && location.getNeighbors().containsKey(Direction.WEST)) {
-        result = "SW.png";
-      } else if (location.getNeighbors().containsKey(Direction.EAST)
-              && location.getNeighbors().containsKey(Direction.WEST)) {
-        result = "EW.png";
-      }
-    } else if (location.getNeighbors().size() == 3) {
-      if (location.getNeighbors().containsKey(Direction.EAST)
-              && location.getNeighbors().containsKey(Direction.WEST)
-              && location.getNeighbors().containsKey(Direction.NORTH)) {
-        result = "NEW.png";
-      } else if (location.getNeighbors().containsKey(Direction.EAST)
-              && location.getNeighbors().containsKey(Direction.WEST)
-              && location.getNeighbors().containsKey(Direction.SOUTH)) {
-        result = "SEW.png";
-      } else if (location.getNeighbors().containsKey(Direction.SOUTH)
-              && location.getNeighbors().containsKey(Direction.WEST)
-              && location.getNeighbors().containsKey(Direction.NORTH)) {
-        result = "NSW.png";
-      } else if (location.getNeighbors().containsKey(Direction.SOUTH)
-              && location.getNeighbors().containsKey(Direction.EAST)
-              && location.getNeighbors().containsKey(Direction.NORTH)) {
-        result = "NSE.png";
-      }
-    } else if (location.getNeighbors().size() == 4) {
-      result = "NSEW.png";
-    }
-    return result;
-  }
-
-  //Code citation for buffered image: https://piazza.com/class/kt0jcw0x7h955a?cid=1500
-  private BufferedImage overlay(BufferedImage starting, String fpath, int offset)
-          throws IOException {
-    BufferedImage overlay = ImageIO.read(getClass().getResourceAsStream(fpath));
-    int h = Math.max(starting.getHeight(), overlay.getHeight());
-    int w = Math.max(starting.getWidth(), overlay.getWidth());
-    BufferedImage combined = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-    Graphics g = combined.getGraphics();
-    g.drawImage(starting, 0, 0, null);
-    g.drawImage(overlay, offset, offset, null);
-    return combined;
-  }
-
   /**
-   * This method removes the grid panel.
+   * This method hides the dungeon grid.
    */
   public void removePanel() {
-    this.remove(gamePanel);
+    showDungeon = false;
+    if (renderer != null) {
+      renderer.cancel();
+    }
+    requestedStamp = -1;
+    dirtyArea = null;
+    repaint();
   }
 }
@@ -8,6 +8,7 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
 import controller.IDungeonController;
+import dungeon.GenerationPhase;
 import dungeon.ReadOnlyModel;
 
 //Referenced code and syntax from:
@@ -33,6 +34,9 @@ public class DungeonView extends JFrame implements IView {
   private JPanel nextMovePanel;
   private JPanel locationDescPanel;
   private JSplitPane jSplitPane;
+  private JDialog progressDialog;
+  private JProgressBar progressBar;
+  private JButton cancelGeneration;
 
   private JButton moveNorth;
   private JButton moveSouth;
@@ -61,6 +65,8 @@ public class DungeonView extends JFrame implements IView {
     this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
     this.setLayout(new BorderLayout());
     settingPanel = new SettingPanel();
+    cancelGeneration = new JButton("Cancel");
+    cancelGeneration.setActionCommand("Cancel Generation");
     message = new JTextArea();
     jMenuBar = new JMenuBar();
     this.setJMenuBar(jMenuBar);
@@ -125,8 +131,9 @@ public class DungeonView extends JFrame implements IView {
     this.add(BorderLayout.LINE_END, jScrollPaneDesc);
 
     dungeonPanel = new DungeonPanel(model, this);
-    dungeonPanel.setPreferredSize(new Dimension(500, 500));
     jScrollPane = new JScrollPane(dungeonPanel);
+    //the panel is as large as the whole dungeon, the scroll pane shows the part around the player
+    jScrollPane.setPreferredSize(new Dimension(500, 500));
     this.add(BorderLayout.CENTER, jScrollPane);
 
     resetFocus();
@@ -229,6 +236,7 @@ public class DungeonView extends JFrame implements IView {
     restartItem.addActionListener(listener);
     dungeonSettings.addActionListener(listener);
     quitItem.addActionListener(listener);
+    cancelGeneration.addActionListener(listener);
   }
 
   /**
@@ -270,8 +278,7 @@ public class DungeonView extends JFrame implements IView {
    */
   @Override
   public void renderDungeon(IDungeonController listener) {
-    dungeonPanel.removePanel();
-    dungeonPanel.createDungeon(listener);
+    dungeonPanel.updateDungeon(listener);
   }
 
   /**
@@ -405,6 +412,14 @@ public class DungeonView extends JFrame implements IView {
     return settingPanel.getMovingMonsterCount() + 1;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long getSeed() {
+    return settingPanel.getSeed();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -427,6 +442,40 @@ public class DungeonView extends JFrame implements IView {
     getContentPane().remove(jScrollPaneDesc);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void showGenerationProgress(GenerationPhase phase) {
+    if (progressDialog == null) {
+      progressBar = new JProgressBar(0, GenerationPhase.values().length);
+      progressBar.setStringPainted(true);
+      progressBar.setPreferredSize(new Dimension(300, 26));
+      JPanel progressPanel = new JPanel(new BorderLayout(5, 5));
+      progressPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+      progressPanel.add(BorderLayout.CENTER, progressBar);
+      progressPanel.add(BorderLayout.PAGE_END, cancelGeneration);
+      progressDialog = new JDialog(this, "Creating Dungeon", false);
+      progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+      progressDialog.add(progressPanel);
+      progressDialog.pack();
+      progressDialog.setLocationRelativeTo(this);
+    }
+    progressBar.setValue(phase.ordinal());
+    progressBar.setString(phase.getDescription());
+    progressDialog.setVisible(true);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void hideGenerationProgress() {
+    if (progressDialog != null) {
+      progressDialog.setVisible(false);
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -5,6 +5,7 @@ import java.awt.event.KeyListener;
 
 import controller.IDungeonController;
 import dungeon.Dungeon;
+import dungeon.GenerationPhase;
 import dungeon.ReadOnlyModel;
 
 /**
@@ -167,4 +168,25 @@ public interface IView {
    * @return no of moving monsters
    */
   public int getMovingMonsterCount();
+
+  /**
+   * Gives the seed entered for the random generator, so that the same dungeon can be created
+   * again.
+   *
+   * @return the seed, null when no seed is entered
+   */
+  public Long getSeed();
+
+  /**
+   * Shows the phase the creation of a new dungeon has reached, along with a button that sends
+   * the "Cancel Generation" action command.
+   *
+   * @param phase the phase that has started
+   */
+  public void showGenerationProgress(GenerationPhase phase);
+
+  /**
+   * Hides the progress of the creation of a new dungeon once it has finished or stopped.
+   */
+  public void hideGenerationProgress();
 }
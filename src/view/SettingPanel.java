@@ -17,8 +17,9 @@ class SettingPanel {
   private JTextField treasurePercent;
   private JCheckBox wrapping;
   private JTextField monsterCount;
+  private JTextField seed;
   private JLabel rowLabel, colLabel, interconnLabel, percentLabel, monsterCountLabel;
-  private JLabel thiefLabel, pitLabel, mvLabel;
+  private JLabel thiefLabel, pitLabel, mvLabel, seedLabel;
   private JComboBox<Integer> movingMonsterCount;
   private JComboBox<Integer> thiefCount;
   private JComboBox<Integer> pitCount;
@@ -42,6 +43,7 @@ class SettingPanel {
     thiefLabel = new JLabel("Thief");
     pitLabel = new JLabel("Pit");
     mvLabel = new JLabel("Moving Monster");
+    seedLabel = new JLabel("Seed (optional)");
     thiefCount = new JComboBox<>(tc);
     pitCount = new JComboBox<>(pc);
     movingMonsterCount = new JComboBox<>(mc);
@@ -52,6 +54,7 @@ class SettingPanel {
     treasurePercent = new JTextField("", 2);
     wrapping = new JCheckBox("Wrapping");
     monsterCount = new JTextField("", 2);
+    seed = new JTextField("", 8);
   }
 
   /**
@@ -77,6 +80,8 @@ class SettingPanel {
     dialogPanel.add(pitCount);
     dialogPanel.add(mvLabel);
     dialogPanel.add(movingMonsterCount);
+    dialogPanel.add(seedLabel);
+    dialogPanel.add(seed);
 
     return JOptionPane.showConfirmDialog(null, dialogPanel,
             "Please parameters to create the dungeon", JOptionPane.OK_CANCEL_OPTION);
@@ -163,6 +168,24 @@ class SettingPanel {
     return validateInteger(monsterCount);
   }
 
+  /**
+   * Gives the seed of the random generator, left empty for a new random dungeon.
+   *
+   * @return the seed, null when no seed is entered
+   */
+  public Long getSeed() {
+    String text = seed.getText().trim();
+    if (text.isEmpty()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(text);
+    } catch (NumberFormatException e) {
+      new DialogBox("Invalid input parameter");
+    }
+    return null;
+  }
+
   private int validateInteger(JTextField value) throws IllegalArgumentException {
     int a = 0;
     try {
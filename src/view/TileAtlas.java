@@ -0,0 +1,67 @@
+package view;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * This class represents the images used to draw the dungeon. Every image is decoded once, the
+ * first time the atlas is used, and shared by all the dungeon panels afterwards.
+ */
+final class TileAtlas {
+
+  private static final String[] IMAGES = {
+    "black.png", "N.png", "S.png", "E.png", "W.png", "NS.png", "NE.png", "NW.png", "ES.png",
+    "SW.png", "EW.png", "NSE.png", "NSW.png", "NEW.png", "SEW.png", "NSEW.png", "otyugh.png",
+    "arrow-white.png", "ruby.png", "diamond.png", "emerald.png", "moving-monster.png", "pit.png",
+    "thief.png", "stench01.png", "stench02.png", "dense.png", "porous.png", "player.png"
+  };
+
+  private static TileAtlas instance;
+
+  private final Map<String, BufferedImage> images;
+
+  private TileAtlas() throws IOException {
+    images = new HashMap<>();
+    for (String name : IMAGES) {
+      try (InputStream in = TileAtlas.class.getResourceAsStream("/images/" + name)) {
+        if (in == null) {
+          throw new IOException("Image " + name + " not found");
+        }
+        images.put(name, ImageIO.read(in));
+      }
+    }
+  }
+
+  /**
+   * This method gives the shared atlas, decoding the images when it is used the first time.
+   *
+   * @return the atlas
+   * @throws IOException when an image cannot be read
+   */
+  static synchronized TileAtlas getInstance() throws IOException {
+    if (instance == null) {
+      instance = new TileAtlas();
+    }
+    return instance;
+  }
+
+  /**
+   * This method gives the decoded image with the given file name.
+   *
+   * @param name the file name of the image
+   * @return the image
+   * @throws IllegalArgumentException when the image is not part of the atlas
+   */
+  BufferedImage get(String name) throws IllegalArgumentException {
+    BufferedImage image = images.get(name);
+    if (image == null) {
+      throw new IllegalArgumentException("Image " + name + " is not part of the atlas");
+    }
+    return image;
+  }
+}
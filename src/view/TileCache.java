@@ -0,0 +1,187 @@
+package view;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.ImageIcon;
+
+import dungeon.CreatureType;
+import dungeon.Location;
+import dungeon.SmellType;
+import dungeon.SoilQuality;
+import dungeon.Treasure;
+
+/**
+ * This class represents the finished images of the dungeon locations. The image of a location
+ * only depends on what is drawn on it, which is packed into a small integer key, so the layers
+ * of a location are drawn once per key and the finished image is reused by every location with
+ * the same key. The least recently used images are dropped when the cache is full.
+ */
+class TileCache {
+
+  //bits 0 - 3 hold the mask of the directions with a path
+  static final int VISITED = 1 << 4;
+  static final int OTYUGH = 1 << 5;
+  static final int ARROW = 1 << 6;
+  static final int RUBY = 1 << 7;
+  static final int DIAMOND = 1 << 8;
+  static final int SAPPHIRE = 1 << 9;
+  static final int MOVING_MONSTER = 1 << 10;
+  static final int PIT = 1 << 11;
+  static final int THIEF = 1 << 12;
+  static final int PLAYER = 1 << 13;
+  static final int LESS_PUNGENT = 1 << 14;
+  static final int HIGH_PUNGENT = 1 << 15;
+  static final int POROUS = 1 << 16;
+  static final int DENSE = 1 << 17;
+
+  //image of a location indexed by the bit mask of the directions with a path
+  private static final String[] PATH_IMAGES = {
+    "", "N.png", "S.png", "NS.png", "E.png", "NE.png", "ES.png", "NSE.png",
+    "W.png", "NW.png", "SW.png", "NSW.png", "EW.png", "NEW.png", "SEW.png", "NSEW.png"
+  };
+
+  private final TileAtlas atlas;
+  private final Map<Integer, ImageIcon> tiles;
+
+  /**
+   * Constructs an empty cache of location images.
+   *
+   * @param atlas    the decoded images the location images are drawn from
+   * @param capacity the number of location images kept
+   * @throws IllegalArgumentException when the atlas is null or the capacity is not positive
+   */
+  TileCache(TileAtlas atlas, int capacity) throws IllegalArgumentException {
+    if (atlas == null) {
+      throw new IllegalArgumentException("Atlas cannot be null");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity of the cache must be positive");
+    }
+    this.atlas = atlas;
+    this.tiles = new LinkedHashMap<Integer, ImageIcon>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, ImageIcon> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * This method gives the key of everything drawn on a location.
+   *
+   * @param location the location
+   * @param player   if the player is at the location
+   * @param smell    the smell at the player location
+   * @param soil     the soil quality at the player location
+   * @return the key of the location image
+   */
+  static int keyOf(Location location, boolean player, SmellType smell, SoilQuality soil) {
+    if (!location.hasPlayerVisited()) {
+      return 0;
+    }
+    int key = VISITED | location.getNeighborMask();
+    if (location.hasMonster()) {
+      CreatureType type = location.getMonsterType();
+      int health = location.getMonsterHealth();
+      if (type == CreatureType.OTUYGH && (health == 100 || health == 50)) {
+        key |= OTYUGH;
+      } else if (type == CreatureType.MOVING_MONSTER && health > 0) {
+        key |= MOVING_MONSTER;
+      }
+    }
+    if (location.getArrow() > 0) {
+      key |= ARROW;
+    }
+    for (Treasure treasure : location.getTreasureList()) {
+      if (treasure == Treasure.RUBY) {
+        key |= RUBY;
+      } else if (treasure == Treasure.DIAMOND) {
+        key |= DIAMOND;
+      } else if (treasure == Treasure.SAPPHIRE) {
+        key |= SAPPHIRE;
+      }
+    }
+    if (location.isContainsPit()) {
+      key |= PIT;
+    }
+    if (location.isContainsThief()) {
+      key |= THIEF;
+    }
+    if (player) {
+      key |= PLAYER;
+      if (smell == SmellType.HIGH_PUNGENT) {
+        key |= HIGH_PUNGENT;
+      } else if (smell == SmellType.LESS_PUNGENT) {
+        key |= LESS_PUNGENT;
+      }
+      if (soil == SoilQuality.DENSE) {
+        key |= DENSE;
+      } else if (soil == SoilQuality.POROUS) {
+        key |= POROUS;
+      }
+    }
+    return key;
+  }
+
+  /**
+   * This method gives the image of a location with the given key, drawing it when it is not in
+   * the cache. The cache can be used from the renderer thread and the event dispatch thread.
+   *
+   * @param key the key of the location image, see {@link #keyOf}
+   * @return the image of the location
+   */
+  synchronized ImageIcon getTile(int key) {
+    ImageIcon tile = tiles.get(key);
+    if (tile == null) {
+      tile = new ImageIcon(draw(key));
+      tiles.put(key, tile);
+    }
+    return tile;
+  }
+
+  //draws the layers in the order the dungeon has always been drawn in
+  private BufferedImage draw(int key) {
+    BufferedImage picture = atlas.get("black.png");
+    if ((key & VISITED) == 0) {
+      return picture;
+    }
+    if ((key & 0xF) != 0) {
+      picture = overlay(picture, PATH_IMAGES[key & 0xF], 0);
+    }
+    picture = overlayIf(picture, key, OTYUGH, "otyugh.png", 2);
+    picture = overlayIf(picture, key, ARROW, "arrow-white.png", 2);
+    picture = overlayIf(picture, key, RUBY, "ruby.png", 2);
+    picture = overlayIf(picture, key, DIAMOND, "diamond.png", 2);
+    picture = overlayIf(picture, key, SAPPHIRE, "emerald.png", 2);
+    picture = overlayIf(picture, key, MOVING_MONSTER, "moving-monster.png", 2);
+    picture = overlayIf(picture, key, PIT, "pit.png", 0);
+    picture = overlayIf(picture, key, THIEF, "thief.png", 2);
+    picture = overlayIf(picture, key, HIGH_PUNGENT, "stench02.png", 2);
+    picture = overlayIf(picture, key, LESS_PUNGENT, "stench01.png", 2);
+    picture = overlayIf(picture, key, DENSE, "dense.png", 2);
+    picture = overlayIf(picture, key, POROUS, "porous.png", 2);
+    picture = overlayIf(picture, key, PLAYER, "player.png", 2);
+    return picture;
+  }
+
+  private BufferedImage overlayIf(BufferedImage starting, int key, int flag, String name,
+                                  int offset) {
+    return (key & flag) == 0 ? starting : overlay(starting, name, offset);
+  }
+
+  //Code citation for buffered image: https://piazza.com/class/kt0jcw0x7h955a?cid=1500
+  private BufferedImage overlay(BufferedImage starting, String name, int offset) {
+    BufferedImage overlay = atlas.get(name);
+    int h = Math.max(starting.getHeight(), overlay.getHeight());
+    int w = Math.max(starting.getWidth(), overlay.getWidth());
+    BufferedImage combined = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+    Graphics g = combined.getGraphics();
+    g.drawImage(starting, 0, 0, null);
+    g.drawImage(overlay, offset, offset, null);
+    g.dispose();
+    return combined;
+  }
+}
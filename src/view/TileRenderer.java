@@ -0,0 +1,167 @@
+package view;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * This class composes the image of a block of dungeon locations on a background thread, so the
+ * event dispatch thread only copies a finished image to the screen and stays free for the
+ * keyboard and the mouse. A new request cancels the request still running, and the result of a
+ * cancelled request is never shown. The images of the locations whose key has not changed are
+ * copied from the previous image of the same block instead of being drawn again.
+ */
+class TileRenderer {
+
+  //one thread and one waiting request, an older waiting request is dropped for a newer one
+  private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(1, 1,
+          0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+            Thread thread = new Thread(runnable, "dungeon-renderer");
+            thread.setDaemon(true);
+            return thread;
+          }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+  private final TileCache tiles;
+  private final int tileSize;
+  private Future<?> pending;
+  private long generation;
+
+  /**
+   * This class represents a finished image of a block of locations together with the keys it
+   * was drawn from.
+   */
+  static final class Frame {
+    final int firstRow;
+    final int firstColumn;
+    final int rows;
+    final int columns;
+    final long stamp;
+    final int[] keys;
+    final BufferedImage image;
+
+    private Frame(int firstRow, int firstColumn, int rows, int columns, long stamp, int[] keys,
+                  BufferedImage image) {
+      this.firstRow = firstRow;
+      this.firstColumn = firstColumn;
+      this.rows = rows;
+      this.columns = columns;
+      this.stamp = stamp;
+      this.keys = keys;
+      this.image = image;
+    }
+
+    /**
+     * This method tells if the frame shows exactly the given block of locations.
+     *
+     * @param firstRow    the first row of the block
+     * @param firstColumn the first column of the block
+     * @param rows        the number of rows of the block
+     * @param columns     the number of columns of the block
+     * @return true if the frame shows the block
+     */
+    boolean isBlock(int firstRow, int firstColumn, int rows, int columns) {
+      return this.firstRow == firstRow && this.firstColumn == firstColumn
+              && this.rows == rows && this.columns == columns;
+    }
+  }
+
+  /**
+   * Constructs a renderer drawing from the given location images.
+   *
+   * @param tiles    the location images
+   * @param tileSize the size in pixels of a location image
+   * @throws IllegalArgumentException when the images are null or the size is not positive
+   */
+  TileRenderer(TileCache tiles, int tileSize) throws IllegalArgumentException {
+    if (tiles == null) {
+      throw new IllegalArgumentException("Tile cache cannot be null");
+    }
+    if (tileSize < 1) {
+      throw new IllegalArgumentException("Tile size must be positive");
+    }
+    this.tiles = tiles;
+    this.tileSize = tileSize;
+  }
+
+  /**
+   * This method starts drawing a block of locations and cancels the block still being drawn.
+   * It has to be called on the event dispatch thread, which is also where the finished frame is
+   * handed over.
+   *
+   * @param firstRow    the first row of the block
+   * @param firstColumn the first column of the block
+   * @param rows        the number of rows of the block
+   * @param columns     the number of columns of the block
+   * @param stamp       the version of the dungeon the keys were read from
+   * @param keys        the keys of the locations of the block, row by row
+   * @param previous    the last frame shown, reused when it shows the same block, may be null
+   * @param done        receives the finished frame
+   */
+  void render(int firstRow, int firstColumn, int rows, int columns, long stamp, int[] keys,
+              Frame previous, Consumer<Frame> done) {
+    cancel();
+    long request = ++generation;
+    Frame reuse = previous != null && previous.isBlock(firstRow, firstColumn, rows, columns)
+            ? previous : null;
+    pending = EXECUTOR.submit(() -> {
+      BufferedImage image = draw(columns, rows, keys, reuse);
+      if (image == null) {
+        return;
+      }
+      Frame frame = new Frame(firstRow, firstColumn, rows, columns, stamp, keys, image);
+      SwingUtilities.invokeLater(() -> {
+        if (request == generation) {
+          pending = null;
+          done.accept(frame);
+        }
+      });
+    });
+  }
+
+  /**
+   * This method cancels the block being drawn, its frame will not be handed over.
+   */
+  void cancel() {
+    generation++;
+    if (pending != null) {
+      pending.cancel(true);
+      pending = null;
+    }
+  }
+
+  //gives null when the drawing is cancelled
+  private BufferedImage draw(int columns, int rows, int[] keys, Frame reuse) {
+    BufferedImage image = new BufferedImage(columns * tileSize, rows * tileSize,
+            BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setComposite(AlphaComposite.Src);
+      if (reuse != null) {
+        g.drawImage(reuse.image, 0, 0, null);
+      }
+      for (int row = 0; row < rows; row++) {
+        if (Thread.currentThread().isInterrupted()) {
+          return null;
+        }
+        for (int column = 0; column < columns; column++) {
+          int i = row * columns + column;
+          if (reuse == null || reuse.keys[i] != keys[i]) {
+            g.drawImage(tiles.getTile(keys[i]).getImage(), column * tileSize, row * tileSize,
+                    null);
+          }
+        }
+      }
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+}
@@ -0,0 +1,152 @@
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark comparing the Kruskal algorithm over the packed edge buffer and the array backed
+ * union-find against the previous one, which used an object per edge, a comparison sort and a
+ * hash map based union-find. Run it with the grid size as arguments, by default a 2000 x 2000
+ * grid is used.
+ */
+public class KruskalAlgoBenchmark {
+
+  /**
+   * The edge object that was used before, kept here only as the baseline of the benchmark.
+   */
+  private static class Edge {
+    private final int src;
+    private final int dest;
+    private final int weight;
+
+    Edge(int src, int dest, int weight) {
+      this.src = src;
+      this.dest = dest;
+      this.weight = weight;
+    }
+
+    int getSrc() {
+      return src;
+    }
+
+    int getDest() {
+      return dest;
+    }
+
+    int getWeight() {
+      return weight;
+    }
+  }
+
+  /**
+   * The union-find that was used before, kept here only as the baseline of the benchmark.
+   */
+  private static class HashMapKruskal {
+
+    private Map<Integer, Integer> parent;
+
+    private void makeSet(int n) {
+      parent = new HashMap<Integer, Integer>();
+      for (int i = 0; i < n; i++) {
+        parent.put(i, i);
+      }
+    }
+
+    private int findRootOfSet(int k) {
+      if (parent.get(k) == k) {
+        return k;
+      }
+      return findRootOfSet(parent.get(k));
+    }
+
+    private void union(int a, int b) {
+      int x = findRootOfSet(a);
+      int y = findRootOfSet(b);
+      parent.put(x, y);
+    }
+
+    List<Edge> kruskalAlgo(List<Edge> edges, int n) {
+      List<Edge> mst = new ArrayList<Edge>();
+      makeSet(n);
+      int index = 0;
+      Collections.sort(edges, Comparator.comparingInt(e -> e.getWeight()));
+      while (mst.size() < n - 1) {
+        Edge nextEdge = edges.get(index++);
+        int source = findRootOfSet(nextEdge.getSrc());
+        int destination = findRootOfSet(nextEdge.getDest());
+        if (source != destination) {
+          mst.add(nextEdge);
+          union(source, destination);
+        }
+      }
+      return mst;
+    }
+  }
+
+  private static EdgeBuffer gridEdgeBuffer(int rows, int columns, long seed) {
+    Random random = new Random(seed);
+    EdgeBuffer edges = new EdgeBuffer(2 * rows * columns);
+    for (int i = 0; i < rows * columns; i++) {
+      if ((i + 1) % columns != 0) {
+        edges.add(i, i + 1, random.nextInt(6) + 3);
+      }
+      if (i < rows * columns - columns) {
+        edges.add(i, i + columns, random.nextInt(6) + 3);
+      }
+    }
+    return edges;
+  }
+
+  private static List<Edge> gridEdges(int rows, int columns, long seed) {
+    Random random = new Random(seed);
+    List<Edge> edges = new ArrayList<>(2 * rows * columns);
+    for (int i = 0; i < rows * columns; i++) {
+      if ((i + 1) % columns != 0) {
+        edges.add(new Edge(i, i + 1, random.nextInt(6) + 3));
+      }
+      if (i < rows * columns - columns) {
+        edges.add(new Edge(i, i + columns, random.nextInt(6) + 3));
+      }
+    }
+    return edges;
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional rows and columns of the grid
+   */
+  public static void main(String[] args) {
+    int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int columns = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+    int n = rows * columns;
+    System.out.println("Grid " + rows + " x " + columns + ", " + n + " locations");
+
+    for (int round = 0; round < 3; round++) {
+      EdgeBuffer buffer = gridEdgeBuffer(rows, columns, round);
+      long start = System.nanoTime();
+      int[] tree = new KruskalAlgo().kruskalAlgo(buffer, n);
+      long arrayTime = System.nanoTime() - start;
+      System.out.printf("edge buffer, int[] union-find: %8.1f ms (%d edges)%n",
+              arrayTime / 1e6, tree.length);
+      buffer = null;
+
+      List<Edge> edges = gridEdges(rows, columns, round);
+      start = System.nanoTime();
+      try {
+        List<Edge> mst = new HashMapKruskal().kruskalAlgo(edges, n);
+        long mapTime = System.nanoTime() - start;
+        System.out.printf("Edge objects, HashMap union-find: %8.1f ms (%d edges), %.1fx slower%n",
+                mapTime / 1e6, mst.size(), (double) mapTime / arrayTime);
+      } catch (StackOverflowError e) {
+        System.out.printf("Edge objects, HashMap union-find: stack overflow after %.1f ms%n",
+                (System.nanoTime() - start) / 1e6);
+      }
+    }
+  }
+}
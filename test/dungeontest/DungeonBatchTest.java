@@ -0,0 +1,163 @@
+package dungeontest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import dungeon.Dungeon;
+import dungeon.DungeonBatch;
+import dungeon.DungeonSettings;
+import dungeon.Player;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class to test stepping a batch of games together.
+ */
+public class DungeonBatchTest {
+
+  private static final DungeonSettings SETTINGS = new DungeonSettings(8, 9, 6, 60,
+          true, 4, 2, 2, 2);
+  private static final int SIZE = 6;
+
+  private void assertObserved(DungeonBatch batch, int[] observations) {
+    for (int i = 0; i < batch.size(); i++) {
+      Dungeon dungeon = batch.getDungeon(i);
+      Player player = dungeon.getPlayer();
+      int offset = i * DungeonBatch.OBSERVATION_SIZE;
+      assertEquals(dungeon.checkSmell().ordinal(), observations[offset + DungeonBatch.SMELL]);
+      assertEquals(dungeon.checkSoilType().ordinal(), observations[offset + DungeonBatch.SOIL]);
+      assertEquals(player.getCurrentLocation().getNeighborMask(),
+              observations[offset + DungeonBatch.NEIGHBORS]);
+      assertEquals(player.getArrowCount(), observations[offset + DungeonBatch.ARROWS]);
+      assertEquals(player.getHealth(), observations[offset + DungeonBatch.HEALTH]);
+    }
+  }
+
+  //moves along the first path of every player location
+  private int[] firstPaths(int[] observations) {
+    int[] actions = new int[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      int mask = observations[i * DungeonBatch.OBSERVATION_SIZE + DungeonBatch.NEIGHBORS];
+      actions[i] = Integer.numberOfTrailingZeros(mask);
+    }
+    return actions;
+  }
+
+  @Test
+  public void testResetObservesEveryGame() {
+    DungeonBatch batch = new DungeonBatch(SETTINGS, SIZE, 3L, 100);
+    int[] observations = new int[SIZE * DungeonBatch.OBSERVATION_SIZE];
+    batch.reset(observations);
+    assertObserved(batch, observations);
+    for (int i = 0; i < SIZE; i++) {
+      assertEquals(100, observations[i * DungeonBatch.OBSERVATION_SIZE + DungeonBatch.HEALTH]);
+    }
+  }
+
+  @Test
+  public void testStepObservesEveryGame() {
+    DungeonBatch batch = new DungeonBatch(SETTINGS, SIZE, 3L, 100);
+    int[] observations = new int[SIZE * DungeonBatch.OBSERVATION_SIZE];
+    float[] rewards = new float[SIZE];
+    boolean[] done = new boolean[SIZE];
+    batch.reset(observations);
+    int[] pickUp = new int[SIZE];
+    Arrays.fill(pickUp, DungeonBatch.PICK_UP);
+    for (int step = 0; step < 20; step++) {
+      batch.step(step % 2 == 0 ? firstPaths(observations) : pickUp, observations, rewards,
+              done);
+      assertObserved(batch, observations);
+      for (int i = 0; i < SIZE; i++) {
+        assertTrue(done[i] || rewards[i] == 0);
+      }
+    }
+  }
+
+  @Test
+  public void testSameSeedPlaysSameGames() {
+    DungeonBatch first = new DungeonBatch(SETTINGS, SIZE, 9L, 100);
+    DungeonBatch second = new DungeonBatch(SETTINGS, SIZE, 9L, 100);
+    int[] firstObservations = new int[SIZE * DungeonBatch.OBSERVATION_SIZE];
+    int[] secondObservations = new int[SIZE * DungeonBatch.OBSERVATION_SIZE];
+    float[] firstRewards = new float[SIZE];
+    float[] secondRewards = new float[SIZE];
+    boolean[] done = new boolean[SIZE];
+    first.reset(firstObservations);
+    second.reset(secondObservations);
+    for (int step = 0; step < 30; step++) {
+      int[] actions = firstPaths(firstObservations);
+      first.step(actions, firstObservations, firstRewards, done);
+      second.step(actions, secondObservations, secondRewards, done);
+      assertArrayEquals(firstObservations, secondObservations);
+      assertArrayEquals(firstRewards, secondRewards, 0);
+    }
+  }
+
+  @Test
+  public void testGameRestartsAfterMostSteps() {
+    DungeonBatch batch = new DungeonBatch(SETTINGS, SIZE, 3L, 1);
+    int[] observations = new int[SIZE * DungeonBatch.OBSERVATION_SIZE];
+    float[] rewards = new float[SIZE];
+    boolean[] done = new boolean[SIZE];
+    batch.reset(observations);
+    int[] start = new int[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      start[i] = batch.getDungeon(i).getPlayer().getCurrentLocation().getId();
+    }
+    int[] shoot = new int[SIZE];
+    Arrays.fill(shoot, DungeonBatch.SHOOT);
+    batch.step(shoot, observations, rewards, done);
+    for (int i = 0; i < SIZE; i++) {
+      assertTrue(done[i]);
+      assertEquals(start[i], batch.getDungeon(i).getPlayer().getCurrentLocation().getId());
+      assertEquals(3, observations[i * DungeonBatch.OBSERVATION_SIZE + DungeonBatch.ARROWS]);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStepBeforeReset() {
+    new DungeonBatch(SETTINGS, 1, 3L, 10).step(new int[1], new int[5], new float[1],
+            new boolean[1]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownAction() {
+    DungeonBatch batch = new DungeonBatch(SETTINGS, 1, 3L, 10);
+    batch.reset(new int[5]);
+    batch.step(new int[]{9}, new int[5], new float[1], new boolean[1]);
+  }
+
+  @Test
+  public void testRejectedStepChangesNoGame() {
+    DungeonBatch batch = new DungeonBatch(SETTINGS, 2, 3L, 1);
+    batch.reset(new int[10]);
+    Dungeon first = batch.getDungeon(0);
+    int location = first.getPlayer().getCurrentLocation().getId();
+    int arrows = first.getPlayer().getArrowCount();
+    try {
+      batch.step(new int[]{DungeonBatch.PICK_UP, 99}, new int[10], new float[2],
+              new boolean[2]);
+      fail("Step with an unknown action should be rejected");
+    } catch (IllegalArgumentException e) {
+      //the first game would have been restarted after its only step
+      assertSame(first, batch.getDungeon(0));
+      assertEquals(location, first.getPlayer().getCurrentLocation().getId());
+      assertEquals(arrows, first.getPlayer().getArrowCount());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testObservationsTooSmall() {
+    new DungeonBatch(SETTINGS, 2, 3L, 10).reset(new int[9]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeNotPositive() {
+    new DungeonBatch(SETTINGS, 0, 3L, 10);
+  }
+}
@@ -1,5 +1,11 @@
 package dungeontest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -7,10 +13,13 @@ import dungeon.CreatureType;
 import dungeon.Direction;
 import dungeon.Dungeon;
 import dungeon.DungeonImpl;
+import dungeon.GenerationMonitor;
+import dungeon.GenerationPhase;
 import dungeon.Location;
 import dungeon.SmellType;
 import dungeon.SoilQuality;
 import randomizer.FixedRandomizer;
+import randomizer.SeededRandomizer;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
@@ -145,7 +154,7 @@ public class DungeonImplTest {
             + "-->NORTH Neighbor: CAVE: 29\n"
             + "-->SOUTH Neighbor: CAVE: 8\n"
             + "-->EAST Neighbor: CAVE: 2\n"
-            + "-->WEST Neighbor: CAVE: 7\n"
+            + "-->WEST Neighbor: CAVE: 0\n"
             + "###Otyugh###\n"
             + "Arrow Count: 2\n"
             + "\n"
@@ -153,15 +162,15 @@ public class DungeonImplTest {
             + "-->NORTH Neighbor: CAVE: 30\n"
             + "-->SOUTH Neighbor: CAVE: 9\n"
             + "-->EAST Neighbor: CAVE: 3\n"
-            + "-->WEST Neighbor: CAVE: 8\n"
+            + "-->WEST Neighbor: CAVE: 1\n"
             + "###Otyugh###\n"
             + "Arrow Count: 2\n"
             + "\n"
             + "CAVE: 3\n"
             + "-->NORTH Neighbor: CAVE: 31\n"
-            + "-->SOUTH Neighbor: CAVE: 10\n"
+            + "-->SOUTH Neighbor: TUNNEL: 10\n"
             + "-->EAST Neighbor: CAVE: 4\n"
-            + "-->WEST Neighbor: CAVE: 9\n"
+            + "-->WEST Neighbor: CAVE: 2\n"
             + "###Otyugh###\n"
             + "Arrow Count: 2\n"
             + "\n"
@@ -169,42 +178,45 @@ public class DungeonImplTest {
             + "-->NORTH Neighbor: CAVE: 32\n"
             + "-->SOUTH Neighbor: TUNNEL: 11\n"
             + "-->EAST Neighbor: CAVE: 5\n"
-            + "-->WEST Neighbor: CAVE: 10\n"
+            + "-->WEST Neighbor: CAVE: 3\n"
             + "###Otyugh###\n"
             + "Arrow Count: 2\n"
             + "\n"
             + "CAVE: 5\n"
             + "-->NORTH Neighbor: CAVE: 33\n"
             + "-->SOUTH Neighbor: TUNNEL: 12\n"
+            + "-->EAST Neighbor: CAVE: 6\n"
             + "-->WEST Neighbor: CAVE: 4\n"
             + "Arrow Count: 2_____PIT_____\n"
             + "\n"
             + "CAVE: 6\n"
             + "-->NORTH Neighbor: CAVE: 34\n"
-            + "-->SOUTH Neighbor: TUNNEL: 13\n"
+            + "-->SOUTH Neighbor: CAVE: 13\n"
             + "-->EAST Neighbor: CAVE: 0\n"
+            + "-->WEST Neighbor: CAVE: 5\n"
             + "###MovingMonster###\n"
             + "Arrow Count: 2\n"
             + "\n"
             + "CAVE: 7\n"
             + "-->NORTH Neighbor: CAVE: 0\n"
             + "-->SOUTH Neighbor: TUNNEL: 14\n"
-            + "-->EAST Neighbor: CAVE: 1^^^^^THIEF^^^^^\n"
+            + "-->EAST Neighbor: CAVE: 8\n"
+            + "-->WEST Neighbor: CAVE: 13^^^^^THIEF^^^^^\n"
             + "\n"
             + "CAVE: 8\n"
             + "-->NORTH Neighbor: CAVE: 1\n"
             + "-->SOUTH Neighbor: TUNNEL: 15\n"
-            + "-->EAST Neighbor: CAVE: 2\n"
+            + "-->EAST Neighbor: CAVE: 9\n"
+            + "-->WEST Neighbor: CAVE: 7\n"
             + "\n"
             + "CAVE: 9\n"
             + "-->NORTH Neighbor: CAVE: 2\n"
             + "-->SOUTH Neighbor: TUNNEL: 16\n"
-            + "-->EAST Neighbor: CAVE: 3\n"
+            + "-->WEST Neighbor: CAVE: 8\n"
             + "\n"
-            + "CAVE: 10\n"
+            + "TUNNEL: 10\n"
             + "-->NORTH Neighbor: CAVE: 3\n"
             + "-->SOUTH Neighbor: TUNNEL: 17\n"
-            + "-->EAST Neighbor: CAVE: 4\n"
             + "\n"
             + "TUNNEL: 11\n"
             + "-->NORTH Neighbor: CAVE: 4\n"
@@ -214,9 +226,10 @@ public class DungeonImplTest {
             + "-->NORTH Neighbor: CAVE: 5\n"
             + "-->SOUTH Neighbor: TUNNEL: 19\n"
             + "\n"
-            + "TUNNEL: 13\n"
+            + "CAVE: 13\n"
             + "-->NORTH Neighbor: CAVE: 6\n"
             + "-->SOUTH Neighbor: TUNNEL: 20\n"
+            + "-->EAST Neighbor: CAVE: 7\n"
             + "\n"
             + "TUNNEL: 14\n"
             + "-->NORTH Neighbor: CAVE: 7\n"
@@ -231,7 +244,7 @@ public class DungeonImplTest {
             + "-->SOUTH Neighbor: CAVE: 23\n"
             + "\n"
             + "TUNNEL: 17\n"
-            + "-->NORTH Neighbor: CAVE: 10\n"
+            + "-->NORTH Neighbor: TUNNEL: 10\n"
             + "-->SOUTH Neighbor: CAVE: 24\n"
             + "\n"
             + "TUNNEL: 18\n"
@@ -243,7 +256,7 @@ public class DungeonImplTest {
             + "-->SOUTH Neighbor: CAVE: 26\n"
             + "\n"
             + "TUNNEL: 20\n"
-            + "-->NORTH Neighbor: TUNNEL: 13\n"
+            + "-->NORTH Neighbor: CAVE: 13\n"
             + "-->SOUTH Neighbor: CAVE: 27\n"
             + "\n"
             + "CAVE: 21\n"
@@ -257,13 +270,13 @@ public class DungeonImplTest {
             + "\n"
             + "CAVE: 24\n"
             + "-->NORTH Neighbor: TUNNEL: 17\n"
+            + "###Otyugh###\n"
             + "\n"
             + "CAVE: 25\n"
             + "-->NORTH Neighbor: TUNNEL: 18\n"
             + "\n"
             + "CAVE: 26\n"
             + "-->NORTH Neighbor: TUNNEL: 19\n"
-            + "###Otyugh###\n"
             + "\n"
             + "CAVE: 27\n"
             + "-->NORTH Neighbor: TUNNEL: 20\n"
@@ -691,4 +704,182 @@ public class DungeonImplTest {
     }
     assertEquals(2, mvCount);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSameSeedCreatesSameDungeon() {
+    for (boolean wrapping : new boolean[]{false, true}) {
+      Dungeon first = new DungeonImpl(8, 9, 6, 30,
+              wrapping, 4, 2, 2, 2,
+              new SeededRandomizer(42L));
+      Dungeon second = new DungeonImpl(8, 9, 6, 30,
+              wrapping, 4, 2, 2, 2,
+              new SeededRandomizer(42L));
+      assertEquals(first.toString(), second.toString());
+      assertEquals(first.getStartCave().getId(), second.getStartCave().getId());
+      assertEquals(first.getEndCave().getId(), second.getEndCave().getId());
+
+      for (String move : new String[]{"N", "E", "S", "W", "E", "S"}) {
+        if (first.getPlayer().getHealth() > 0) {
+          assertEquals(first.nextMove(move), second.nextMove(move));
+        }
+      }
+      assertEquals(first.toString(), second.toString());
+    }
+  }
+
+  @Test
+  public void testStartAndEndFoundWhenSweepFallsShort() {
+    //the sweep of this dungeon misses the caves 5 moves apart because of its extra paths
+    Dungeon small = new DungeonImpl(3, 4, 3, 20,
+            false, 1, 0, 0, 0,
+            new SeededRandomizer(3L));
+    int endId = small.getEndCave().getId();
+    for (Map.Entry<Location, Integer> level : small.dfs(small.getStartCave()).entrySet()) {
+      if (level.getKey().getId() == endId) {
+        assertTrue(level.getValue() >= 5);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDungeonOfTunnelsOnly() {
+    //every location of a wrapping row joined in one loop has two paths, so none is a cave
+    new DungeonImpl(1, 10, 1, 20,
+            true, 1, 0, 0, 0,
+            new SeededRandomizer(3L));
+  }
+
+  @Test
+  public void testChangedLocationsAfterMove() {
+    long version = dungeon.getChangeVersion();
+    dungeon.nextMove("N");
+    assertEquals(version, dungeon.getChangeVersion());
+    assertEquals(0, dungeon.getChangedLocations(version).length);
+
+    dungeon.nextMove("S");
+    int[] changed = dungeon.getChangedLocations(version);
+    assertTrue(Arrays.binarySearch(changed, 1) >= 0);
+    assertTrue(Arrays.binarySearch(changed, 8) >= 0);
+    for (int i = 1; i < changed.length; i++) {
+      assertTrue(changed[i - 1] < changed[i]);
+    }
+    assertEquals(0, dungeon.getChangedLocations(dungeon.getChangeVersion()).length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testChangedLocationsAfterFutureVersion() {
+    dungeon.getChangedLocations(dungeon.getChangeVersion() + 1);
+  }
+
+  @Test
+  public void testGenerationReportsPhasesInOrder() {
+    List<GenerationPhase> phases = new ArrayList<>();
+    Dungeon monitored = new DungeonImpl(5, 7, 4, 20,
+            false, 5, 1, 1, 1,
+            new FixedRandomizer(2), new GenerationMonitor() {
+              @Override
+              public void phaseStarted(GenerationPhase phase) {
+                phases.add(phase);
+              }
+
+              @Override
+              public boolean isCancelled() {
+                return false;
+              }
+            });
+    assertEquals(Arrays.asList(GenerationPhase.values()), phases);
+    assertEquals(dungeon.toString(), monitored.toString());
+  }
+
+  @Test(expected = CancellationException.class)
+  public void testGenerationCancelled() {
+    new DungeonImpl(5, 7, 4, 20,
+            false, 5, 1, 1, 1,
+            new FixedRandomizer(2), new GenerationMonitor() {
+              private int started;
+
+              @Override
+              public void phaseStarted(GenerationPhase phase) {
+                started++;
+              }
+
+              @Override
+              public boolean isCancelled() {
+                return started == 2;
+              }
+            });
+  }
+
+  //the state of every location, including what the dungeon description leaves out
+  private String locationState(List<Location> locations) {
+    StringBuilder sb = new StringBuilder();
+    for (Location location : locations) {
+      sb.append(location.getId()).append(location.getTreasureList())
+              .append(location.getArrow()).append(location.isContainsPit())
+              .append(location.isContainsThief()).append(location.hasPlayerVisited());
+      if (location.hasMonster()) {
+        sb.append(location.getMonster().getMonsterType())
+                .append(location.getMonster().getHealth());
+      }
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testRestartGoesBackToCreatedDungeon() {
+    Dungeon played = new DungeonImpl(8, 9, 6, 60,
+            true, 4, 2, 2, 2,
+            new SeededRandomizer(11L));
+    String created = played.toString();
+    String createdState = locationState(played.getLocationList());
+    String snapshot = locationState(played.getFinalLocationList());
+    int start = played.getPlayer().getCurrentLocation().getId();
+
+    for (String move : new String[]{"N", "E", "S", "W", "E", "S", "N", "W"}) {
+      if (played.getPlayer().getHealth() > 0) {
+        played.pickTreasure();
+        played.pickArrow();
+        played.shootArrow(1, move);
+        played.nextMove(move);
+      }
+    }
+    assertEquals(snapshot, locationState(played.getFinalLocationList()));
+
+    Dungeon restarted = new DungeonImpl(played);
+    assertEquals(created, restarted.toString());
+    assertEquals(createdState, locationState(restarted.getLocationList()));
+    assertEquals(start, restarted.getPlayer().getCurrentLocation().getId());
+    assertEquals(100, restarted.getPlayer().getHealth());
+    assertEquals(played.getStartCave().getId(), restarted.getStartCave().getId());
+    assertEquals(played.getEndCave().getId(), restarted.getEndCave().getId());
+
+    restarted.nextMove("S");
+    Dungeon again = new DungeonImpl(restarted);
+    assertEquals(createdState, locationState(again.getLocationList()));
+    assertEquals(created, again.toString());
+  }
+
+  @Test
+  public void testRestartLeavesOldDungeonAlone() {
+    Dungeon played = new DungeonImpl(8, 9, 6, 60,
+            true, 4, 2, 2, 2,
+            new SeededRandomizer(11L));
+    for (String move : new String[]{"N", "E", "S", "W"}) {
+      if (played.getPlayer().getHealth() > 0) {
+        played.pickTreasure();
+        played.pickArrow();
+        played.nextMove(move);
+      }
+    }
+    String playedState = locationState(played.getLocationList());
+    long version = played.getChangeVersion();
+
+    Dungeon restarted = new DungeonImpl(played);
+    restarted.pickTreasure();
+    restarted.pickArrow();
+    restarted.nextMove("S");
+    assertEquals(playedState, locationState(played.getLocationList()));
+    assertEquals(version, played.getChangeVersion());
+  }
+}
@@ -0,0 +1,116 @@
+package dungeontest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import dungeon.Dungeon;
+import dungeon.DungeonPool;
+import dungeon.DungeonSettings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class to test the pool of dungeons created ahead of time.
+ */
+public class DungeonPoolTest {
+
+  private static final DungeonSettings SMALL = new DungeonSettings(5, 7, 4, 20,
+          false, 5, 1, 1, 1);
+  private static final DungeonSettings WRAPPING = new DungeonSettings(6, 6, 2, 30,
+          true, 3, 1, 1, 1);
+
+  private DungeonPool pool;
+
+  @After
+  public void tearDown() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  //waits for the background thread to create the dungeons
+  private void awaitAvailable(DungeonSettings settings, int count) throws InterruptedException {
+    TestHelper.await(() -> pool.available(settings) >= count);
+    assertEquals(count, pool.available(settings));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPoolSize() {
+    new DungeonPool(0, 1, 1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBudget() {
+    new DungeonPool(1, 1, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullSettings() {
+    pool = new DungeonPool(1, 1, 1000);
+    pool.take(null);
+  }
+
+  @Test
+  public void testPoolFillsAfterFirstRequest() throws InterruptedException {
+    pool = new DungeonPool(2, 2, Long.MAX_VALUE);
+    assertNull(pool.take(SMALL));
+    awaitAvailable(SMALL, 2);
+
+    Dungeon dungeon = pool.take(SMALL);
+    assertNotNull(dungeon);
+    assertEquals(5, dungeon.getRows());
+    assertEquals(7, dungeon.getColumns());
+    assertEquals(4, dungeon.getInterConnectivity());
+    assertEquals(false, dungeon.getWrapping());
+    awaitAvailable(SMALL, 2);
+  }
+
+  @Test
+  public void testSettingsAreEqualByValue() throws InterruptedException {
+    pool = new DungeonPool(1, 2, Long.MAX_VALUE);
+    pool.take(SMALL);
+    awaitAvailable(new DungeonSettings(5, 7, 4, 20, false, 5, 1, 1, 1), 1);
+  }
+
+  @Test
+  public void testMemoryBudgetLimitsPool() throws InterruptedException {
+    pool = new DungeonPool(3, 2, 0);
+    assertNull(pool.take(SMALL));
+    assertTrue(pool.awaitIdle(10, TimeUnit.SECONDS));
+    assertEquals(0, pool.available(SMALL));
+    assertEquals(0, pool.getMemoryUsed());
+  }
+
+  @Test
+  public void testLeastRecentSettingsDropped() throws InterruptedException {
+    pool = new DungeonPool(1, 1, Long.MAX_VALUE);
+    pool.take(SMALL);
+    awaitAvailable(SMALL, 1);
+    pool.take(WRAPPING);
+    assertEquals(0, pool.available(SMALL));
+    awaitAvailable(WRAPPING, 1);
+    assertEquals(true, pool.take(WRAPPING).getWrapping());
+  }
+
+  @Test
+  public void testAwaitIdleWaitsForRefill() throws InterruptedException {
+    pool = new DungeonPool(2, 1, Long.MAX_VALUE);
+    pool.take(SMALL);
+    assertTrue(pool.awaitIdle(10, TimeUnit.SECONDS));
+    assertEquals(2, pool.available(SMALL));
+  }
+
+  @Test
+  public void testInvalidSettingsNeverPooled() throws InterruptedException {
+    pool = new DungeonPool(1, 1, Long.MAX_VALUE);
+    DungeonSettings invalid = new DungeonSettings(-1, 7, 4, 20, false, 5, 1, 1, 1);
+    assertNull(pool.take(invalid));
+    assertTrue(pool.awaitIdle(10, TimeUnit.SECONDS));
+    assertEquals(0, pool.available(invalid));
+  }
+}
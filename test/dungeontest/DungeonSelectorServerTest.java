@@ -0,0 +1,215 @@
+package dungeontest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import dungeon.DungeonSelectorServer;
+import dungeon.DungeonSettings;
+
+import static dungeontest.TestHelper.await;
+import static dungeontest.TestHelper.reader;
+import static dungeontest.TestHelper.readUntil;
+import static dungeontest.TestHelper.send;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class to test playing games over loopback connections served by selectors.
+ */
+public class DungeonSelectorServerTest {
+
+  private static final DungeonSettings SETTINGS = new DungeonSettings(6, 6, 2, 50,
+          false, 2, 1, 1, 0);
+  private static final String PROMPT = "> ";
+
+  private DungeonSelectorServer server;
+
+  @After
+  public void tearDown() throws IOException {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private void start(int maxSessions, int idleTimeoutMillis, int selectors) throws IOException {
+    server = new DungeonSelectorServer(0, SETTINGS, maxSessions, idleTimeoutMillis, selectors);
+    server.start();
+  }
+
+  private Socket connect() throws IOException {
+    return TestHelper.connect(server.getPort());
+  }
+
+  private void awaitSessions(int count) throws InterruptedException {
+    await(() -> server.getSessionCount() == count);
+    assertEquals(count, server.getSessionCount());
+  }
+
+  @Test
+  public void testPlayAndQuit() throws IOException, InterruptedException {
+    start(4, 10_000, 1);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      assertTrue(readUntil(reader, PROMPT).startsWith("Commands:"));
+      send(socket, "L\n");
+      String look = readUntil(reader, PROMPT);
+      assertTrue(look.contains("Smell: "));
+      assertTrue(look.contains("Soil Quality: "));
+      send(socket, "P A\n");
+      assertTrue(readUntil(reader, PROMPT).contains("Soil Quality: "));
+      send(socket, "S 9 E\n");
+      assertTrue(readUntil(reader, PROMPT).contains("Soil Quality: "));
+      send(socket, "X\n");
+      assertTrue(readUntil(reader, PROMPT).startsWith("Invalid entry."));
+      send(socket, "Q\n");
+      assertEquals("Game Quit!\n", readUntil(reader, "Game Quit!\n"));
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testCommandsSplitAndPipelined() throws IOException, InterruptedException {
+    start(4, 10_000, 1);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      readUntil(reader, PROMPT);
+      send(socket, "P");
+      Thread.sleep(50);
+      send(socket, " T\r\nL\n\nL");
+      Thread.sleep(50);
+      send(socket, "\nQ\n");
+      assertTrue(readUntil(reader, PROMPT).contains("Smell: "));
+      assertTrue(readUntil(reader, PROMPT).contains("Smell: "));
+      assertEquals(PROMPT, readUntil(reader, PROMPT));
+      assertTrue(readUntil(reader, PROMPT).contains("Smell: "));
+      assertEquals("Game Quit!\n", readUntil(reader, "Game Quit!\n"));
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testManyPlayersAtOnce() throws IOException, InterruptedException {
+    start(1000, 10_000, 3);
+    List<Socket> sockets = new ArrayList<>();
+    try {
+      for (int i = 0; i < 300; i++) {
+        sockets.add(connect());
+      }
+      List<Reader> readers = new ArrayList<>();
+      for (Socket socket : sockets) {
+        Reader reader = reader(socket);
+        assertTrue(readUntil(reader, PROMPT).startsWith("Commands:"));
+        readers.add(reader);
+      }
+      awaitSessions(300);
+      for (int i = 0; i < sockets.size(); i += 10) {
+        send(sockets.get(i), "L\nQ\n");
+        assertTrue(readUntil(readers.get(i), PROMPT).contains("Smell: "));
+        assertEquals("Game Quit!\n", readUntil(readers.get(i), "Game Quit!\n"));
+      }
+      awaitSessions(270);
+    } finally {
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testPlayerOverLimitIsRejected() throws IOException, InterruptedException {
+    start(1, 10_000, 2);
+    try (Socket first = connect()) {
+      readUntil(reader(first), PROMPT);
+      try (Socket second = connect()) {
+        Reader reader = reader(second);
+        assertEquals("Server is full, try again later\n", readUntil(reader, "\n"));
+        assertEquals(-1, reader.read());
+      }
+      awaitSessions(1);
+    }
+    awaitSessions(0);
+    try (Socket third = connect()) {
+      assertTrue(readUntil(reader(third), PROMPT).startsWith("Commands:"));
+    }
+  }
+
+  @Test
+  public void testIdleSessionTimesOut() throws IOException, InterruptedException {
+    start(2, 200, 1);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      readUntil(reader, PROMPT);
+      assertEquals("\nSession timed out\n", readUntil(reader, "Session timed out\n"));
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testLineTooLong() throws IOException, InterruptedException {
+    start(2, 10_000, 1);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      readUntil(reader, PROMPT);
+      StringBuilder line = new StringBuilder();
+      for (int i = 0; i < DungeonSelectorServer.MAX_LINE; i++) {
+        line.append('M');
+      }
+      send(socket, line.toString());
+      assertEquals("Line is too long\n", readUntil(reader, "Line is too long\n"));
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testCloseEndsSessions() throws IOException, InterruptedException {
+    start(2, 10_000, 2);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      readUntil(reader, PROMPT);
+      awaitSessions(1);
+      server.close();
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSelectorsNotPositive() throws IOException {
+    new DungeonSelectorServer(0, SETTINGS, 1, 1000, 0);
+  }
+
+  @Test
+  public void testShotTooFarIsRefused() throws IOException {
+    start(2, 10_000, 1);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      readUntil(reader, PROMPT);
+      send(socket, "S 2147483647 E\n");
+      String answer = readUntil(reader, PROMPT);
+      assertTrue(answer.startsWith("Distance should be at most 5"));
+      assertTrue(answer.contains("Soil Quality: "));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSettings() throws IOException {
+    new DungeonSelectorServer(0, new DungeonSettings(-1, 6, 2, 50, false, 2, 1, 1, 0), 1,
+            1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullSettings() throws IOException {
+    new DungeonSelectorServer(0, null, 1, 1000);
+  }
+}
@@ -0,0 +1,202 @@
+package dungeontest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import dungeon.DungeonServer;
+import dungeon.DungeonSettings;
+
+import static dungeontest.TestHelper.await;
+import static dungeontest.TestHelper.reader;
+import static dungeontest.TestHelper.readUntil;
+import static dungeontest.TestHelper.send;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class to test playing games over loopback connections.
+ */
+public class DungeonServerTest {
+
+  private static final DungeonSettings SETTINGS = new DungeonSettings(6, 6, 2, 50,
+          false, 2, 1, 1, 0);
+  private static final String PROMPT = "What do you want to do?";
+
+  private DungeonServer server;
+
+  @After
+  public void tearDown() throws IOException {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private DungeonServer start(int maxSessions, int idleTimeoutMillis) throws IOException {
+    server = new DungeonServer(0, SETTINGS, maxSessions, idleTimeoutMillis);
+    server.start();
+    return server;
+  }
+
+  private Socket connect() throws IOException {
+    return TestHelper.connect(server.getPort());
+  }
+
+  private void awaitSessions(int count) throws InterruptedException {
+    await(() -> server.getSessionCount() == count);
+    assertEquals(count, server.getSessionCount());
+  }
+
+  @Test
+  public void testPlayAndQuit() throws IOException, InterruptedException {
+    start(4, 10_000);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      assertNotNull(readUntil(reader, PROMPT));
+      awaitSessions(1);
+      send(socket, "P\n");
+      assertNotNull(readUntil(reader, "What? A/T"));
+      send(socket, "A\n");
+      assertNotNull(readUntil(reader, PROMPT));
+      send(socket, "Q\n");
+      assertNotNull(readUntil(reader, "Game Quit!\n"));
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testManyPlayersAtOnce() throws IOException, InterruptedException {
+    start(64, 10_000);
+    List<Socket> sockets = new ArrayList<>();
+    try {
+      for (int i = 0; i < 40; i++) {
+        sockets.add(connect());
+      }
+      List<Reader> readers = new ArrayList<>();
+      for (Socket socket : sockets) {
+        Reader reader = reader(socket);
+        assertNotNull(readUntil(reader, PROMPT));
+        readers.add(reader);
+      }
+      awaitSessions(40);
+      for (int i = 0; i < sockets.size(); i++) {
+        send(sockets.get(i), "Q\n");
+        assertNotNull(readUntil(readers.get(i), "Game Quit!"));
+      }
+    } finally {
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testPlayerOverLimitIsRejected() throws IOException, InterruptedException {
+    start(1, 10_000);
+    try (Socket first = connect()) {
+      assertNotNull(readUntil(reader(first), PROMPT));
+      try (Socket second = connect()) {
+        Reader reader = reader(second);
+        assertEquals("Server is full, try again later\n", readUntil(reader, "\n"));
+        assertEquals(-1, reader.read());
+      }
+      awaitSessions(1);
+    }
+    awaitSessions(0);
+    try (Socket third = connect()) {
+      assertNotNull(readUntil(reader(third), PROMPT));
+    }
+  }
+
+  @Test
+  public void testFreedSlotIsReusedAtOnce() throws IOException, InterruptedException {
+    start(1, 10_000);
+    for (int i = 0; i < 30; i++) {
+      try (Socket socket = connect()) {
+        Reader reader = reader(socket);
+        assertNotNull(readUntil(reader, PROMPT));
+        send(socket, "Q\n");
+        assertNotNull(readUntil(reader, "Game Quit!\n"));
+        assertEquals(-1, reader.read());
+      }
+      awaitSessions(0);
+    }
+  }
+
+  @Test
+  public void testIdleSessionTimesOut() throws IOException, InterruptedException {
+    start(2, 200);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      assertNotNull(readUntil(reader, PROMPT));
+      assertNotNull(readUntil(reader, "Session timed out\n"));
+      assertEquals(-1, reader.read());
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testDisconnectInMiddleOfCommand() throws IOException, InterruptedException {
+    start(2, 10_000);
+    try (Socket socket = connect()) {
+      assertNotNull(readUntil(reader(socket), PROMPT));
+      send(socket, "M\n");
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testCloseEndsSessions() throws IOException, InterruptedException {
+    start(2, 10_000);
+    try (Socket socket = connect()) {
+      Reader reader = reader(socket);
+      assertNotNull(readUntil(reader, PROMPT));
+      server.close();
+      assertNull(readUntil(reader, PROMPT));
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void testAwaitCloseReturnsOnceClosed() throws Exception {
+    start(2, 10_000);
+    Thread waiter = new Thread(() -> {
+      try {
+        server.awaitClose();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiter.start();
+    waiter.join(200);
+    assertTrue(waiter.isAlive());
+    server.close();
+    waiter.join(10_000);
+    assertTrue(!waiter.isAlive());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAwaitCloseBeforeStart() throws Exception {
+    server = new DungeonServer(0, SETTINGS, 1, 1000);
+    server.awaitClose();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSessionLimitNotPositive() throws IOException {
+    new DungeonServer(0, SETTINGS, 0, 1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullSettings() throws IOException {
+    new DungeonServer(0, null, 1, 1000);
+  }
+}
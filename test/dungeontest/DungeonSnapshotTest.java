@@ -0,0 +1,176 @@
+package dungeontest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import dungeon.Dungeon;
+import dungeon.DungeonImpl;
+import dungeon.DungeonSnapshot;
+import dungeon.Location;
+import dungeon.Player;
+import randomizer.SeededRandomizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class to test saving a dungeon to a file and loading it back.
+ */
+public class DungeonSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Dungeon createDungeon(boolean wrapping) {
+    return new DungeonImpl(8, 9, 6, 60,
+            wrapping, 4, 2, 2, 2,
+            new SeededRandomizer(11L));
+  }
+
+  private Dungeon saveAndLoad(Dungeon dungeon) throws IOException {
+    Path file = folder.newFile().toPath();
+    DungeonSnapshot.save(dungeon, file);
+    return DungeonSnapshot.load(file);
+  }
+
+  private String locationState(List<Location> locations) {
+    StringBuilder sb = new StringBuilder();
+    for (Location location : locations) {
+      sb.append(location.getId()).append(location.getLocationType())
+              .append(location.getNeighborMask()).append(location.getTreasureList())
+              .append(location.getArrow()).append(location.isContainsPit())
+              .append(location.isContainsThief()).append(location.hasPlayerVisited());
+      if (location.hasMonster()) {
+        sb.append(location.getMonster().getMonsterType())
+                .append(location.getMonster().getHealth());
+      }
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+
+  private void assertSameDungeon(Dungeon expected, Dungeon actual) {
+    assertEquals(expected.getRows(), actual.getRows());
+    assertEquals(expected.getColumns(), actual.getColumns());
+    assertEquals(expected.getInterConnectivity(), actual.getInterConnectivity());
+    assertEquals(expected.getWrapping(), actual.getWrapping());
+    assertEquals(expected.getTreasurePercent(), actual.getTreasurePercent());
+    assertEquals(expected.getMonsterCount(), actual.getMonsterCount());
+    assertEquals(expected.getThiefCount(), actual.getThiefCount());
+    assertEquals(expected.getPitCount(), actual.getPitCount());
+    assertEquals(expected.getMovingMonsterCount(), actual.getMovingMonsterCount());
+    assertEquals(expected.getStartCave().getId(), actual.getStartCave().getId());
+    assertEquals(expected.getEndCave().getId(), actual.getEndCave().getId());
+    assertEquals(expected.toString(), actual.toString());
+    assertEquals(locationState(expected.getLocationList()),
+            locationState(actual.getLocationList()));
+    assertEquals(locationState(expected.getFinalLocationList()),
+            locationState(actual.getFinalLocationList()));
+    Player expectedPlayer = expected.getPlayer();
+    Player actualPlayer = actual.getPlayer();
+    assertEquals(expectedPlayer.getCurrentLocation().getId(),
+            actualPlayer.getCurrentLocation().getId());
+    assertEquals(expectedPlayer.getHealth(), actualPlayer.getHealth());
+    assertEquals(expectedPlayer.getArrowCount(), actualPlayer.getArrowCount());
+    assertEquals(expectedPlayer.getTreasureList(), actualPlayer.getTreasureList());
+    assertEquals(expected.checkSmell(), actual.checkSmell());
+    assertEquals(expected.checkSoilType(), actual.checkSoilType());
+    assertEquals(expected.getPlayerDescription(), actual.getPlayerDescription());
+  }
+
+  @Test
+  public void testRoundTripOfCreatedDungeon() throws IOException {
+    Dungeon dungeon = createDungeon(false);
+    assertSameDungeon(dungeon, saveAndLoad(dungeon));
+
+    Dungeon wrapping = createDungeon(true);
+    assertSameDungeon(wrapping, saveAndLoad(wrapping));
+  }
+
+  @Test
+  public void testRoundTripAfterPlaying() throws IOException {
+    Dungeon played = createDungeon(true);
+    for (String move : new String[]{"N", "E", "S", "W", "E", "S", "N", "W"}) {
+      if (played.getPlayer().getHealth() > 0) {
+        played.pickTreasure();
+        played.pickArrow();
+        played.shootArrow(1, move);
+        played.nextMove(move);
+      }
+    }
+    Dungeon loaded = saveAndLoad(played);
+    assertSameDungeon(played, loaded);
+
+    //both go back to the same created dungeon
+    assertSameDungeon(new DungeonImpl(played), new DungeonImpl(loaded));
+  }
+
+  @Test
+  public void testLoadedDungeonKeepsSeed() throws IOException {
+    Dungeon loaded = saveAndLoad(createDungeon(false));
+    assertTrue(loaded.getRandomizer() instanceof SeededRandomizer);
+    assertEquals(11L, ((SeededRandomizer) loaded.getRandomizer()).getSeed());
+  }
+
+  @Test
+  public void testLoadedDungeonCanBeSavedAgain() throws IOException {
+    Path first = folder.newFile().toPath();
+    Path second = folder.newFile().toPath();
+    Dungeon dungeon = createDungeon(true);
+    dungeon.nextMove("S");
+    DungeonSnapshot.save(dungeon, first);
+    DungeonSnapshot.save(DungeonSnapshot.load(first), second);
+    assertTrue(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)));
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadNotASnapshot() throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, new byte[100]);
+    DungeonSnapshot.load(file);
+  }
+
+  @Test
+  public void testLoadUnsupportedVersion() throws IOException {
+    Path file = folder.newFile().toPath();
+    DungeonSnapshot.save(createDungeon(false), file);
+    byte[] bytes = Files.readAllBytes(file);
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putShort(4, (short) 99);
+    Files.write(file, bytes);
+    try {
+      DungeonSnapshot.load(file);
+      fail("An unsupported version should not be loaded");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("Version 99"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadTruncatedSnapshot() throws IOException {
+    Path file = folder.newFile().toPath();
+    DungeonSnapshot.save(createDungeon(false), file);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+    DungeonSnapshot.load(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSaveNullDungeon() throws IOException {
+    DungeonSnapshot.save(null, folder.newFile().toPath());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSaveDungeonOfAnotherModel() throws IOException {
+    DungeonSnapshot.save(new MockModel(new StringBuilder()), folder.newFile().toPath());
+  }
+}
@@ -0,0 +1,179 @@
+package dungeontest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dungeon.Dungeon;
+import dungeon.DungeonSettings;
+import dungeon.GameJournal;
+import dungeon.Location;
+import dungeon.ReplayListener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class to test recording a game in a journal and replaying it.
+ */
+public class GameJournalTest {
+
+  private static final DungeonSettings SETTINGS = new DungeonSettings(8, 9, 6, 60,
+          true, 4, 2, 2, 2);
+  private static final String[] MOVES = {"N", "E", "S", "W", "E", "S", "N", "W", "S", "S"};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String gameState(Dungeon dungeon) {
+    StringBuilder sb = new StringBuilder();
+    for (Location location : dungeon.getLocationList()) {
+      sb.append(location.getId()).append(location.getTreasureList())
+              .append(location.getArrow()).append(location.isContainsPit())
+              .append(location.isContainsThief()).append(location.hasPlayerVisited());
+      if (location.hasMonster()) {
+        sb.append(location.getMonster().getMonsterType())
+                .append(location.getMonster().getHealth());
+      }
+      sb.append("\n");
+    }
+    sb.append(dungeon.getPlayer().getCurrentLocation().getId())
+            .append(dungeon.getPlayer().getHealth())
+            .append(dungeon.getPlayer().getArrowCount())
+            .append(dungeon.getPlayer().getTreasureList());
+    return sb.toString();
+  }
+
+  private void play(Dungeon dungeon, String[] moves) {
+    for (String move : moves) {
+      if (dungeon.getPlayer().getHealth() > 0) {
+        dungeon.pickTreasure();
+        dungeon.pickArrow();
+        dungeon.shootArrow(1, move);
+        dungeon.nextMove(move);
+      }
+    }
+  }
+
+  private Path record(long seed, String[] moves) throws IOException {
+    Path file = folder.newFile().toPath();
+    try (GameJournal journal = GameJournal.create(file, SETTINGS, seed)) {
+      play(journal.getDungeon(), moves);
+    }
+    return file;
+  }
+
+  @Test
+  public void testReplayRebuildsGame() throws IOException {
+    Path file = folder.newFile().toPath();
+    String played;
+    try (GameJournal journal = GameJournal.create(file, SETTINGS, 11L)) {
+      play(journal.getDungeon(), MOVES);
+      played = gameState(journal.getDungeon());
+    }
+    Dungeon replayed = GameJournal.replay(file);
+    assertEquals(played, gameState(replayed));
+  }
+
+  @Test
+  public void testJournalIsCompact() throws IOException {
+    Path file = record(11L, MOVES);
+    //a header and a few bytes for each action and number drawn
+    assertTrue(Files.size(file) < 47 + MOVES.length * 4 * 12);
+  }
+
+  @Test
+  public void testReplayOfCutJournalStopsAtLastCompleteRecord() throws IOException {
+    Path file = record(11L, MOVES);
+    byte[] bytes = Files.readAllBytes(file);
+    for (int length = 47; length <= bytes.length; length++) {
+      Files.write(file, Arrays.copyOf(bytes, length));
+      GameJournal.replay(file);
+    }
+  }
+
+  @Test
+  public void testResumeContinuesCutJournal() throws IOException {
+    Path file = record(11L, MOVES);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - bytes.length / 3));
+
+    String played;
+    try (GameJournal journal = GameJournal.resume(file)) {
+      play(journal.getDungeon(), new String[]{"E", "N"});
+      played = gameState(journal.getDungeon());
+    }
+    assertEquals(played, gameState(GameJournal.replay(file)));
+  }
+
+  @Test
+  public void testReplayReportsDivergence() throws IOException {
+    Path file = record(11L, MOVES);
+    byte[] bytes = Files.readAllBytes(file);
+    //the same actions against another seed draw other numbers
+    byte[] seed = {12, 0, 0, 0, 0, 0, 0, 0};
+    System.arraycopy(seed, 0, bytes, 39, seed.length);
+    Files.write(file, bytes);
+    try {
+      GameJournal.replay(file);
+      fail("A game that does not follow the journal should be reported");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().startsWith("Game draws"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReplayNotAJournal() throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, new byte[64]);
+    GameJournal.replay(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCreateWithNullSettings() throws IOException {
+    GameJournal.create(folder.newFile().toPath(), null, 1L);
+  }
+
+  @Test
+  public void testReplayAll() throws IOException, InterruptedException {
+    List<Path> files = new ArrayList<>();
+    Map<Path, String> expected = new ConcurrentHashMap<>();
+    for (long seed = 1; seed <= 20; seed++) {
+      Path file = folder.newFile().toPath();
+      try (GameJournal journal = GameJournal.create(file, SETTINGS, seed)) {
+        play(journal.getDungeon(), MOVES);
+        expected.put(file, gameState(journal.getDungeon()));
+      }
+      files.add(file);
+    }
+    Path broken = folder.newFile().toPath();
+    files.add(broken);
+
+    Map<Path, String> replayed = new ConcurrentHashMap<>();
+    List<Path> failed = Collections.synchronizedList(new ArrayList<>());
+    GameJournal.replayAll(files, 4, new ReplayListener() {
+      @Override
+      public void replayed(Path journal, Dungeon dungeon) {
+        replayed.put(journal, gameState(dungeon));
+      }
+
+      @Override
+      public void failed(Path journal, Exception error) {
+        failed.add(journal);
+      }
+    });
+    assertEquals(expected, replayed);
+    assertEquals(Collections.singletonList(broken), failed);
+  }
+}
@@ -0,0 +1,92 @@
+package dungeontest;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import dungeon.DungeonSettings;
+import dungeon.GameSimulator;
+import dungeon.HunterBot;
+import dungeon.RandomWalkBot;
+import dungeon.SimulationResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class to test playing games with bots.
+ */
+public class GameSimulatorTest {
+
+  private static final DungeonSettings SETTINGS = new DungeonSettings(8, 9, 6, 60,
+          true, 4, 2, 2, 2);
+
+  private SimulationResult simulate(long seed, int games, int threads) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return new GameSimulator(SETTINGS, HunterBot::new, 500).run(seed, games, pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testOutcomeDoesNotDependOnThreads() {
+    SimulationResult single = simulate(42L, 300, 1);
+    SimulationResult parallel = simulate(42L, 300, 4);
+    assertTrue(single.hasSameOutcome(parallel));
+    assertTrue(single.hasSameOutcome(simulate(42L, 300, 3)));
+  }
+
+  @Test
+  public void testOutcomeDependsOnSeed() {
+    assertFalse(simulate(42L, 300, 2).hasSameOutcome(simulate(43L, 300, 2)));
+  }
+
+  @Test
+  public void testEveryGameHasOneOutcome() {
+    SimulationResult result = simulate(7L, 200, 2);
+    assertEquals(200, result.getGames());
+    assertEquals(200, result.getWins() + result.getPitDeaths() + result.getMonsterDeaths()
+            + result.getTimeouts());
+    assertTrue(result.getMoves() >= 200);
+    assertTrue(result.getGamesPerSecond() > 0);
+  }
+
+  @Test
+  public void testGamesStopAfterMostTurns() {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      SimulationResult result = new GameSimulator(SETTINGS, RandomWalkBot::new, 1)
+              .run(5L, 100, pool);
+      assertEquals(100, result.getMoves());
+      assertEquals(100, result.getWins() + result.getPitDeaths() + result.getMonsterDeaths()
+              + result.getTimeouts());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testNoGames() {
+    SimulationResult result = simulate(1L, 0, 1);
+    assertEquals(0, result.getGames());
+    assertEquals(0, result.getMoves());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullSettings() {
+    new GameSimulator(null, RandomWalkBot::new, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTurnsNotPositive() {
+    new GameSimulator(SETTINGS, RandomWalkBot::new, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeGames() {
+    simulate(1L, -1, 1);
+  }
+}
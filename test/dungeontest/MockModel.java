@@ -267,4 +267,19 @@ public class MockModel implements Dungeon {
   public int getMovingMonsterCount() {
     return 0;
   }
+
+  @Override
+  public Location getLocation(int id) {
+    return null;
+  }
+
+  @Override
+  public long getChangeVersion() {
+    return 0;
+  }
+
+  @Override
+  public int[] getChangedLocations(long version) {
+    return null;
+  }
 }
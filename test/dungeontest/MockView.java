@@ -4,6 +4,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyListener;
 
 import controller.IDungeonController;
+import dungeon.GenerationPhase;
 import dungeon.ReadOnlyModel;
 import view.IView;
 
@@ -147,4 +148,20 @@ public class MockView implements IView {
     log.append("\nMethod called to get moving monster count");
     return 0;
   }
+
+  @Override
+  public Long getSeed() {
+    log.append("\nMethod called to get seed");
+    return null;
+  }
+
+  @Override
+  public void showGenerationProgress(GenerationPhase phase) {
+    log.append("\nGeneration phase: " + phase);
+  }
+
+  @Override
+  public void hideGenerationProgress() {
+    log.append("\nGeneration progress hidden");
+  }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package dungeontest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import randomizer.FixedRandomizer;
+import randomizer.SeededRandomizer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class to test the seeded and the fixed random generators.
+ */
+public class RandomizerTest {
+
+  @Test
+  public void testSameSeedSameNumbers() {
+    SeededRandomizer<Integer> first = new SeededRandomizer<>(7L);
+    SeededRandomizer<Integer> second = new SeededRandomizer<>(7L);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(first.getNextInt(3, 9), second.getNextInt(3, 9));
+      assertEquals(first.nextIndex(50), second.nextIndex(50));
+    }
+    assertEquals(7L, first.getSeed());
+  }
+
+  @Test
+  public void testNumbersInRange() {
+    SeededRandomizer<Integer> randomizer = new SeededRandomizer<>(1L);
+    for (int i = 0; i < 1000; i++) {
+      int value = randomizer.getNextInt(30, 100);
+      assertTrue(value >= 30 && value < 100);
+    }
+  }
+
+  @Test
+  public void testShuffleIsPermutation() {
+    List<Integer> values = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    List<Integer> shuffled = new SeededRandomizer<Integer>(3L).randomizedValueList(values);
+    assertEquals(shuffled, new SeededRandomizer<Integer>(3L).randomizedValueList(values));
+    List<Integer> sorted = new ArrayList<>(shuffled);
+    sorted.sort(null);
+    assertEquals(values, sorted);
+  }
+
+  @Test
+  public void testSplitIsReproducible() {
+    SeededRandomizer<Integer> first = new SeededRandomizer<Integer>(11L).split();
+    SeededRandomizer<Integer> second = new SeededRandomizer<Integer>(11L).split();
+    assertEquals(first.getSeed(), second.getSeed());
+    assertNotEquals(11L, first.getSeed());
+    assertEquals(first.getNextInt(0, 1000), second.getNextInt(0, 1000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBound() {
+    new SeededRandomizer<Integer>(1L).nextIndex(0);
+  }
+
+  @Test
+  public void testSampleKDistinctAndInRange() {
+    SeededRandomizer<Integer> randomizer = new SeededRandomizer<>(5L);
+    //a small sample uses Floyd's algorithm, a large one the partial shuffle
+    for (int k : new int[]{0, 1, 3, 25, 60, 100}) {
+      int[] picked = randomizer.sampleK(100, k);
+      assertEquals(k, picked.length);
+      boolean[] seen = new boolean[100];
+      for (int index : picked) {
+        assertTrue(index >= 0 && index < 100);
+        assertTrue(!seen[index]);
+        seen[index] = true;
+      }
+    }
+  }
+
+  @Test
+  public void testSampleKIsUniform() {
+    SeededRandomizer<Integer> randomizer = new SeededRandomizer<>(9L);
+    int[] counts = new int[40];
+    for (int round = 0; round < 20000; round++) {
+      for (int index : randomizer.sampleK(40, 4)) {
+        counts[index]++;
+      }
+    }
+    //each index is expected 2000 times
+    for (int count : counts) {
+      assertTrue(count > 1800 && count < 2200);
+    }
+  }
+
+  @Test
+  public void testFixedSampleKIsFirstIndices() {
+    assertArrayEquals(new int[]{0, 1, 2}, new FixedRandomizer<Integer>(2).sampleK(10, 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSampleKTooMany() {
+    new SeededRandomizer<Integer>(1L).sampleK(3, 4);
+  }
+}
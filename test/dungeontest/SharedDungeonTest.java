@@ -0,0 +1,313 @@
+package dungeontest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dungeon.CreatureType;
+import dungeon.Direction;
+import dungeon.Dungeon;
+import dungeon.DungeonSettings;
+import dungeon.Location;
+import dungeon.SharedDungeon;
+import dungeon.SharedPlayer;
+import randomizer.SeededRandomizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class to test many players exploring one dungeon at the same time.
+ */
+public class SharedDungeonTest {
+
+  private static final DungeonSettings SETTINGS = new DungeonSettings(12, 12, 8, 90,
+          true, 12, 4, 4, 4);
+  private static final int THREADS = 8;
+
+  private Dungeon dungeon;
+  private SharedDungeon shared;
+
+  @Before
+  public void setUp() {
+    dungeon = SETTINGS.createDungeon(new SeededRandomizer(21L), null);
+    shared = new SharedDungeon(dungeon);
+  }
+
+  //runs the task on every thread at the same time and waits for all of them
+  private static void runTogether(int threads, IntTask task) throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    List<Thread> workers = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      int index = i;
+      Thread worker = new Thread(() -> {
+        try {
+          barrier.await();
+          task.run(index);
+        } catch (Throwable e) {
+          synchronized (failures) {
+            failures.add(e);
+          }
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    assertTrue(failures.toString(), failures.isEmpty());
+  }
+
+  private interface IntTask {
+    void run(int index) throws Exception;
+  }
+
+  private static Direction opposite(Direction direction) {
+    switch (direction) {
+      case NORTH:
+        return Direction.SOUTH;
+      case SOUTH:
+        return Direction.NORTH;
+      case EAST:
+        return Direction.WEST;
+      default:
+        return Direction.EAST;
+    }
+  }
+
+  private int worldArrows() {
+    int arrows = 0;
+    for (int id = 0; id < shared.size(); id++) {
+      arrows += shared.getArrows(id);
+    }
+    return arrows;
+  }
+
+  private int worldTreasures() {
+    int treasures = 0;
+    for (int id = 0; id < shared.size(); id++) {
+      treasures += shared.getTreasureCount(id);
+    }
+    return treasures;
+  }
+
+  @Test
+  public void testCopiesDungeon() {
+    for (int id = 0; id < shared.size(); id++) {
+      Location location = dungeon.getLocation(id);
+      assertEquals(location.getArrow(), shared.getArrows(id));
+      assertEquals(location.getTreasureList().size(), shared.getTreasureCount(id));
+      if (location.hasMonster()) {
+        assertEquals(location.getMonster().getMonsterType(), shared.getMonsterType(id));
+        assertEquals(location.getMonster().getHealth(), shared.getMonsterHealth(id));
+      } else {
+        assertEquals(null, shared.getMonsterType(id));
+      }
+    }
+    assertEquals(dungeon.getStartCave().getId(), shared.getStartId());
+    assertEquals(dungeon.getEndCave().getId(), shared.getEndId());
+  }
+
+  @Test
+  public void testEveryItemIsPickedUpOnce() throws Exception {
+    int arrows = worldArrows();
+    int treasures = worldTreasures();
+    assertTrue(arrows > 0 && treasures > 0);
+    SharedPlayer[][] players = new SharedPlayer[THREADS][shared.size()];
+    for (int i = 0; i < THREADS; i++) {
+      for (int id = 0; id < shared.size(); id++) {
+        players[i][id] = shared.join(i * 1000L + id, id);
+      }
+    }
+    runTogether(THREADS, i -> {
+      for (SharedPlayer player : players[i]) {
+        player.takeArrow();
+        player.takeTreasure();
+      }
+    });
+    int heldArrows = 0;
+    int heldTreasures = 0;
+    for (SharedPlayer[] row : players) {
+      for (SharedPlayer player : row) {
+        heldArrows += player.getArrowCount() - 3;
+        heldTreasures += player.getTreasureList().size();
+      }
+    }
+    //a player at the end cave has finished and picks up nothing
+    int end = shared.getEndId();
+    assertEquals(arrows - shared.getArrows(end), heldArrows);
+    assertEquals(treasures - shared.getTreasureCount(end), heldTreasures);
+    assertEquals(shared.getArrows(end), worldArrows());
+    assertEquals(shared.getTreasureCount(end), worldTreasures());
+    assertEquals(THREADS * shared.size(), shared.getPlayerCount());
+  }
+
+  @Test
+  public void testEveryHitCountsOnce() throws Exception {
+    int otyughs = 0;
+    for (int id = 0; id < shared.size(); id++) {
+      if (shared.getMonsterType(id) != CreatureType.OTUYGH) {
+        continue;
+      }
+      Location location = dungeon.getLocation(id);
+      Direction side = null;
+      for (Direction direction : Direction.values()) {
+        if (location.hasNeighbor(direction)) {
+          side = direction;
+        }
+      }
+      int from = location.getNeighbor(side).getId();
+      Direction aim = opposite(side);
+      SharedPlayer[] shooters = new SharedPlayer[THREADS];
+      for (int i = 0; i < THREADS; i++) {
+        shooters[i] = shared.join(i, from);
+      }
+      AtomicInteger hits = new AtomicInteger();
+      runTogether(THREADS, i -> {
+        if (shooters[i].shoot(aim, 1)) {
+          hits.incrementAndGet();
+        }
+      });
+      assertEquals(2, hits.get());
+      assertEquals(0, shared.getMonsterHealth(id));
+      otyughs++;
+    }
+    assertTrue(otyughs > 0);
+  }
+
+  @Test
+  public void testItemsAreKeptWhilePlayersWander() throws Exception {
+    int arrows = worldArrows();
+    int players = 64;
+    AtomicLong spent = new AtomicLong();
+    List<SharedPlayer> all = new ArrayList<>();
+    for (int i = 0; i < players; i++) {
+      all.add(shared.join(i));
+    }
+    runTogether(THREADS, index -> {
+      SeededRandomizer randomizer = new SeededRandomizer(index);
+      Direction[] directions = Direction.values();
+      for (int step = 0; step < 2000; step++) {
+        for (int i = index; i < players; i += THREADS) {
+          SharedPlayer player = all.get(i);
+          Direction direction = directions[randomizer.getNextInt(0, 4)];
+          switch (randomizer.getNextInt(0, 4)) {
+            case 0:
+              int before = player.getArrowCount();
+              player.shoot(direction, randomizer.getNextInt(1, 3));
+              spent.addAndGet(before - player.getArrowCount());
+              break;
+            case 1:
+              player.takeArrow();
+              player.takeTreasure();
+              break;
+            default:
+              player.move(direction);
+              break;
+          }
+        }
+      }
+    });
+    long held = 0;
+    for (SharedPlayer player : all) {
+      held += player.getArrowCount();
+    }
+    assertEquals(3L * players + arrows - worldArrows() - spent.get(), held);
+    for (int id = 0; id < shared.size(); id++) {
+      assertTrue(shared.getMonsterHealth(id) >= 0);
+    }
+  }
+
+  @Test
+  public void testPlayerSensesLikeDungeon() {
+    SharedPlayer player = shared.join(5L);
+    SeededRandomizer randomizer = new SeededRandomizer(5L);
+    Direction[] directions = Direction.values();
+    for (int step = 0; step < 200 && !player.isOver()
+            && dungeon.getPlayer().getHealth() > 0 && !dungeon.hasReachedEnd(); step++) {
+      assertEquals(dungeon.getPlayer().getCurrentLocation().getId(), player.getLocationId());
+      assertEquals(dungeon.checkSmell(), player.checkSmell());
+      assertEquals(dungeon.checkSoilType(), player.checkSoilType());
+      Direction direction = directions[randomizer.getNextInt(0, 4)];
+      boolean moved = player.move(direction);
+      assertEquals(moved, !dungeon.nextMove(direction.name().substring(0, 1))
+              .contains("not possible"));
+    }
+  }
+
+  @Test
+  public void testSmellAndSoilMatchDungeonPlayedAlone() {
+    DungeonSettings still = new DungeonSettings(12, 12, 8, 90, true, 12, 4, 4, 0);
+    Direction[] directions = Direction.values();
+    int compared = 0;
+    int shots = 0;
+    for (long seed = 0; seed < 20; seed++) {
+      Dungeon alone = still.createDungeon(new SeededRandomizer(21L + seed), null);
+      SharedPlayer player = new SharedDungeon(alone).join(seed);
+      SeededRandomizer randomizer = new SeededRandomizer(seed);
+      for (int step = 0; step < 300 && !player.isOver() && alone.getPlayer().getHealth() > 0
+              && !alone.hasReachedEnd()
+              && alone.getPlayer().getCurrentLocation().getId() == player.getLocationId();
+           step++) {
+        assertEquals(alone.checkSmell(), player.checkSmell());
+        assertEquals(alone.checkSoilType(), player.checkSoilType());
+        compared++;
+        Direction direction = directions[randomizer.getNextInt(0, 4)];
+        String letter = direction.name().substring(0, 1);
+        if (randomizer.getNextInt(0, 3) == 0 && player.getArrowCount() > 0
+                && alone.getPlayer().getArrowCount() > 0) {
+          int dist = randomizer.getNextInt(1, 3);
+          alone.shootArrow(dist, letter);
+          player.shoot(direction, dist);
+          assertEquals(alone.getPlayer().getArrowCount(), player.getArrowCount());
+          shots++;
+        } else {
+          alone.nextMove(letter);
+          player.move(direction);
+        }
+      }
+    }
+    assertTrue(compared > 200);
+    assertTrue(shots > 0);
+  }
+
+  @Test
+  public void testNoActionsAfterDeath() {
+    for (int id = 0; id < shared.size(); id++) {
+      if (!dungeon.getLocation(id).isContainsPit()) {
+        continue;
+      }
+      for (Direction direction : Direction.values()) {
+        Location neighbor = dungeon.getLocation(id).getNeighbor(direction);
+        if (neighbor != null) {
+          SharedPlayer player = shared.join(1L, neighbor.getId());
+          assertTrue(player.move(opposite(direction)));
+          assertEquals(0, player.getHealth());
+          assertTrue(player.isOver());
+          assertFalse(player.move(direction));
+          assertFalse(player.takeArrow());
+          assertFalse(player.shoot(direction, 1));
+          return;
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullDungeon() {
+    new SharedDungeon(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testJoinOutsideDungeon() {
+    shared.join(1L, shared.size());
+  }
+}
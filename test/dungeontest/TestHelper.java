@@ -0,0 +1,94 @@
+package dungeontest;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Helpers shared by the tests to play over loopback connections and to wait for work done on
+ * other threads.
+ */
+final class TestHelper {
+
+  private static final int WAIT_MILLIS = 5_000;
+  private static final int POLL_MILLIS = 10;
+
+  private TestHelper() {
+  }
+
+  /**
+   * This method connects to a server listening on the loopback address. A read waits at most
+   * 10 seconds so that a test fails instead of hanging.
+   *
+   * @param port the port of the server
+   * @return the connected socket
+   * @throws IOException when the connection fails
+   */
+  static Socket connect(int port) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    socket.setSoTimeout(10_000);
+    return socket;
+  }
+
+  /**
+   * This method gives a reader of the text sent by the server.
+   *
+   * @param socket the connected socket
+   * @return the reader
+   * @throws IOException when the input of the socket cannot be opened
+   */
+  static Reader reader(Socket socket) throws IOException {
+    return new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * This method sends the text to the server as it is.
+   *
+   * @param socket the connected socket
+   * @param text   the text to send
+   * @throws IOException when the text cannot be sent
+   */
+  static void send(Socket socket, String text) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write(text.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  /**
+   * This method reads until the text has been received.
+   *
+   * @param reader the reader of the server text
+   * @param text   the text to wait for
+   * @return everything read up to and including the text, null when the connection ends first
+   * @throws IOException when reading fails
+   */
+  static String readUntil(Reader reader, String text) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    while (!sb.toString().endsWith(text)) {
+      int c = reader.read();
+      if (c < 0) {
+        return null;
+      }
+      sb.append((char) c);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * This method waits a bounded time for a condition changed by another thread to hold.
+   *
+   * @param condition the condition to wait for
+   * @throws InterruptedException when the waiting thread is interrupted
+   */
+  static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int waited = 0; waited < WAIT_MILLIS && !condition.getAsBoolean();
+         waited += POLL_MILLIS) {
+      Thread.sleep(POLL_MILLIS);
+    }
+  }
+}